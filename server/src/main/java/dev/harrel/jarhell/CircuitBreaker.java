@@ -0,0 +1,106 @@
+package dev.harrel.jarhell;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/* Opens after consecutive failures (errors, timeouts and 5xx responses), so calls fail fast instead of waiting for timeouts.
+ * After the open period a single probe is let through - its outcome either closes the breaker or opens it again */
+public class CircuitBreaker {
+    private static final Logger logger = LoggerFactory.getLogger(CircuitBreaker.class);
+
+    public enum State {CLOSED, OPEN, HALF_OPEN}
+
+    private final String name;
+    private final int failureThreshold;
+    private final long openNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, LongAdder> transitions = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean probing;
+    private long probeStartedAt;
+
+    public CircuitBreaker(String name, int failureThreshold, Duration openDuration) {
+        this(name, failureThreshold, openDuration, System::nanoTime);
+    }
+
+    CircuitBreaker(String name, int failureThreshold, Duration openDuration, LongSupplier nanoClock) {
+        this.name = name;
+        this.failureThreshold = failureThreshold;
+        this.openNanos = openDuration.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    /* false means the call must not be made. Probe that never reports back is replaced after the open period */
+    public synchronized boolean tryAcquire() {
+        long now = nanoClock.getAsLong();
+        if (state == State.OPEN && now - openedAt >= openNanos) {
+            transition(State.HALF_OPEN);
+        }
+        if (state == State.HALF_OPEN && (!probing || now - probeStartedAt >= openNanos)) {
+            probing = true;
+            probeStartedAt = now;
+            return true;
+        }
+        if (state == State.CLOSED) {
+            return true;
+        }
+        rejected.increment();
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        consecutiveFailures = 0;
+        probing = false;
+        if (state == State.HALF_OPEN) {
+            transition(State.CLOSED);
+        }
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        probing = false;
+        if (state == State.HALF_OPEN || (state == State.CLOSED && consecutiveFailures >= failureThreshold)) {
+            openedAt = nanoClock.getAsLong();
+            transition(State.OPEN);
+        }
+    }
+
+    public synchronized State state() {
+        return state;
+    }
+
+    public synchronized Status status() {
+        Map<String, Long> counts = new TreeMap<>();
+        transitions.forEach((key, count) -> counts.put(key, count.sum()));
+        return new Status(name, state, consecutiveFailures, rejected.sum(), counts);
+    }
+
+    private void transition(State newState) {
+        logger.info("Circuit breaker [{}] transitioned from {} to {}", name, state, newState);
+        transitions.computeIfAbsent("%s->%s".formatted(state, newState), _ -> new LongAdder()).increment();
+        state = newState;
+    }
+
+    /* transitions are counted by their "FROM->TO" name */
+    public record Status(String name, State state, int consecutiveFailures, long rejectedCalls, Map<String, Long> transitions) {}
+
+    public static class OpenException extends IllegalStateException {
+        public OpenException(String name) {
+            super("Circuit breaker [%s] is open".formatted(name));
+        }
+    }
+}
@@ -0,0 +1,42 @@
+package dev.harrel.jarhell;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.*;
+
+/* Breakers of upstream endpoints. HTTP calls are matched by URL prefix, the resolver transport uses its own breaker */
+public class CircuitBreakers {
+    public static final String MAVEN_SEARCH = "maven-search";
+    public static final String MAVEN_CONTENT = "maven-content";
+    public static final String RESOLVER = "resolver";
+
+    private final Map<String, CircuitBreaker> breakers = new LinkedHashMap<>();
+    private final Map<String, CircuitBreaker> urlPrefixes = new LinkedHashMap<>();
+
+    public CircuitBreakers(String searchUrl, String contentUrl, int failureThreshold, Duration openDuration) {
+        for (String name : List.of(MAVEN_SEARCH, MAVEN_CONTENT, RESOLVER)) {
+            breakers.put(name, new CircuitBreaker(name, failureThreshold, openDuration));
+        }
+        urlPrefixes.put(searchUrl, breakers.get(MAVEN_SEARCH));
+        urlPrefixes.put(contentUrl, breakers.get(MAVEN_CONTENT));
+    }
+
+    public CircuitBreaker get(String name) {
+        return Objects.requireNonNull(breakers.get(name), name);
+    }
+
+    /* the longest matching prefix wins */
+    public Optional<CircuitBreaker> forUri(URI uri) {
+        String url = uri.toString();
+        return urlPrefixes.entrySet().stream()
+                .filter(entry -> url.startsWith(entry.getKey()))
+                .max(Comparator.comparingInt(entry -> entry.getKey().length()))
+                .map(Map.Entry::getValue);
+    }
+
+    public List<CircuitBreaker.Status> status() {
+        return breakers.values().stream()
+                .map(CircuitBreaker::status)
+                .toList();
+    }
+}
@@ -8,6 +8,7 @@ import com.fasterxml.jackson.databind.exc.ValueInstantiationException;
 import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
 import dev.harrel.jarhell.analyze.AnalyzeEngine;
 import dev.harrel.jarhell.analyze.ArtifactProcessor;
+import dev.harrel.jarhell.analyze.ConcurrencyLimits;
 import dev.harrel.jarhell.error.BadRequestException;
 import dev.harrel.jarhell.error.ErrorResponse;
 import dev.harrel.jarhell.error.ResourceNotFoundException;
@@ -34,6 +35,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URI;
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -61,21 +63,45 @@ public class Configuration {
         return driver;
     }
 
+    /* present only when maven.repo-url is a file:// url, everything is then read from disk instead of over HTTP */
+    @Bean
+    Optional<FileRepository> fileRepository() {
+        return FileRepository.of(Config.get("maven.repo-url"));
+    }
+
+    @Bean
+    CircuitBreakers circuitBreakers() {
+        return new CircuitBreakers(Config.get("maven.search-url"), Config.get("maven.repo-url"),
+                Config.getInt("jar-hell.breaker.failure-threshold", 5),
+                Duration.ofMillis(Config.getLong("jar-hell.breaker.open-ms", 30_000)));
+    }
+
+    /* hedging applies only to content of the Maven repo - listings and POMs are cheap to duplicate, search queries are not */
+    @Bean
+    HedgePolicy hedgePolicy() {
+        List<String> urlPrefixes = Config.enabled("jar-hell.http.hedging.enabled", false) ? List.of(Config.get("maven.repo-url")) : List.of();
+        return new HedgePolicy(urlPrefixes, Config.getInt("jar-hell.http.hedging.budget-percent", 5) / 100.0,
+                Duration.ofMillis(Config.getLong("jar-hell.http.hedging.min-delay-ms", 20)));
+    }
+
     @Bean(destroyMethod = "stop")
-    CustomHttpClient httpClient() throws Exception {
+    CustomHttpClient httpClient(HttpArchive httpArchive, CircuitBreakers circuitBreakers, HedgePolicy hedgePolicy) throws Exception {
         ClientConnector connector = new ClientConnector();
         ClientConnectionFactory.Info http1 = HttpClientConnectionFactory.HTTP11;
         ClientConnectionFactoryOverHTTP2.HTTP2 http2 = new ClientConnectionFactoryOverHTTP2.HTTP2(new HTTP2Client(connector));
         HttpClientTransportDynamic transport = new HttpClientTransportDynamic(connector, http1, http2);
-        CustomHttpClient httpClient = new CustomHttpClient(transport);
+        RateLimiter rateLimiter = new RateLimiter(Config.getInt("jar-hell.http.rate.initial", 20),
+                Config.getInt("jar-hell.http.rate.min", 1), Config.getInt("jar-hell.http.rate.max", 200),
+                Duration.ofMillis(Config.getLong("jar-hell.http.rate.decrease-cooldown-ms", 1000)));
+        CustomHttpClient httpClient = new CustomHttpClient(transport, httpArchive, rateLimiter, circuitBreakers, hedgePolicy);
         httpClient.setMaxRequestsQueuedPerDestination(Integer.MAX_VALUE);
         httpClient.start();
         return httpClient;
     }
 
     @Bean
-    ArtifactProcessor artifactProcessor(ArtifactRepository repo, AnalyzeEngine engine) {
-        return new ArtifactProcessor(repo, engine);
+    ArtifactProcessor artifactProcessor(ArtifactRepository repo, AnalyzeEngine engine, ConcurrencyLimits concurrencyLimits) {
+        return new ArtifactProcessor(repo, engine, concurrencyLimits);
     }
 
     @Bean
@@ -2,48 +2,459 @@ package dev.harrel.jarhell;
 
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.HttpClientTransport;
+import org.eclipse.jetty.client.HttpContentResponse;
+import org.eclipse.jetty.client.HttpConversation;
+import org.eclipse.jetty.client.HttpRequest;
 import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
+import org.eclipse.jetty.client.api.Response;
+import org.eclipse.jetty.client.api.Result;
 import org.eclipse.jetty.client.util.FutureResponseListener;
+import org.eclipse.jetty.client.util.InputStreamResponseListener;
+import org.eclipse.jetty.http.HttpField;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpVersion;
+import org.eclipse.jetty.http.MimeTypes;
+import org.eclipse.jetty.util.Callback;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
 
 public class CustomHttpClient extends HttpClient {
     private static final Logger logger = LoggerFactory.getLogger(CustomHttpClient.class);
 
     private static final int MAX_RESPONSE_SIZE = 16 * 1024 * 1024;
+    private static final String HEDGE_TAG = "hedge";
 
-    public CustomHttpClient(HttpClientTransport transport) {
+    private final HttpArchive archive;
+    private final RateLimiter rateLimiter;
+    private final CircuitBreakers circuitBreakers;
+    private final HedgePolicy hedgePolicy;
+
+    public CustomHttpClient(HttpClientTransport transport, HttpArchive archive) {
+        this(transport, archive, null, null, null);
+    }
+
+    /* every request sent over the network passes its endpoint breaker and waits for the limiter, replayed ones do not */
+    public CustomHttpClient(HttpClientTransport transport, HttpArchive archive, RateLimiter rateLimiter,
+                            CircuitBreakers circuitBreakers, HedgePolicy hedgePolicy) {
         super(transport);
+        this.archive = archive;
+        this.rateLimiter = rateLimiter;
+        this.circuitBreakers = circuitBreakers;
+        this.hedgePolicy = hedgePolicy;
+    }
+
+    @Override
+    protected Request newHttpRequest(HttpConversation conversation, URI uri) {
+        return switch (archive.mode()) {
+            case OFF -> guarded(conversation, uri);
+            case RECORD -> recording(guarded(conversation, uri));
+            case REPLAY -> new ReplayRequest(this, conversation, uri);
+        };
     }
 
     public ContentResponse sendGet(URI uri, long timeout) throws ExecutionException, InterruptedException, TimeoutException {
-        Request req = newRequest(uri);
+        return sendGet(uri, timeout, _ -> {});
+    }
+
+    public ContentResponse sendGet(URI uri, long timeout, Consumer<HttpFields.Mutable> headers) throws ExecutionException, InterruptedException, TimeoutException {
+        if (isHedged(uri)) {
+            return streamGet(uri, timeout, headers, CustomHttpClient::buffer);
+        }
+        // request timeout completes it as failed, so the breaker counts it
+        Request req = newRequest(uri).headers(headers).timeout(timeout, TimeUnit.SECONDS);
         FutureResponseListener listener = new FutureResponseListener(req, MAX_RESPONSE_SIZE);
         req.send(listener);
         return listener.get(timeout, TimeUnit.SECONDS);
     }
 
+    public <T> T streamGet(URI uri, long timeout, BodyHandler<T> handler) throws ExecutionException, InterruptedException, TimeoutException {
+        return streamGet(uri, timeout, _ -> {}, handler);
+    }
+
+    /* body is handed over as it arrives, so only a few chunks of it are held in memory at a time */
+    public <T> T streamGet(URI uri, long timeout, Consumer<HttpFields.Mutable> headers, BodyHandler<T> handler)
+            throws ExecutionException, InterruptedException, TimeoutException {
+        Streamed streamed = open(uri, timeout, headers);
+        try (InputStream body = streamed.body()) {
+            return handler.handle(streamed.response(), body);
+        } catch (IOException e) {
+            throw new ExecutionException(e);
+        }
+    }
+
     public ContentResponse sendGetWithRetries(URI uri, int retries) throws InterruptedException {
-        for (int i = 0; i <= retries; i++) {
+        return sendGetWithRetries(uri, retries, _ -> {});
+    }
+
+    public ContentResponse sendGetWithRetries(URI uri, int retries, Consumer<HttpFields.Mutable> headers) throws InterruptedException {
+        return streamGetWithRetries(uri, retries, headers, CustomHttpClient::buffer);
+    }
+
+    public <T> T streamGetWithRetries(URI uri, int retries, BodyHandler<T> handler) throws InterruptedException {
+        return streamGetWithRetries(uri, retries, _ -> {}, handler);
+    }
+
+    /* 429 and 5xx responses are retried after a jittered exponential backoff, which respects Retry-After.
+     * Only the final response is passed to the handler, bodies of the retried ones are not read at all */
+    public <T> T streamGetWithRetries(URI uri, int retries, Consumer<HttpFields.Mutable> headers, BodyHandler<T> handler) throws InterruptedException {
+        for (int attempt = 0; attempt <= retries; attempt++) {
+            Duration retryAfter = null;
+            String failure;
             try {
-                ContentResponse res = sendGet(uri, 5L);
-                if (res.getStatus() == 429 || res.getStatus() >= 500) {
-                    throw new IllegalArgumentException("Responded with status [%d]".formatted(res.getStatus()));
+                Streamed streamed = open(uri, 5L, headers);
+                try (InputStream body = streamed.body()) {
+                    Response res = streamed.response();
+                    if (res.getStatus() != 429 && res.getStatus() < 500) {
+                        return handler.handle(res, body);
+                    }
+                    failure = "Responded with status [%d]".formatted(res.getStatus());
+                    retryAfter = RateLimiter.parseRetryAfter(res.getHeaders().get(HttpHeader.RETRY_AFTER), Instant.now()).orElse(null);
+                }
+            } catch (IOException | ExecutionException | TimeoutException | RuntimeException e) {
+                failure = e.toString();
+            }
+            logger.info("HTTP call failed for url [{}]. Try {} of {}. {}", uri, attempt + 1, retries + 1, failure);
+            if (attempt < retries) {
+                Thread.sleep(RateLimiter.backoff(attempt, retryAfter));
+            }
+        }
+        throw new IllegalArgumentException("All tries [%d] failed".formatted(retries + 1));
+    }
+
+    private boolean isHedged(URI uri) {
+        return hedgePolicy != null && archive.mode() == HttpArchive.Mode.OFF && hedgePolicy.appliesTo(uri.toString());
+    }
+
+    /* waits only for the response headers, closing the body before reading it fully aborts the request */
+    private Streamed open(URI uri, long timeout, Consumer<HttpFields.Mutable> headers) throws ExecutionException, InterruptedException, TimeoutException {
+        if (isHedged(uri)) {
+            return sendHedged(uri, timeout, headers);
+        }
+        Request req = newRequest(uri).headers(headers).timeout(timeout, TimeUnit.SECONDS);
+        InputStreamResponseListener listener = new InputStreamResponseListener();
+        req.send(listener);
+        return new Streamed(req, listener.get(timeout, TimeUnit.SECONDS), listener.getInputStream());
+    }
+
+    /* same limit as for responses buffered by the listener */
+    private static ContentResponse buffer(Response response, InputStream body) throws IOException {
+        byte[] content = body.readNBytes(MAX_RESPONSE_SIZE + 1);
+        if (content.length > MAX_RESPONSE_SIZE) {
+            throw new IOException("Response of [%s] exceeded [%d] bytes".formatted(response.getRequest().getURI(), MAX_RESPONSE_SIZE));
+        }
+        String contentType = response.getHeaders().get(HttpHeader.CONTENT_TYPE);
+        if (contentType == null) {
+            return new HttpContentResponse(response, content, null, null);
+        }
+        return new HttpContentResponse(response, content, MimeTypes.getContentTypeWithoutCharset(contentType),
+                MimeTypes.getCharsetFromContentType(contentType));
+    }
+
+    /* The duplicate is tagged, which gives it a destination of its own and so a different connection -
+     * on the same HTTP/2 connection it would be stuck behind whatever stalls the first one.
+     * The first response to arrive wins, the other request is aborted */
+    private Streamed sendHedged(URI uri, long timeout, Consumer<HttpFields.Mutable> headers) throws ExecutionException, InterruptedException, TimeoutException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(timeout);
+        Request primary = newRequest(uri).headers(headers).timeout(timeout, TimeUnit.SECONDS);
+        HedgedGet get = new HedgedGet(destination(primary));
+        Request hedge = null;
+        Streamed winner = null;
+        try {
+            get.sendPrimary(primary);
+            Optional<Duration> delay = hedgePolicy.delay(get.destination);
+            if (delay.isPresent() && delay.get().toNanos() < deadline - System.nanoTime()) {
+                try {
+                    winner = get.result.get(delay.get().toNanos(), TimeUnit.NANOSECONDS);
+                    return winner;
+                } catch (TimeoutException e) {
+                    if (!get.result.isDone() && hedgePolicy.tryHedge()) {
+                        logger.debug("Hedging request [{}] after {}ms", uri, delay.get().toMillis());
+                        long remainingMillis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+                        hedge = newRequest(uri).tag(HEDGE_TAG).headers(headers).timeout(remainingMillis, TimeUnit.MILLISECONDS);
+                        get.sendHedge(hedge);
+                    }
+                }
+            }
+            winner = get.result.get(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            return winner;
+        } finally {
+            if ((winner == null || winner.request() != primary) && primary.abort(new CancellationException("Lost the race"))) {
+                get.recordAbortedPrimary();
+            }
+            if (hedge != null && (winner == null || winner.request() != hedge)) {
+                hedge.abort(new CancellationException("Lost the race"));
+            }
+        }
+    }
+
+    private static String destination(Request request) {
+        return "%s://%s:%d".formatted(request.getScheme(), request.getHost(), request.getPort());
+    }
+
+    private Request guarded(HttpConversation conversation, URI uri) {
+        if (rateLimiter == null && circuitBreakers == null) {
+            return super.newHttpRequest(conversation, uri);
+        }
+        return new GuardedRequest(this, conversation, uri);
+    }
+
+    /* failure reported the same way as by the transport, so listeners do not need to know about it */
+    private static void fail(Request request, Response.CompleteListener listener, Throwable failure) {
+        SyntheticResponse response = new SyntheticResponse(request, 0, HttpFields.EMPTY);
+        if (listener instanceof Response.Listener responseListener) {
+            responseListener.onFailure(response, failure);
+        }
+        listener.onComplete(new Result(request, failure, response));
+    }
+
+    private Request recording(Request request) {
+        ByteArrayOutputStream body = new ByteArrayOutputStream();
+        return request
+                .onResponseContent((_, buffer) -> {
+                    byte[] bytes = new byte[buffer.remaining()];
+                    buffer.slice().get(bytes);
+                    synchronized (body) {
+                        body.writeBytes(bytes);
+                    }
+                })
+                .onComplete(result -> {
+                    Response res = result.getResponse();
+                    if (res == null || res.getStatus() == 0) {
+                        return;
+                    }
+                    // aborted bodies (e.g. stream closed after reading enough, timeout) are marked, so that replay fails the same way
+                    boolean complete = !result.isFailed();
+                    List<HttpArchive.Header> headers = res.getHeaders().stream()
+                            .map(field -> new HttpArchive.Header(field.getName(), field.getValue()))
+                            .toList();
+                    byte[] bytes;
+                    synchronized (body) {
+                        bytes = body.toByteArray();
+                    }
+                    Request req = result.getRequest();
+                    archive.record(req.getMethod(), req.getURI().toString(), req.getHeaders().get(HttpHeader.RANGE),
+                            new HttpArchive.Entry(res.getStatus(), headers, bytes, complete));
+                });
+    }
+
+    private class GuardedRequest extends HttpRequest {
+        private final CircuitBreaker breaker;
+        private volatile boolean answered;
+
+        GuardedRequest(HttpClient client, HttpConversation conversation, URI uri) {
+            super(client, conversation, uri);
+            this.breaker = circuitBreakers == null ? null : circuitBreakers.forUri(uri).orElse(null);
+            onResponseHeaders(res -> {
+                answered = true;
+                if (rateLimiter != null) {
+                    rateLimiter.onResponse(destination(this), res.getStatus(), res.getHeaders().get(HttpHeader.RETRY_AFTER));
+                }
+                if (breaker != null) {
+                    if (res.getStatus() >= 500) {
+                        breaker.onFailure();
+                    } else {
+                        breaker.onSuccess();
+                    }
                 }
-                return res;
-            } catch (ExecutionException | TimeoutException | RuntimeException e) {
-                logger.info("HTTP call failed for url [{}]. Try {} of {}. {}", uri, i, retries, e.toString());
-                i++;
+            });
+            // aborts after the headers (e.g. input stream closed early) and cancelled hedges are not failures of the endpoint
+            onComplete(result -> {
+                if (breaker != null && !answered && result.isFailed() && !(result.getFailure() instanceof CancellationException)) {
+                    breaker.onFailure();
+                }
+            });
+        }
+
+        @Override
+        public ContentResponse send() throws InterruptedException, TimeoutException, ExecutionException {
+            if (breaker != null && !breaker.tryAcquire()) {
+                throw new ExecutionException(new CircuitBreaker.OpenException(breaker.name()));
+            }
+            if (rateLimiter != null) {
+                rateLimiter.acquire(destination(this));
+            }
+            return super.send();
+        }
+
+        @Override
+        public void send(Response.CompleteListener listener) {
+            if (breaker != null && !breaker.tryAcquire()) {
+                fail(this, listener, new CircuitBreaker.OpenException(breaker.name()));
+                return;
+            }
+            // might be called from client's own threads (e.g. redirects), so the pacing delay is scheduled instead of slept
+            long waitNanos = rateLimiter == null ? 0 : rateLimiter.reserve(destination(this));
+            if (waitNanos > 0) {
+                CustomHttpClient.this.getScheduler().schedule(() -> super.send(listener), waitNanos, TimeUnit.NANOSECONDS);
+            } else {
+                super.send(listener);
+            }
+        }
+    }
+
+    /* Both requests complete the same future, it fails only when all of them failed.
+     * Latencies are recorded for primaries only - a primary which lost the race records the time until it was aborted,
+     * a lower bound of its latency. Otherwise the slowest requests would never be sampled and p95 would drift down */
+    private final class HedgedGet {
+        private final String destination;
+        private final CompletableFuture<Streamed> result = new CompletableFuture<>();
+        private final AtomicInteger pending = new AtomicInteger();
+        private long primaryStart;
+        private volatile boolean primaryAnswered;
+
+        HedgedGet(String destination) {
+            this.destination = destination;
+        }
+
+        void sendPrimary(Request request) {
+            primaryStart = System.nanoTime();
+            send(request, () -> {
+                primaryAnswered = true;
+                hedgePolicy.record(destination, System.nanoTime() - primaryStart);
+            });
+        }
+
+        void sendHedge(Request request) {
+            send(request, () -> {});
+        }
+
+        void recordAbortedPrimary() {
+            if (!primaryAnswered) {
+                hedgePolicy.record(destination, System.nanoTime() - primaryStart);
+            }
+        }
+
+        private void send(Request request, Runnable onAnswered) {
+            pending.incrementAndGet();
+            request.send(new InputStreamResponseListener() {
+                @Override
+                public void onHeaders(Response response) {
+                    super.onHeaders(response);
+                    onAnswered.run();
+                    result.complete(new Streamed(request, response, getInputStream()));
+                }
+
+                @Override
+                public void onComplete(Result res) {
+                    super.onComplete(res);
+                    if (res.isFailed() && pending.decrementAndGet() == 0) {
+                        result.completeExceptionally(res.getFailure());
+                    }
+                }
+            });
+        }
+    }
+
+    private class ReplayRequest extends HttpRequest {
+        ReplayRequest(HttpClient client, HttpConversation conversation, URI uri) {
+            super(client, conversation, uri);
+        }
+
+        @Override
+        public ContentResponse send() throws InterruptedException, TimeoutException, ExecutionException {
+            FutureResponseListener listener = new FutureResponseListener(this, MAX_RESPONSE_SIZE);
+            send(listener);
+            return listener.get();
+        }
+
+        /* truncated entries deliver what was received and then fail, a reader needing no more than that still succeeds */
+        @Override
+        public void send(Response.CompleteListener listener) {
+            Response.Listener responseListener = listener instanceof Response.Listener l ? l : new Response.Listener.Adapter();
+            HttpArchive.Entry entry = archive.find(getMethod(), getURI().toString(), getHeaders().get(HttpHeader.RANGE)).orElse(null);
+            if (entry == null) {
+                IllegalStateException failure = new IllegalStateException("No recorded response for [%s %s]".formatted(getMethod(), getURI()));
+                logger.warn(failure.getMessage());
+                fail(this, listener, failure);
+                return;
+            }
+
+            HttpFields.Mutable headers = HttpFields.build();
+            entry.headers().forEach(header -> headers.add(header.name(), header.value()));
+            SyntheticResponse response = new SyntheticResponse(this, entry.status(), headers.asImmutable());
+            responseListener.onBegin(response);
+            for (HttpField field : response.getHeaders()) {
+                responseListener.onHeader(response, field);
             }
+            responseListener.onHeaders(response);
+            if (entry.body().length > 0) {
+                responseListener.onContent(response, _ -> {}, ByteBuffer.wrap(entry.body()), Callback.NOOP);
+            }
+            if (!entry.complete()) {
+                EOFException failure = new EOFException("Recorded response for [%s %s] is truncated".formatted(getMethod(), getURI()));
+                responseListener.onFailure(response, failure);
+                listener.onComplete(new Result(this, failure, response));
+                return;
+            }
+            responseListener.onSuccess(response);
+            listener.onComplete(new Result(this, response));
+        }
+    }
+
+    /* consumes the body as it arrives, the stream is closed afterwards */
+    @FunctionalInterface
+    public interface BodyHandler<T> {
+        T handle(Response response, InputStream body) throws IOException;
+    }
+
+    private record Streamed(Request request, Response response, InputStream body) {}
+
+    /* response that did not come from the network, replayed or failed before sending */
+    private record SyntheticResponse(Request request, int status, HttpFields headers) implements Response {
+        @Override
+        public Request getRequest() {
+            return request;
+        }
+
+        @Override
+        public <T extends ResponseListener> List<T> getListeners(Class<T> listenerClass) {
+            return List.of();
+        }
+
+        @Override
+        public HttpVersion getVersion() {
+            return HttpVersion.HTTP_1_1;
+        }
+
+        @Override
+        public int getStatus() {
+            return status;
+        }
+
+        @Override
+        public String getReason() {
+            return null;
+        }
+
+        @Override
+        public HttpFields getHeaders() {
+            return headers;
+        }
+
+        @Override
+        public boolean abort(Throwable cause) {
+            return false;
         }
-        throw new IllegalArgumentException("All tries [%d] failed".formatted(retries));
     }
 }
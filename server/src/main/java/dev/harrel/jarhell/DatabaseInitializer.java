@@ -14,6 +14,16 @@ public class DatabaseInitializer {
             FOR (n:Artifact)
             REQUIRE (n.groupId, n.artifactId, n.version, n.classifier) IS UNIQUE
             """;
+    private static final String UNIQUE_INDEX_RECORD = """
+            CREATE CONSTRAINT unique_index_record IF NOT EXISTS
+            FOR (n:IndexRecord)
+            REQUIRE n.coordinate IS UNIQUE
+            """;
+    private static final String UNIQUE_ARTIFACT_GROUP = """
+            CREATE CONSTRAINT unique_artifact_group IF NOT EXISTS
+            FOR (n:ArtifactGroup)
+            REQUIRE (n.groupId, n.artifactId) IS UNIQUE
+            """;
     private static final String INDEX_GAV = """
             CREATE INDEX index_gav IF NOT EXISTS
             FOR (n:Artifact)
@@ -38,6 +48,8 @@ public class DatabaseInitializer {
     public static void initialize(Driver driver) {
         try (var session = driver.session()) {
             runDdl(session, UNIQUE_GAV_WITH_CLASSIFIER);
+            runDdl(session, UNIQUE_INDEX_RECORD);
+            runDdl(session, UNIQUE_ARTIFACT_GROUP);
             runDdl(session, INDEX_GAV);
             runDdl(session, INDEX_GA);
             runDdl(session, TEXT_INDEX_GROUP_ID);
@@ -0,0 +1,108 @@
+package dev.harrel.jarhell;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
+
+/* Maven repository laid out on a local file system, used when maven.repo-url is a file:// url */
+public final class FileRepository {
+    private final Path root;
+
+    private FileRepository(Path root) {
+        this.root = root.toAbsolutePath().normalize();
+    }
+
+    public static Optional<FileRepository> of(String repoUrl) {
+        if (repoUrl == null || !repoUrl.startsWith("file:")) {
+            return Optional.empty();
+        }
+        return Optional.of(new FileRepository(Path.of(URI.create(repoUrl))));
+    }
+
+    public Path resolve(String relativePath) {
+        Path path = root.resolve(relativePath).normalize();
+        if (!path.startsWith(root)) {
+            throw new IllegalArgumentException("Path [%s] is outside of repository".formatted(relativePath));
+        }
+        return path;
+    }
+
+    /* entries are named the same way as in HTML listings - directories end with '/' */
+    public Optional<List<String>> list(String relativePath) {
+        Path dir = resolve(relativePath);
+        if (!Files.isDirectory(dir)) {
+            return Optional.empty();
+        }
+        try (Stream<Path> children = Files.list(dir)) {
+            return Optional.of(children
+                    .map(child -> Files.isDirectory(child) ? child.getFileName() + "/" : child.getFileName().toString())
+                    .sorted(Comparator.naturalOrder())
+                    .toList());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public Optional<String> readString(String relativePath) {
+        try {
+            return Optional.of(Files.readString(resolve(relativePath)));
+        } catch (NoSuchFileException e) {
+            return Optional.empty();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public boolean exists(String relativePath) {
+        return Files.isRegularFile(resolve(relativePath));
+    }
+
+    public LocalDateTime lastModified(String relativePath) throws IOException {
+        return LocalDateTime.ofInstant(Files.getLastModifiedTime(resolve(relativePath)).toInstant(), ZoneOffset.UTC);
+    }
+
+    public long size(String relativePath) throws IOException {
+        return Files.size(resolve(relativePath));
+    }
+
+    /* mapping does not copy the file, pages are read only when they are touched */
+    public MappedByteBuffer map(String relativePath) throws IOException {
+        try (FileChannel channel = FileChannel.open(resolve(relativePath), StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, Math.min(channel.size(), Integer.MAX_VALUE));
+        }
+    }
+
+    public static InputStream asInputStream(ByteBuffer buffer) {
+        ByteBuffer source = buffer.duplicate();
+        return new InputStream() {
+            @Override
+            public int read() {
+                return source.hasRemaining() ? source.get() & 0xFF : -1;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) {
+                if (!source.hasRemaining()) {
+                    return -1;
+                }
+                int count = Math.min(len, source.remaining());
+                source.get(b, off, count);
+                return count;
+            }
+        };
+    }
+}
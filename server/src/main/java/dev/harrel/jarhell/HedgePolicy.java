@@ -0,0 +1,97 @@
+package dev.harrel.jarhell;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/* Decides when a GET gets a duplicate: once it has not answered by the p95 latency observed for its destination.
+ * Every request earns a fraction of a hedge, so duplicates never exceed the budget ratio of all requests
+ * (apart from a small burst allowance) no matter how slow the upstream gets */
+public class HedgePolicy {
+    private static final int WINDOW_SIZE = 512;
+    private static final int MIN_SAMPLES = 50;
+    private static final int RECOMPUTE_EVERY = 32;
+    private static final double MAX_TOKENS = 10;
+
+    private final List<String> urlPrefixes;
+    private final double budgetRatio;
+    private final Duration minDelay;
+    private final ConcurrentHashMap<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+    private final AtomicLong hedged = new AtomicLong();
+    private final AtomicLong denied = new AtomicLong();
+    private double tokens;
+
+    public HedgePolicy(List<String> urlPrefixes, double budgetRatio, Duration minDelay) {
+        if (budgetRatio < 0 || budgetRatio > 1) {
+            throw new IllegalArgumentException("Hedge budget ratio must be between 0 and 1");
+        }
+        this.urlPrefixes = List.copyOf(urlPrefixes);
+        this.budgetRatio = budgetRatio;
+        this.minDelay = minDelay;
+    }
+
+    public boolean appliesTo(String url) {
+        return urlPrefixes.stream().anyMatch(url::startsWith);
+    }
+
+    /* delay after which a duplicate should be sent, empty until enough latencies of the destination are known */
+    public Optional<Duration> delay(String destination) {
+        synchronized (this) {
+            tokens = Math.min(MAX_TOKENS, tokens + budgetRatio);
+        }
+        LatencyWindow window = windows.get(destination);
+        long p95 = window == null ? -1 : window.p95();
+        if (p95 < 0) {
+            return Optional.empty();
+        }
+        Duration delay = Duration.ofNanos(p95);
+        return Optional.of(delay.compareTo(minDelay) < 0 ? minDelay : delay);
+    }
+
+    public boolean tryHedge() {
+        synchronized (this) {
+            if (tokens >= 1) {
+                tokens--;
+                hedged.incrementAndGet();
+                return true;
+            }
+        }
+        denied.incrementAndGet();
+        return false;
+    }
+
+    public void record(String destination, long latencyNanos) {
+        windows.computeIfAbsent(destination, _ -> new LatencyWindow()).add(latencyNanos);
+    }
+
+    public Status status() {
+        return new Status(hedged.get(), denied.get());
+    }
+
+    public record Status(long hedged, long deniedByBudget) {}
+
+    /* ring of the latest latencies, percentile is recomputed every few samples instead of on every request */
+    private static final class LatencyWindow {
+        private final long[] samples = new long[WINDOW_SIZE];
+        private long recorded;
+        private int count;
+        private long p95 = -1;
+
+        synchronized void add(long latencyNanos) {
+            samples[(int) (recorded++ % WINDOW_SIZE)] = latencyNanos;
+            count = Math.min(count + 1, WINDOW_SIZE);
+            if (recorded == MIN_SAMPLES || (recorded > MIN_SAMPLES && recorded % RECOMPUTE_EVERY == 0)) {
+                long[] sorted = Arrays.copyOf(samples, count);
+                Arrays.sort(sorted);
+                p95 = sorted[(int) Math.ceil(count * 0.95) - 1];
+            }
+        }
+
+        synchronized long p95() {
+            return p95;
+        }
+    }
+}
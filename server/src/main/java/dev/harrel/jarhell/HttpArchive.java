@@ -0,0 +1,169 @@
+package dev.harrel.jarhell;
+
+import io.avaje.config.Config;
+import io.avaje.inject.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.*;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/* Append-only archive of HTTP exchanges: [int length][deflated record]...
+ * Exchanges are keyed by method, url and range header, so partial and HEAD responses are replayed as they were recorded */
+@Singleton
+public class HttpArchive {
+    private static final Logger logger = LoggerFactory.getLogger(HttpArchive.class);
+
+    private final Mode mode;
+    private final Path path;
+    private final ConcurrentHashMap<String, byte[]> entries = new ConcurrentHashMap<>();
+    private DataOutputStream output;
+
+    @Inject
+    HttpArchive() throws IOException {
+        this(Mode.valueOf(Config.get("jar-hell.http-archive.mode", "off").toUpperCase(Locale.ROOT)),
+                Path.of(Config.get("jar-hell.http-archive.path", "build/http-archive.bin")));
+    }
+
+    HttpArchive(Mode mode, Path path) throws IOException {
+        this.mode = mode;
+        this.path = path;
+        switch (mode) {
+            case RECORD -> {
+                Files.createDirectories(path.toAbsolutePath().getParent());
+                output = new DataOutputStream(new BufferedOutputStream(
+                        Files.newOutputStream(path, StandardOpenOption.CREATE, StandardOpenOption.APPEND)));
+                logger.info("Recording HTTP traffic to [{}]", path);
+            }
+            case REPLAY -> {
+                load();
+                logger.info("Replaying HTTP traffic from [{}], entries: {}", path, entries.size());
+            }
+            case OFF -> {}
+        }
+    }
+
+    @PreDestroy
+    public synchronized void close() throws IOException {
+        if (output != null) {
+            output.close();
+            output = null;
+        }
+    }
+
+    public Mode mode() {
+        return mode;
+    }
+
+    public Optional<Entry> find(String method, String url, String range) {
+        return Optional.ofNullable(entries.get(key(method, url, range))).map(HttpArchive::decode);
+    }
+
+    public void record(String method, String url, String range, Entry entry) {
+        String key = key(method, url, range);
+        byte[] record = encode(key, entry);
+        synchronized (this) {
+            if (output == null) {
+                return;
+            }
+            try {
+                output.writeInt(record.length);
+                output.write(record);
+                output.flush();
+            } catch (IOException e) {
+                logger.warn("Failed to record HTTP exchange [{}]", key, e);
+            }
+        }
+    }
+
+    private void load() throws IOException {
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(path)))) {
+            while (true) {
+                int length;
+                try {
+                    length = input.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                byte[] record = input.readNBytes(length);
+                if (record.length < length) {
+                    logger.warn("Truncated record found in [{}], ignoring the rest", path);
+                    break;
+                }
+                try (DataInputStream recordInput = inflate(record)) {
+                    entries.put(recordInput.readUTF(), record);
+                }
+            }
+        }
+    }
+
+    private static String key(String method, String url, String range) {
+        return method + " " + url + " " + Objects.requireNonNullElse(range, "");
+    }
+
+    private static byte[] encode(String key, Entry entry) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(baos))) {
+            out.writeUTF(key);
+            out.writeShort(entry.status());
+            out.writeShort(entry.headers().size());
+            for (Header header : entry.headers()) {
+                out.writeUTF(header.name());
+                out.writeUTF(header.value());
+            }
+            out.writeInt(entry.body().length);
+            out.write(entry.body());
+            out.writeBoolean(entry.complete());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Entry decode(byte[] record) {
+        try (DataInputStream in = inflate(record)) {
+            in.readUTF();
+            int status = in.readUnsignedShort();
+            int headersCount = in.readUnsignedShort();
+            List<Header> headers = new ArrayList<>(headersCount);
+            for (int i = 0; i < headersCount; i++) {
+                headers.add(new Header(in.readUTF(), in.readUTF()));
+            }
+            byte[] body = in.readNBytes(in.readInt());
+            // records written before the flag was added hold complete bodies only
+            int complete = in.read();
+            return new Entry(status, headers, body, complete != 0);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static DataInputStream inflate(byte[] record) {
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(record)));
+    }
+
+    public enum Mode {
+        OFF, RECORD, REPLAY
+    }
+
+    /* complete is false when the body was cut short, e.g. the request was aborted after reading enough of it */
+    public record Entry(int status, List<Header> headers, byte[] body, boolean complete) {
+        public Entry(int status, List<Header> headers, byte[] body) {
+            this(status, headers, body, true);
+        }
+    }
+
+    public record Header(String name, String value) {}
+}
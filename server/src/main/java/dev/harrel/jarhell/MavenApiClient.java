@@ -9,24 +9,38 @@ import dev.harrel.jarhell.error.BadRequestException;
 import dev.harrel.jarhell.model.Gav;
 import dev.harrel.jarhell.model.central.SelectResponse;
 import dev.harrel.jarhell.util.ConcurrentUtil;
+import dev.harrel.jarhell.util.StaleCache;
 import io.avaje.config.Config;
 import org.apache.maven.artifact.versioning.ComparableVersion;
 import org.eclipse.jetty.client.api.ContentResponse;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
+import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
+import org.eclipse.jetty.http.HttpStatus;
+import org.jsoup.nodes.Element;
+import org.jsoup.parser.Parser;
+import org.jsoup.parser.StreamParser;
 
 import javax.inject.Singleton;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.nio.charset.StandardCharsets;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.Set;
 import java.util.StringJoiner;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.StructuredTaskScope;
 import java.util.concurrent.StructuredTaskScope.Subtask;
 import java.util.concurrent.TimeoutException;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -41,13 +55,19 @@ public class MavenApiClient {
     private static final Pattern SANITIZATION_PATTERN = Pattern.compile("[^\\w\\.-]");
     public static final Pattern HTML_VERSIONS_PATTERN = Pattern.compile("\\d+.*/");
     private static final Pattern XML_VERSIONS_PATTERN = Pattern.compile("<version>(.+)<\\/version>");
+    private static final int STALE_CACHE_SIZE = Config.getInt("jar-hell.maven.stale-cache-size", 10_000);
 
     private final ObjectMapper objectMapper;
     private final CustomHttpClient httpClient;
+    private final FileRepository fileRepository;
+    /* user facing lookups keep answering from these while upstream is failing (e.g. its breaker is open) */
+    private final StaleCache<String, List<SolrArtifact>> searchCache = new StaleCache<>(STALE_CACHE_SIZE);
+    private final StaleCache<String, List<String>> versionsCache = new StaleCache<>(STALE_CACHE_SIZE);
 
-    MavenApiClient(ObjectMapper objectMapper, CustomHttpClient httpClient) {
+    MavenApiClient(ObjectMapper objectMapper, CustomHttpClient httpClient, Optional<FileRepository> fileRepository) {
         this.objectMapper = objectMapper;
         this.httpClient = httpClient;
+        this.fileRepository = fileRepository.orElse(null);
     }
 
     public List<SolrArtifact> queryMavenSolr(String query) {
@@ -58,21 +78,29 @@ public class MavenApiClient {
         if (queryString.isEmpty()) {
             return List.of();
         }
+        return searchCache.get(queryString, () -> fetchSolrArtifacts(queryString));
+    }
+
+    public List<String> fetchArtifactVersions(String groupId, String artifactId) {
+        return versionsCache.get(groupId + ":" + artifactId, () -> fetchVersions(groupId, artifactId));
+    }
 
+    private List<SolrArtifact> fetchSolrArtifacts(String queryString) {
         String url = SEARCH_URL + "?q=" + queryString + "&rows=80";
-        var res = fetchRaw(url);
-        if (res.getStatus() >= 400) {
-            throw new BadRequestException("HTTP call failed [%s] for url [%s]".formatted(res.getStatus(), url));
-        }
-        try {
-            SelectResponse<SolrArtifact> data = objectMapper.readValue(res.getContentAsString(), new TypeReference<>() {});
-            return data.response().docs();
-        } catch (JsonProcessingException e) {
-            throw new UncheckedIOException("HTTP fetch deserialization failed for url [%s]".formatted(url), e);
-        }
+        return streamRaw(url, _ -> {}, (res, body) -> {
+            if (res.getStatus() >= 400) {
+                throw new BadRequestException("HTTP call failed [%s] for url [%s]".formatted(res.getStatus(), url));
+            }
+            try {
+                SelectResponse<SolrArtifact> data = objectMapper.readValue(body, new TypeReference<>() {});
+                return data.response().docs();
+            } catch (JsonProcessingException e) {
+                throw new UncheckedIOException("HTTP fetch deserialization failed for url [%s]".formatted(url), e);
+            }
+        });
     }
 
-    public List<String> fetchArtifactVersions(String groupId, String artifactId) {
+    private List<String> fetchVersions(String groupId, String artifactId) {
         try (var scope = open(Joiner.awaitAllSuccessfulOrThrow())) {
             Subtask<List<String>> dirVersions = scope.fork(() -> fetchVersionsFromDir(groupId, artifactId));
             Subtask<List<String>> metadataVersions = scope.fork(() -> fetchVersionsFromMetadata(groupId, artifactId));
@@ -92,24 +120,49 @@ public class MavenApiClient {
     }
 
     public boolean checkIfArtifactExists(Gav gav) {
+        if (fileRepository != null) {
+            return fileRepository.exists(createFilePath(gav, "pom"));
+        }
         var res = fetchRaw(createFileUrl(gav, "pom"));
         return res.getStatus() == 200;
     }
 
+    public Optional<String> fetchPom(Gav gav) {
+        String path = createFilePath(gav.stripClassifier(), "pom");
+        if (fileRepository != null) {
+            return fileRepository.readString(path);
+        }
+        String url = createFileUrl(gav.stripClassifier(), "pom");
+        var res = fetchRaw(url);
+        if (res.getStatus() == HttpStatus.NOT_FOUND_404) {
+            return Optional.empty();
+        }
+        if (res.getStatus() >= 400) {
+            throw new IllegalArgumentException("HTTP call failed [%s] for url [%s]".formatted(res.getStatus(), url));
+        }
+        return Optional.of(res.getContentAsString());
+    }
+
     public FilesInfo fetchFilesInfo(Gav gav) {
         String groupPath = gav.groupId().replace('.', '/');
         String path = "%s/%s/%s/".formatted(groupPath, gav.artifactId(), gav.version());
-        String encodedPath = URLEncoder.encode(path, StandardCharsets.UTF_8);
-        String url = CONTENT_URL + "/" + encodedPath;
-        var res = fetchRaw(url);
-        if (res.getStatus() >= 400) {
-            throw new ArtifactNotFoundException("HTTP call failed [%s] for url [%s]".formatted(res.getStatus(), url));
+        List<String> hrefs;
+        if (fileRepository != null) {
+            hrefs = fileRepository.list(path)
+                    .orElseThrow(() -> new ArtifactNotFoundException("Directory [%s] not found in local repository".formatted(path)));
+        } else {
+            String encodedPath = URLEncoder.encode(path, StandardCharsets.UTF_8);
+            String url = CONTENT_URL + "/" + encodedPath;
+            hrefs = streamRaw(url, _ -> {}, (res, body) -> {
+                if (res.getStatus() >= 400) {
+                    throw new ArtifactNotFoundException("HTTP call failed [%s] for url [%s]".formatted(res.getStatus(), url));
+                }
+                return parseHrefs(body);
+            });
         }
 
         String filePrefix = "%s-%s".formatted(gav.artifactId(), gav.version());
-        Document doc = Jsoup.parse(res.getContentAsString());
-        List<String> suffixes = doc.getElementsByTag("a").stream()
-                .map(el -> el.attr("href"))
+        List<String> suffixes = hrefs.stream()
                 .filter(href -> href.startsWith(filePrefix))
                 .map(href -> href.substring(filePrefix.length()))
                 .toList();
@@ -127,16 +180,16 @@ public class MavenApiClient {
 
     private List<String> fetchVersionsFromDir(String groupId, String artifactId) {
         String groupPath = groupId.replace('.', '/');
-        String encodedPath = URLEncoder.encode(groupPath + "/" + artifactId, StandardCharsets.UTF_8);
-        var res = fetchRaw(CONTENT_URL + "/" + encodedPath);
-        if (res.getStatus() >= 400) {
-            return List.of();
+        List<String> hrefs;
+        if (fileRepository != null) {
+            hrefs = fileRepository.list(groupPath + "/" + artifactId).orElse(List.of());
+        } else {
+            String encodedPath = URLEncoder.encode(groupPath + "/" + artifactId, StandardCharsets.UTF_8);
+            hrefs = streamRaw(CONTENT_URL + "/" + encodedPath, _ -> {},
+                    (res, body) -> res.getStatus() >= 400 ? List.of() : parseHrefs(body));
         }
 
-        Document doc = Jsoup.parse(res.getContentAsString());
-        return doc.getElementsByTag("a")
-                .stream()
-                .map(el -> el.attr("href"))
+        return hrefs.stream()
                 .filter(href -> HTML_VERSIONS_PATTERN.matcher(href).matches())
                 .map(v -> v.substring(0, v.length() - 1))
                 .toList();
@@ -145,17 +198,85 @@ public class MavenApiClient {
     private List<String> fetchVersionsFromMetadata(String groupId, String artifactId) {
         String groupPath = groupId.replace('.', '/');
         String metadataPath = "%s/%s/maven-metadata.xml".formatted(groupPath, artifactId);
+        if (fileRepository != null) {
+            return fileRepository.readString(metadataPath)
+                    .map(content -> parseMetadataVersions(content.lines()))
+                    .orElse(List.of());
+        }
         String encodedPath = URLEncoder.encode(metadataPath, StandardCharsets.UTF_8);
-        var res = fetchRaw(CONTENT_URL + "/" + encodedPath);
-        if (res.getStatus() >= 400) {
-            return List.of();
+        return streamRaw(CONTENT_URL + "/" + encodedPath, _ -> {},
+                (res, body) -> res.getStatus() >= 400 ? List.of() : parseMetadataVersions(lines(body)));
+    }
+
+    public ConditionalMetadata fetchMetadata(String groupId, String artifactId, String etag, String lastModified) {
+        String groupPath = groupId.replace('.', '/');
+        String metadataPath = "%s/%s/maven-metadata.xml".formatted(groupPath, artifactId);
+        if (fileRepository != null) {
+            return fetchLocalMetadata(metadataPath, lastModified);
+        }
+        String url = CONTENT_URL + "/" + URLEncoder.encode(metadataPath, StandardCharsets.UTF_8);
+        Consumer<HttpFields.Mutable> validators = headers -> {
+            if (etag != null) {
+                headers.add(HttpHeader.IF_NONE_MATCH, etag);
+            }
+            if (lastModified != null) {
+                headers.add(HttpHeader.IF_MODIFIED_SINCE, lastModified);
+            }
+        };
+        return streamRaw(url, validators, (res, body) -> {
+            if (res.getStatus() == HttpStatus.NOT_MODIFIED_304) {
+                return new ConditionalMetadata(false, List.of(), etag, lastModified);
+            }
+            if (res.getStatus() >= 400) {
+                throw new ArtifactNotFoundException("HTTP call failed [%s] for url [%s]".formatted(res.getStatus(), url));
+            }
+            return new ConditionalMetadata(true, parseMetadataVersions(lines(body)),
+                    res.getHeaders().get(HttpHeader.ETAG), res.getHeaders().get(HttpHeader.LAST_MODIFIED));
+        });
+    }
+
+    /* file modification time plays the role of Last-Modified header */
+    private ConditionalMetadata fetchLocalMetadata(String metadataPath, String lastModified) {
+        String content = fileRepository.readString(metadataPath)
+                .orElseThrow(() -> new ArtifactNotFoundException("File [%s] not found in local repository".formatted(metadataPath)));
+        String fileLastModified;
+        try {
+            fileLastModified = fileRepository.lastModified(metadataPath)
+                    .atOffset(ZoneOffset.UTC)
+                    .format(DateTimeFormatter.RFC_1123_DATE_TIME);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        if (fileLastModified.equals(lastModified)) {
+            return new ConditionalMetadata(false, List.of(), null, lastModified);
         }
-        return XML_VERSIONS_PATTERN.matcher(res.getContentAsString())
-                .results()
+        return new ConditionalMetadata(true, parseMetadataVersions(content.lines()), null, fileLastModified);
+    }
+
+    /* versions never span lines, so matching line by line finds the same ones as matching the whole document */
+    private static List<String> parseMetadataVersions(Stream<String> lines) {
+        return lines.flatMap(line -> XML_VERSIONS_PATTERN.matcher(line).results())
                 .map(m -> m.group(1))
                 .toList();
     }
 
+    private static Stream<String> lines(InputStream body) {
+        return new BufferedReader(new InputStreamReader(body, StandardCharsets.UTF_8)).lines();
+    }
+
+    /* links are dropped from the tree once read, so even huge listings never make a whole document in memory */
+    public static List<String> parseHrefs(InputStream html) throws IOException {
+        List<String> hrefs = new ArrayList<>();
+        try (StreamParser parser = new StreamParser(Parser.htmlParser()).parse(new InputStreamReader(html, StandardCharsets.UTF_8), "")) {
+            Element link;
+            while ((link = parser.selectNext("a")) != null) {
+                hrefs.add(link.attr("href"));
+                link.remove();
+            }
+        }
+        return hrefs;
+    }
+
     private ContentResponse fetchRaw(String url) {
         try {
             return httpClient.sendGet(URI.create(url), 5L);
@@ -167,7 +288,23 @@ public class MavenApiClient {
         }
     }
 
+    private <T> T streamRaw(String url, Consumer<HttpFields.Mutable> headers, CustomHttpClient.BodyHandler<T> handler) {
+        try {
+            return httpClient.streamGet(URI.create(url), 5L, headers, handler);
+        } catch (ExecutionException | TimeoutException e) {
+            throw new IllegalArgumentException("HTTP fetch failed for url [%s]".formatted(url), e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalArgumentException(e);
+        }
+    }
+
     public static String createFileUrl(Gav gav, String fileExtension) {
+        String encodedResource = URLEncoder.encode(createFilePath(gav, fileExtension), StandardCharsets.UTF_8);
+        return CONTENT_URL + "/" + encodedResource;
+    }
+
+    public static String createFilePath(Gav gav, String fileExtension) {
         String groupPath = gav.groupId().replace('.', '/');
         StringJoiner joiner = new StringJoiner("-")
                 .add(gav.artifactId())
@@ -176,9 +313,7 @@ public class MavenApiClient {
             joiner.add(gav.classifier());
         }
         String fileName = "%s.%s".formatted(joiner, fileExtension);
-        String resource = "%s/%s/%s/%s".formatted(groupPath, gav.artifactId(), gav.version(), fileName);
-        String encodedResource = URLEncoder.encode(resource, StandardCharsets.UTF_8);
-        return CONTENT_URL + "/" + encodedResource;
+        return "%s/%s/%s/%s".formatted(groupPath, gav.artifactId(), gav.version(), fileName);
     }
 
     private static String createQueryString(String input) {
@@ -204,4 +339,6 @@ public class MavenApiClient {
     }
 
     public record SolrArtifact(String g, String a, String latestVersion) {}
+
+    public record ConditionalMetadata(boolean modified, List<String> versions, String etag, String lastModified) {}
 }
@@ -1,5 +1,7 @@
 package dev.harrel.jarhell;
 
+import dev.harrel.jarhell.maven.ArchiveTransporterFactory;
+import dev.harrel.jarhell.maven.BreakerTransporterFactory;
 import dev.harrel.jarhell.maven.LoggingRepositoryListener;
 import io.avaje.config.Config;
 import io.avaje.inject.Bean;
@@ -176,6 +178,16 @@ class MavenResolverConfiguration {
         return new HttpTransporterFactory(extractors);
     }
 
+    @Bean
+    ArchiveTransporterFactory archiveTransporterFactory(HttpArchive httpArchive, BreakerTransporterFactory breakerTransporterFactory) {
+        return new ArchiveTransporterFactory(httpArchive, breakerTransporterFactory);
+    }
+
+    @Bean
+    BreakerTransporterFactory breakerTransporterFactory(CircuitBreakers circuitBreakers, HttpTransporterFactory httpTransporterFactory) {
+        return new BreakerTransporterFactory(circuitBreakers.get(CircuitBreakers.RESOLVER), httpTransporterFactory);
+    }
+
     @Bean
     FileTransporterFactory fileTransportFactory() {
         return new FileTransporterFactory();
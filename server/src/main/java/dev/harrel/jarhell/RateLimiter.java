@@ -0,0 +1,141 @@
+package dev.harrel.jarhell;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/* Paces requests per destination (scheme, host and port). Rate grows additively with every successful response,
+ * so by about one request per second each second, and halves on 429 or 503 - at most once per cool-down,
+ * as responses of requests already in flight tell the same story. Retry-After holds all requests to the destination */
+public class RateLimiter {
+    private static final Duration MAX_RETRY_AFTER = Duration.ofMinutes(5);
+    private static final Duration BACKOFF_BASE = Duration.ofMillis(200);
+    private static final Duration MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private final double initialRate;
+    private final double minRate;
+    private final double maxRate;
+    private final long decreaseCooldownNanos;
+    private final LongSupplier nanoClock;
+    private final ConcurrentHashMap<String, Destination> destinations = new ConcurrentHashMap<>();
+
+    public RateLimiter(double initialRate, double minRate, double maxRate, Duration decreaseCooldown) {
+        this(initialRate, minRate, maxRate, decreaseCooldown, System::nanoTime);
+    }
+
+    RateLimiter(double initialRate, double minRate, double maxRate, Duration decreaseCooldown, LongSupplier nanoClock) {
+        if (minRate <= 0 || minRate > initialRate || initialRate > maxRate) {
+            throw new IllegalArgumentException("Rates must satisfy 0 < min <= initial <= max");
+        }
+        this.initialRate = initialRate;
+        this.minRate = minRate;
+        this.maxRate = maxRate;
+        this.decreaseCooldownNanos = decreaseCooldown.toNanos();
+        this.nanoClock = nanoClock;
+    }
+
+    /* blocks until the request can be sent */
+    public void acquire(String destination) throws InterruptedException {
+        long waitNanos = reserve(destination);
+        if (waitNanos > 0) {
+            TimeUnit.NANOSECONDS.sleep(waitNanos);
+        }
+    }
+
+    public void onResponse(String destination, int status, String retryAfter) {
+        Destination dest = destination(destination);
+        if (isThrottling(status)) {
+            dest.decrease(nanoClock.getAsLong(), parseRetryAfter(retryAfter, Instant.now()).orElse(Duration.ZERO));
+        } else if (status < 500) {
+            dest.increase();
+        }
+    }
+
+    public double rate(String destination) {
+        return destination(destination).rate();
+    }
+
+    /* nanos to wait before sending */
+    long reserve(String destination) {
+        return destination(destination).reserve(nanoClock.getAsLong());
+    }
+
+    static boolean isThrottling(int status) {
+        return status == 429 || status == 503;
+    }
+
+    /* either delay in seconds or HTTP date */
+    static Optional<Duration> parseRetryAfter(String value, Instant now) {
+        if (value == null || value.isBlank()) {
+            return Optional.empty();
+        }
+        Duration delay;
+        try {
+            delay = Duration.ofSeconds(Long.parseLong(value.trim()));
+        } catch (NumberFormatException e) {
+            try {
+                delay = Duration.between(now, ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant());
+            } catch (DateTimeParseException ex) {
+                return Optional.empty();
+            }
+        }
+        if (delay.isNegative()) {
+            return Optional.of(Duration.ZERO);
+        }
+        return Optional.of(delay.compareTo(MAX_RETRY_AFTER) > 0 ? MAX_RETRY_AFTER : delay);
+    }
+
+    /* exponential with full jitter, but never shorter than what the server asked for */
+    static Duration backoff(int attempt, Duration retryAfter) {
+        long capMillis = BACKOFF_BASE.toMillis() << Math.min(attempt, 20);
+        long jittered = ThreadLocalRandom.current().nextLong(Math.min(capMillis, MAX_BACKOFF.toMillis()) + 1);
+        Duration delay = Duration.ofMillis(jittered);
+        return retryAfter != null && retryAfter.compareTo(delay) > 0 ? retryAfter : delay;
+    }
+
+    private Destination destination(String destination) {
+        return destinations.computeIfAbsent(destination, _ -> new Destination(nanoClock.getAsLong()));
+    }
+
+    private final class Destination {
+        private double rate = initialRate;
+        private long nextFree;
+        private long blockedUntil;
+        private long lastDecrease;
+
+        Destination(long now) {
+            this.nextFree = now;
+            this.blockedUntil = now;
+            this.lastDecrease = now - decreaseCooldownNanos;
+        }
+
+        synchronized double rate() {
+            return rate;
+        }
+
+        synchronized long reserve(long now) {
+            long start = Math.max(Math.max(now, nextFree), blockedUntil);
+            nextFree = start + (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+            return start - now;
+        }
+
+        synchronized void increase() {
+            rate = Math.min(maxRate, rate + 1 / rate);
+        }
+
+        synchronized void decrease(long now, Duration retryAfter) {
+            if (now - lastDecrease >= decreaseCooldownNanos) {
+                rate = Math.max(minRate, rate / 2);
+                lastDecrease = now;
+            }
+            blockedUntil = Math.max(blockedUntil, now + retryAfter.toNanos());
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.ArtifactTree;
+import dev.harrel.jarhell.model.Gav;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AnalysisJob {
+    /* bound for the whole analysis, so that all the forks can report progress */
+    static final ScopedValue<AnalysisJob> CURRENT = ScopedValue.newInstance();
+
+    private final String id = UUID.randomUUID().toString();
+    private final Gav gav;
+    private final Instant submitted = Instant.now();
+    private final CompletableFuture<ArtifactTree> future = new CompletableFuture<>();
+    private final AtomicInteger visited = new AtomicInteger();
+    private final AtomicInteger analyzed = new AtomicInteger();
+    private final AtomicInteger reused = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+    private volatile State state = State.PENDING;
+    private volatile Instant started;
+    private volatile Instant finished;
+    private volatile String error;
+
+    AnalysisJob(Gav gav) {
+        this.gav = gav;
+    }
+
+    static Optional<AnalysisJob> current() {
+        return Optional.ofNullable(CURRENT.orElse(null));
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public Gav gav() {
+        return gav;
+    }
+
+    public CompletableFuture<ArtifactTree> future() {
+        return future;
+    }
+
+    public boolean isFinished() {
+        return state == State.COMPLETED || state == State.FAILED;
+    }
+
+    public Instant finished() {
+        return finished;
+    }
+
+    public Status status() {
+        Instant end = finished == null ? Instant.now() : finished;
+        Long durationMs = started == null ? null : Duration.between(started, end).toMillis();
+        Progress progress = new Progress(visited.get(), analyzed.get(), reused.get(), failed.get());
+        return new Status(id, gav.toString(), state, progress, submitted, started, finished, durationMs, error);
+    }
+
+    void start() {
+        started = Instant.now();
+        state = State.RUNNING;
+    }
+
+    void complete(ArtifactTree artifactTree) {
+        if (started == null) {
+            started = Instant.now();
+        }
+        finished = Instant.now();
+        state = State.COMPLETED;
+        future.complete(artifactTree);
+    }
+
+    void fail(Throwable e) {
+        finished = Instant.now();
+        error = ExceptionUtils.getRootCauseMessage(e);
+        state = State.FAILED;
+        future.completeExceptionally(e);
+    }
+
+    void onNodeVisited() {
+        visited.incrementAndGet();
+    }
+
+    void onNodeAnalyzed() {
+        analyzed.incrementAndGet();
+    }
+
+    void onNodeReused() {
+        reused.incrementAndGet();
+    }
+
+    void onNodeFailed() {
+        failed.incrementAndGet();
+    }
+
+    public enum State {
+        PENDING, RUNNING, COMPLETED, FAILED
+    }
+
+    public record Progress(int visited, int analyzed, int reused, int failed) {}
+
+    public record Status(String id,
+                         String coordinate,
+                         State state,
+                         Progress progress,
+                         Instant submitted,
+                         Instant started,
+                         Instant finished,
+                         Long durationMs,
+                         String error) {}
+}
@@ -2,15 +2,25 @@ package dev.harrel.jarhell.analyze;
 
 import dev.harrel.jarhell.model.*;
 import dev.harrel.jarhell.repo.ArtifactRepository;
+import dev.harrel.jarhell.trace.Trace;
+import dev.harrel.jarhell.trace.TraceStore;
+import dev.harrel.jarhell.util.AllSettledJoiner;
 import dev.harrel.jarhell.util.ConcurrentUtil;
 import dev.harrel.jarhell.util.ParametrizedLock;
+import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.*;
+import java.util.function.Supplier;
 
 import static java.util.concurrent.StructuredTaskScope.open;
 
@@ -20,57 +30,163 @@ public class AnalyzeEngine {
 
     private final ParametrizedLock<Gav> lock = new ParametrizedLock<>();
     private final ConcurrentHashMap<Gav, ArtifactInfo> partialAnalysis = new ConcurrentHashMap<>();
+    private final Set<Gav> refreshing = ConcurrentHashMap.newKeySet();
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
     private final ArtifactRepository artifactRepository;
     private final Analyzer analyzer;
+    private final JobRegistry jobRegistry;
+    private final TraceStore traceStore;
 
-    AnalyzeEngine(ArtifactRepository artifactRepository, Analyzer analyzer) {
+    AnalyzeEngine(ArtifactRepository artifactRepository, Analyzer analyzer, JobRegistry jobRegistry, TraceStore traceStore) {
         this.artifactRepository = artifactRepository;
         this.analyzer = analyzer;
+        this.jobRegistry = jobRegistry;
+        this.traceStore = traceStore;
     }
 
     public CompletableFuture<ArtifactTree> analyze(Gav gav) {
+        return analyze(gav, null);
+    }
+
+    public CompletableFuture<ArtifactTree> analyze(Gav gav, Duration maxAge) {
+        return submit(gav, maxAge).future();
+    }
+
+    // stale artifacts (older than maxAge) are served as they are, and get re-analyzed in the background
+    public AnalysisJob submit(Gav gav, Duration maxAge) {
         Optional<ArtifactTree> artifactTree = artifactRepository.findResolved(gav);
         if (artifactTree.isPresent()) {
-            logger.info("Analysis of [{}] is not necessary", gav);
-            return CompletableFuture.completedFuture(artifactTree.get());
+            if (!refreshIfStale(artifactTree.get().artifactInfo(), maxAge)) {
+                logger.info("Analysis of [{}] is not necessary", gav);
+            }
+            AnalysisJob job = jobRegistry.register(gav);
+            job.onNodeVisited();
+            job.onNodeReused();
+            job.complete(artifactTree.get());
+            return job;
         }
 
-        return CompletableFuture.supplyAsync(() -> doFullAnalysis(gav), Executors.newVirtualThreadPerTaskExecutor());
+        return jobRegistry.registerActive(gav, job -> executor.execute(() -> runJob(job, maxAge)));
+    }
+
+    public boolean refreshIfStale(ArtifactInfo info, Duration maxAge) {
+        if (!isStale(info, maxAge)) {
+            return false;
+        }
+        Gav gav = new Gav(info.groupId(), info.artifactId(), info.version(), info.classifier());
+        if (refreshing.add(gav)) {
+            logger.info("Analysis of [{}] is stale (analyzed: {}, maxAge: {}), refreshing in background", gav, info.analyzed(), maxAge);
+            executor.execute(() -> {
+                try {
+                    doFullAnalysis(gav, maxAge);
+                } catch (Exception e) {
+                    logger.warn("Background refresh of [{}] failed", gav, e);
+                } finally {
+                    refreshing.remove(gav);
+                }
+            });
+        }
+        return true;
+    }
+
+    private void runJob(AnalysisJob job, Duration maxAge) {
+        job.start();
+        try {
+            ArtifactTree artifactTree = ScopedValue.where(AnalysisJob.CURRENT, job)
+                    .call(() -> doFullAnalysis(job.gav(), maxAge));
+            job.complete(artifactTree);
+        } catch (Exception e) {
+            job.fail(e);
+        }
     }
 
     public void saveUnresolved(Gav gav) {
+        saveUnresolved(gav, "crawl");
+    }
+
+    public void saveUnresolved(Gav gav, String reason) {
         if (!artifactRepository.exists(gav)) {
-            artifactRepository.saveArtifact(ArtifactInfo.unresolved(gav, "crawl"));
+            artifactRepository.saveArtifact(ArtifactInfo.unresolved(gav, reason));
+        }
+    }
+
+    public List<Gav> retryFailedDependencies(Gav gav, List<Gav> failedDeps) {
+        logger.info("Retrying failed dependencies of [{}]: {}", gav, failedDeps);
+        List<Gav> stillFailed = analyzeDependencies(failedDeps, null);
+        if (stillFailed.size() < failedDeps.size()) {
+            refreshEffectiveValues(gav);
+        }
+        artifactRepository.saveFailedDependencies(gav, stillFailed);
+        return stillFailed;
+    }
+
+    /* effective values of the parent still count the children which failed, so they are computed again over the same
+     * collected dependencies as in the base analysis. Saving the artifact clears failed dependencies, so they are saved after it */
+    private void refreshEffectiveValues(Gav gav) {
+        lock.lock(gav);
+        try {
+            Optional<ArtifactInfo> info = artifactRepository.find(gav, 0).map(ArtifactTree::artifactInfo);
+            if (info.isEmpty() || Boolean.TRUE.equals(info.get().unresolved())) {
+                return;
+            }
+            CollectedDependencies deps = analyzer.analyzeDeps(gav);
+            Map<Gav, ArtifactInfo> stored = artifactRepository.findMany(deps.allDependencies().stream().map(FlatDependency::gav).toList());
+            List<DependencyInfo> partialDeps = deps.allDependencies().stream()
+                    .map(dep -> toDependencyInfo(dep, stored.getOrDefault(dep.gav(), ArtifactInfo.unresolved(dep.gav(), "missing after retry"))))
+                    .toList();
+            artifactRepository.saveArtifact(info.get().withEffectiveValues(analyzer.computeEffectiveValues(info.get(), partialDeps)));
+        } finally {
+            lock.unlock(gav);
         }
     }
 
     ArtifactTree doFullAnalysis(Gav gav) {
+        return doFullAnalysis(gav, null);
+    }
+
+    private ArtifactTree doFullAnalysis(Gav gav, Duration maxAge) {
+        return traceStore.trace(gav.toString(), () -> doTracedFullAnalysis(gav, maxAge));
+    }
+
+    private ArtifactTree doTracedFullAnalysis(Gav gav, Duration maxAge) {
+        Optional<AnalysisJob> job = AnalysisJob.current();
+        job.ifPresent(AnalysisJob::onNodeVisited);
         try {
             logger.info("START FULL analysis of [{}]", gav);
             AnalysisOutput output;
-            lock.lock(gav);
+            Trace.span("lock", () -> {
+                lock.lock(gav);
+                return null;
+            });
             try {
-                Optional<ArtifactTree> artifactTree = artifactRepository.findResolved(gav);
+                Optional<ArtifactTree> artifactTree = Trace.span("find-resolved", () -> artifactRepository.findResolved(gav))
+                        .filter(at -> !isStale(at.artifactInfo(), maxAge));
                 if (artifactTree.isPresent()) {
+                    job.ifPresent(AnalysisJob::onNodeReused);
                     return artifactTree.get();
                 }
-                output = doBaseAnalysis(gav);
+                output = Trace.span("base-analysis", () -> doBaseAnalysis(gav));
             } finally {
                 lock.unlock(gav);
             }
 
-            try (var scope = open(StructuredTaskScope.Joiner.awaitAllSuccessfulOrThrow())) {
-                for (FlatDependency dep : output.dependencies().directDependencies()) {
-                    scope.fork(() -> doFullAnalysis(dep.gav()));
-                }
-                ConcurrentUtil.joinScope(scope);
-            }
+            List<Gav> directGavs = output.dependencies().directDependencies().stream().map(FlatDependency::gav).toList();
+            List<Gav> failedDeps = Trace.span("direct-dependencies", () -> analyzeDependencies(directGavs, maxAge));
 
-            artifactRepository.saveDependencies(gav, output.dependencies().directDependencies());
+            Trace.span("save-dependencies", () -> {
+                artifactRepository.saveDependencies(gav, output.dependencies().directDependencies());
+                artifactRepository.saveFailedDependencies(gav, failedDeps);
+                return null;
+            });
+            if (!failedDeps.isEmpty()) {
+                logger.warn("Analysis of [{}] finished with failed dependencies: {}", gav, failedDeps);
+            }
             logger.info("END FULL analysis of [{}]", gav);
+            job.ifPresent(AnalysisJob::onNodeAnalyzed);
             return new ArtifactTree(output.artifactInfo(), List.of());
         } catch (Exception e) {
+            job.ifPresent(AnalysisJob::onNodeFailed);
             logger.warn("Analysis of [{}] failed", gav, e);
             throw e;
         } finally {
@@ -83,27 +199,65 @@ public class AnalyzeEngine {
         ArtifactInfo info = analyzePartially(gav);
 
         List<DependencyInfo> partialDeps;
-        CollectedDependencies deps = Boolean.TRUE.equals(info.unresolved()) ? CollectedDependencies.empty() : analyzer.analyzeDeps(gav);
-        try (var scope = open(StructuredTaskScope.Joiner.awaitAllSuccessfulOrThrow())) {
-            List<StructuredTaskScope.Subtask<DependencyInfo>> partialDepTasks = deps.allDependencies().stream()
-                    .map(dep -> scope.fork(() -> {
-                        var artifactInfo = analyzePartially(dep.gav());
-                        return new DependencyInfo(new ArtifactTree(artifactInfo, List.of()), dep.optional(), dep.scope());
-                    }))
+        CollectedDependencies deps = Boolean.TRUE.equals(info.unresolved())
+                ? CollectedDependencies.empty()
+                : Trace.span("collect-dependencies", () -> analyzer.analyzeDeps(gav));
+        // stored artifacts are taken from db in one query, only the missing ones are analyzed over the network
+        List<Gav> depGavs = deps.allDependencies().stream().map(FlatDependency::gav).toList();
+        Map<Gav, ArtifactInfo> stored = Trace.span("find-stored", () -> artifactRepository.findMany(depGavs));
+        try (var scope = open(new AllSettledJoiner<DependencyInfo>())) {
+            List<Supplier<DependencyInfo>> partialDepTasks = deps.allDependencies().stream()
+                    .<Supplier<DependencyInfo>>map(dep -> {
+                        ArtifactInfo storedInfo = stored.get(dep.gav());
+                        if (storedInfo != null) {
+                            return () -> toDependencyInfo(dep, storedInfo);
+                        }
+                        var subtask = scope.fork(() ->
+                                toDependencyInfo(dep, Trace.span("partial " + dep.gav(), () -> analyzePartially(dep.gav()))));
+                        // failed ones are counted as unresolved dependencies instead of failing the whole analysis
+                        return () -> subtask.state() == StructuredTaskScope.Subtask.State.FAILED
+                                ? toDependencyInfo(dep, ArtifactInfo.unresolved(dep.gav(), ExceptionUtils.getRootCauseMessage(subtask.exception())))
+                                : subtask.get();
+                    })
                     .toList();
             ConcurrentUtil.joinScope(scope);
-            partialDeps = partialDepTasks.stream().map(StructuredTaskScope.Subtask::get).toList();
+            partialDeps = partialDepTasks.stream().map(Supplier::get).toList();
         }
 
         ArtifactInfo.EffectiveValues effectiveValues = analyzer.computeEffectiveValues(info, partialDeps);
         info = info.withEffectiveValues(effectiveValues);
 
-        artifactRepository.saveArtifact(info);
+        ArtifactInfo finalInfo = info;
+        Trace.span("save-artifact", () -> {
+            artifactRepository.saveArtifact(finalInfo);
+            return null;
+        });
 
         logger.info("END BASE analysis of [{}]", gav);
         return new AnalysisOutput(info, deps, effectiveValues);
     }
 
+    /* siblings are not cancelled when one of them fails - failed ones get a placeholder,
+     * so the relation can still be saved and only they are retried later */
+    private List<Gav> analyzeDependencies(List<Gav> gavs, Duration maxAge) {
+        try (var scope = open(new AllSettledJoiner<ArtifactTree>())) {
+            List<StructuredTaskScope.Subtask<ArtifactTree>> tasks = gavs.stream()
+                    .map(dep -> scope.fork(() -> doFullAnalysis(dep, maxAge)))
+                    .toList();
+            ConcurrentUtil.joinScope(scope);
+            List<Gav> failed = new ArrayList<>();
+            for (int i = 0; i < gavs.size(); i++) {
+                StructuredTaskScope.Subtask<ArtifactTree> task = tasks.get(i);
+                if (task.state() == StructuredTaskScope.Subtask.State.FAILED) {
+                    Gav dep = gavs.get(i);
+                    failed.add(dep);
+                    saveUnresolved(dep, ExceptionUtils.getRootCauseMessage(task.exception()));
+                }
+            }
+            return failed;
+        }
+    }
+
     private ArtifactInfo analyzePartially(Gav gav) {
         // computeIfAbsent cannot be used as it is long, blocking operation (stated in the javadoc)
         ArtifactInfo info = partialAnalysis.get(gav);
@@ -114,6 +268,17 @@ public class AnalyzeEngine {
         return info;
     }
 
+    private static DependencyInfo toDependencyInfo(FlatDependency dep, ArtifactInfo info) {
+        return new DependencyInfo(new ArtifactTree(info, List.of()), dep.optional(), dep.scope());
+    }
+
+    private static boolean isStale(ArtifactInfo info, Duration maxAge) {
+        if (maxAge == null) {
+            return false;
+        }
+        return info.analyzed() == null || info.analyzed().isBefore(LocalDateTime.now().minus(maxAge));
+    }
+
     private record AnalysisOutput(ArtifactInfo artifactInfo,
                                   CollectedDependencies dependencies,
                                   ArtifactInfo.EffectiveValues effectiveValues) {}
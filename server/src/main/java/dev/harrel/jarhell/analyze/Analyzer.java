@@ -3,28 +3,48 @@ package dev.harrel.jarhell.analyze;
 import dev.harrel.jarhell.MavenApiClient;
 import dev.harrel.jarhell.model.*;
 import dev.harrel.jarhell.model.descriptor.DescriptorInfo;
+import dev.harrel.jarhell.repo.ClassIndex;
+import dev.harrel.jarhell.repo.IndexRecordRepository;
+import dev.harrel.jarhell.trace.Trace;
+import dev.harrel.jarhell.util.ConcurrentUtil;
+import io.avaje.config.Config;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Singleton;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.*;
+import java.util.concurrent.StructuredTaskScope;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+import static java.util.concurrent.StructuredTaskScope.open;
+
 @Singleton
 class Analyzer {
     private static final Logger logger = LoggerFactory.getLogger(Analyzer.class);
+    /* aether | pom-graph */
+    private static final String RESOLVER = Config.get("jar-hell.resolver", "aether");
 
     private final MavenRunner mavenRunner;
+    private final PomGraphResolver pomGraphResolver;
     private final MavenApiClient mavenApiClient;
     private final PackageAnalyzer packageAnalyzer;
+    private final ClassIndex classIndex;
+    private final IndexRecordRepository indexRecordRepository;
 
-    Analyzer(MavenRunner mavenRunner, MavenApiClient mavenApiClient, PackageAnalyzer packageAnalyzer) {
+    Analyzer(MavenRunner mavenRunner, PomGraphResolver pomGraphResolver, MavenApiClient mavenApiClient,
+             PackageAnalyzer packageAnalyzer, ClassIndex classIndex, IndexRecordRepository indexRecordRepository) {
         this.mavenRunner = mavenRunner;
+        this.pomGraphResolver = pomGraphResolver;
         this.mavenApiClient = mavenApiClient;
         this.packageAnalyzer = packageAnalyzer;
+        this.classIndex = classIndex;
+        this.indexRecordRepository = indexRecordRepository;
     }
 
     public boolean checkIfArtifactExists(Gav gav) {
@@ -32,14 +52,38 @@ class Analyzer {
     }
 
     public CollectedDependencies analyzeDeps(Gav gav) {
+        if ("pom-graph".equals(RESOLVER)) {
+            try {
+                return pomGraphResolver.collectDependencies(gav);
+            } catch (PomGraphResolver.UnsupportedGraphException e) {
+                logger.info("Falling back to aether collection for [{}]: {}", gav, e.getMessage());
+            }
+        }
         return mavenRunner.collectDependencies(gav);
     }
 
+    /* listing, descriptor and jar probe run concurrently. Most artifacts are plain jars, so the probe is started
+     * before the listing confirms it. If the guess was wrong, the package is analyzed once everything is known.
+     * Files known from the Maven index need no listing, and the probe is skipped when they have no jar */
     public ArtifactInfo analyzePackage(Gav gav) {
-        try {
-            FilesInfo filesInfo = mavenApiClient.fetchFilesInfo(gav);
-            DescriptorInfo descriptorInfo = mavenRunner.resolveDescriptor(gav);
-            PackageInfo packageInfo = packageAnalyzer.analyzePackage(gav, filesInfo, descriptorInfo.packaging());
+        try (var scope = open(StructuredTaskScope.Joiner.<Object>awaitAllSuccessfulOrThrow())) {
+            Optional<FilesInfo> indexedFilesInfo = Trace.span("find-index-record", () -> findIndexedFilesInfo(gav));
+            var filesInfoTask = scope.fork(() -> indexedFilesInfo.orElseGet(() -> Trace.span("fetch-files-info", () -> mavenApiClient.fetchFilesInfo(gav))));
+            var descriptorTask = scope.fork(() -> Trace.span("resolve-descriptor", () -> mavenRunner.resolveDescriptor(gav)));
+            var jarTask = scope.fork(() -> indexedFilesInfo.isEmpty() || indexedFilesInfo.get().extensions().contains("jar")
+                    ? Trace.span("probe-jar", () -> probeJarSpeculatively(gav))
+                    : Optional.<PackageInfo>empty());
+            ConcurrentUtil.joinScope(scope);
+
+            FilesInfo filesInfo = filesInfoTask.get();
+            DescriptorInfo descriptorInfo = descriptorTask.get();
+            Optional<PackageInfo> speculativeInfo = jarTask.get().filter(_ -> filesInfo.extensions().contains("jar"));
+            PackageInfo packageInfo = speculativeInfo.isPresent()
+                    ? speculativeInfo.get()
+                    : Trace.span("analyze-package", () -> packageAnalyzer.analyzePackage(gav, filesInfo, descriptorInfo.packaging()));
+            if (packageInfo.classNames() != null) {
+                classIndex.add(gav, packageInfo.classNames());
+            }
 
             return createArtifactInfo(gav, filesInfo, packageInfo, descriptorInfo);
         } catch (Exception e) {
@@ -48,6 +92,26 @@ class Analyzer {
         }
     }
 
+    /* a pom is published with every artifact, for pom packaged ones it is also the main file */
+    Optional<FilesInfo> findIndexedFilesInfo(Gav gav) {
+        if (gav.classifier() != null) {
+            return Optional.empty();
+        }
+        return indexRecordRepository.find(gav)
+                .filter(IndexRecord::isComplete)
+                .map(rec -> new FilesInfo(Stream.of(rec.extension(), "pom").collect(Collectors.toSet()), rec.classifiers(), new FilesInfo.MainFile(rec.extension(),
+                        LocalDateTime.ofInstant(Instant.ofEpochMilli(rec.lastModified()), ZoneOffset.UTC), rec.size())));
+    }
+
+    private Optional<PackageInfo> probeJarSpeculatively(Gav gav) {
+        try {
+            return Optional.of(packageAnalyzer.analyzeJar(gav));
+        } catch (RuntimeException e) {
+            logger.debug("Speculative jar probe of [{}] failed: {}", gav, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
     public ArtifactInfo.EffectiveValues computeEffectiveValues(ArtifactInfo info, List<DependencyInfo> partialDeps) {
         if (Boolean.TRUE.equals(info.unresolved())) {
             return null;
@@ -67,7 +131,7 @@ class Analyzer {
         String bytecodeVersion = Stream.concat(Stream.of(info), requiredDeps.stream())
                 .map(ArtifactInfo::bytecodeVersion)
                 .filter(Objects::nonNull)
-                .max(Comparator.naturalOrder())
+                .max(PackageInfo.BYTECODE_VERSION_ORDER)
                 .orElse(null);
 
         List<Map.Entry<LicenseType, Long>> effectiveLicenses = Stream.concat(Stream.of(info), requiredDeps.stream())
@@ -97,7 +161,10 @@ class Analyzer {
 
     private ArtifactInfo createArtifactInfo(Gav gav, FilesInfo filesInfo, PackageInfo packageInfo, DescriptorInfo descriptorInfo) {
         return new ArtifactInfo(gav.groupId(), gav.artifactId(), gav.version(), gav.classifier(), null, null, null,
-                packageInfo.created(), packageInfo.size(), packageInfo.bytecodeVersion(), descriptorInfo.packaging(),
+                packageInfo.created(), packageInfo.size(), packageInfo.bytecodeVersion(),
+                packageInfo.minBytecodeVersion(), packageInfo.bytecodeVersions(), packageInfo.moduleName(),
+                packageInfo.multiRelease(), packageInfo.releaseVersions(), packageInfo.classCount(),
+                packageInfo.nativeLibraries(), packageInfo.sizeComposition(), descriptorInfo.packaging(),
                 descriptorInfo.name(), descriptorInfo.description(), descriptorInfo.url(),
                 descriptorInfo.scmUrl(), descriptorInfo.issuesUrl(), descriptorInfo.inceptionYear(),
                 descriptorInfo.licenses(), descriptorInfo.licenseTypes(), List.copyOf(filesInfo.classifiers()), null, null);
@@ -3,6 +3,7 @@ package dev.harrel.jarhell.analyze;
 import dev.harrel.jarhell.model.Gav;
 import dev.harrel.jarhell.repo.ArtifactRepository;
 import dev.harrel.jarhell.util.ConcurrentUtil;
+import dev.harrel.jarhell.util.ResizableSemaphore;
 import io.avaje.config.Config;
 import io.avaje.inject.PostConstruct;
 import org.slf4j.Logger;
@@ -12,6 +13,7 @@ import java.io.Closeable;
 import java.time.Duration;
 import java.time.Instant;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -26,14 +28,15 @@ public class ArtifactProcessor implements Closeable {
     private final ExecutorService service = Executors.newSingleThreadExecutor();
     private final AtomicReference<Future<?>> runFuture = new AtomicReference<>(CompletableFuture.completedFuture(null));
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private final AtomicInteger concurrency = new AtomicInteger(1);
     private final AtomicInteger counter = new AtomicInteger(0);
     private final ArtifactRepository repo;
     private final AnalyzeEngine analyzeEngine;
+    private final ResizableSemaphore concurrency;
 
-    public ArtifactProcessor(ArtifactRepository repo, AnalyzeEngine analyzeEngine) {
+    public ArtifactProcessor(ArtifactRepository repo, AnalyzeEngine analyzeEngine, ConcurrencyLimits concurrencyLimits) {
         this.repo = repo;
         this.analyzeEngine = analyzeEngine;
+        this.concurrency = concurrencyLimits.register("processor", 1);
     }
 
     @PostConstruct
@@ -48,7 +51,7 @@ public class ArtifactProcessor implements Closeable {
             throw new IllegalStateException("Already running");
         }
         running.set(true);
-        this.concurrency.set(concurrency);
+        this.concurrency.resize(concurrency);
         runFuture.set(service.submit(this::run));
     }
 
@@ -95,27 +98,39 @@ public class ArtifactProcessor implements Closeable {
     }
 
     private int doRun() {
-        List<Gav> unresolvedGavs = repo.findAllUnresolved(concurrency.get(), UNRESOLVED_LIMIT);
+        List<Gav> unresolvedGavs = repo.findAllUnresolved(concurrency.limit(), UNRESOLVED_LIMIT);
         if (!unresolvedGavs.isEmpty()) {
             logger.info("Fetched {} gavs for reanalysis [unresolved]", unresolvedGavs.size());
             try (var scope = open(StructuredTaskScope.Joiner.awaitAllSuccessfulOrThrow())) {
-                unresolvedGavs.forEach(gav -> scope.fork(() -> analyzeEngine.doFullAnalysis(gav)));
+                unresolvedGavs.forEach(gav -> scope.fork(() -> concurrency.withPermit(() -> analyzeEngine.doFullAnalysis(gav))));
                 ConcurrentUtil.joinScope(scope);
             }
             counter.addAndGet(unresolvedGavs.size());
             return unresolvedGavs.size();
         }
 
-        unresolvedGavs = repo.findAllEffectivelyUnresolved(concurrency.get(), UNRESOLVED_LIMIT);
+        unresolvedGavs = repo.findAllEffectivelyUnresolved(concurrency.limit(), UNRESOLVED_LIMIT);
         if (!unresolvedGavs.isEmpty()) {
             logger.info("Fetched {} gavs for reanalysis [effectively-unresolved]", unresolvedGavs.size());
             try (var scope = open(StructuredTaskScope.Joiner.awaitAllSuccessfulOrThrow())) {
-                unresolvedGavs.forEach(gav -> scope.fork(() -> analyzeEngine.doFullAnalysis(gav)));
+                unresolvedGavs.forEach(gav -> scope.fork(() -> concurrency.withPermit(() -> analyzeEngine.doFullAnalysis(gav))));
                 ConcurrentUtil.joinScope(scope);
             }
             counter.addAndGet(unresolvedGavs.size());
             return unresolvedGavs.size();
         }
+
+        // only the failed children are analyzed again, the rest of the tree is already saved
+        Map<Gav, List<Gav>> failedDeps = repo.findAllWithFailedDependencies(concurrency.limit(), UNRESOLVED_LIMIT);
+        if (!failedDeps.isEmpty()) {
+            logger.info("Fetched {} gavs for reanalysis [failed-dependencies]", failedDeps.size());
+            try (var scope = open(StructuredTaskScope.Joiner.awaitAllSuccessfulOrThrow())) {
+                failedDeps.forEach((gav, deps) -> scope.fork(() -> concurrency.withPermit(() -> analyzeEngine.retryFailedDependencies(gav, deps))));
+                ConcurrentUtil.joinScope(scope);
+            }
+            counter.addAndGet(failedDeps.size());
+            return failedDeps.size();
+        }
         return 0;
     }
 }
@@ -0,0 +1,70 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.util.ResizableSemaphore;
+import io.avaje.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.IntConsumer;
+
+/* Named, live-adjustable limits of worker pools. Initial values can be overridden with jar-hell.concurrency.<name> */
+@Singleton
+public class ConcurrencyLimits {
+    private static final Logger logger = LoggerFactory.getLogger(ConcurrencyLimits.class);
+
+    private final ConcurrentSkipListMap<String, Limit> limits = new ConcurrentSkipListMap<>();
+
+    public ResizableSemaphore register(String name, int defaultLimit) {
+        return register(name, defaultLimit, true, _ -> {});
+    }
+
+    /* for limits which are not enforced by the semaphore itself, so the utilization is unknown */
+    public ResizableSemaphore registerExternal(String name, int defaultLimit, IntConsumer onResize) {
+        return register(name, defaultLimit, false, onResize);
+    }
+
+    public List<Status> status() {
+        return limits.entrySet().stream()
+                .map(e -> e.getValue().toStatus(e.getKey()))
+                .toList();
+    }
+
+    public Optional<Status> find(String name) {
+        return Optional.ofNullable(limits.get(name)).map(limit -> limit.toStatus(name));
+    }
+
+    public Optional<Status> resize(String name, int newLimit) {
+        Limit limit = limits.get(name);
+        if (limit == null) {
+            return Optional.empty();
+        }
+        synchronized (limit) {
+            int oldLimit = limit.semaphore().limit();
+            limit.semaphore().resize(newLimit);
+            limit.onResize().accept(newLimit);
+            logger.info("Concurrency limit of [{}] changed: {} -> {}", name, oldLimit, newLimit);
+        }
+        return Optional.of(limit.toStatus(name));
+    }
+
+    private ResizableSemaphore register(String name, int defaultLimit, boolean tracked, IntConsumer onResize) {
+        int initialLimit = Config.getInt("jar-hell.concurrency." + name, defaultLimit);
+        Limit limit = limits.computeIfAbsent(name, _ -> new Limit(new ResizableSemaphore(initialLimit), tracked, onResize));
+        limit.onResize().accept(limit.semaphore().limit());
+        return limit.semaphore();
+    }
+
+    public record Status(String name, int limit, Integer inUse, Integer waiting) {}
+
+    private record Limit(ResizableSemaphore semaphore, boolean tracked, IntConsumer onResize) {
+        Status toStatus(String name) {
+            return tracked
+                    ? new Status(name, semaphore.limit(), semaphore.inUse(), semaphore.getQueueLength())
+                    : new Status(name, semaphore.limit(), null, null);
+        }
+    }
+}
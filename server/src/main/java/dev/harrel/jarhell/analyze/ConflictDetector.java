@@ -0,0 +1,170 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.*;
+import dev.harrel.jarhell.repo.ArtifactRepository;
+import dev.harrel.jarhell.repo.ClassListingRepository;
+import io.avaje.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+
+/* Jar hell report of a resolved tree: classes and packages shipped by more than one runtime artifact.
+ * Works on class listings stored during analysis, so nothing is downloaded */
+@Singleton
+public class ConflictDetector {
+    private static final Logger logger = LoggerFactory.getLogger(ConflictDetector.class);
+    private static final Set<String> RUNTIME_SCOPES = Set.of("compile", "runtime");
+    private static final int MAX_EXAMPLES = 20;
+    private static final int MAX_CACHED_REPORTS = Config.getInt("jar-hell.conflicts.max-cached-reports", 1000);
+
+    private final ArtifactRepository artifactRepository;
+    private final ClassListingRepository listingRepository;
+    private final ConcurrentHashMap<Gav, CachedReport> cache = new ConcurrentHashMap<>();
+
+    ConflictDetector(ArtifactRepository artifactRepository, ClassListingRepository listingRepository) {
+        this.artifactRepository = artifactRepository;
+        this.listingRepository = listingRepository;
+    }
+
+    public Optional<ConflictReport> detect(Gav gav) {
+        Optional<ArtifactInfo> root = artifactRepository.find(gav, 0).map(ArtifactTree::artifactInfo);
+        if (root.isEmpty()) {
+            return Optional.empty();
+        }
+        CachedReport cached = cache.get(gav);
+        if (cached != null && cached.isValid(root.get().analyzed(), listingRepository.size())) {
+            return Optional.of(cached.report());
+        }
+
+        Optional<ArtifactTree> tree = artifactRepository.find(gav, -1);
+        if (tree.isEmpty()) {
+            return Optional.empty();
+        }
+        long listingsSize = listingRepository.size();
+        long start = System.nanoTime();
+        Map<Gav, List<String>> listings = new TreeMap<>();
+        List<Gav> missing = new ArrayList<>();
+        for (Gav artifact : runtimeArtifacts(tree.get()).keySet()) {
+            listingRepository.find(artifact).ifPresentOrElse(names -> listings.put(artifact, names), () -> missing.add(artifact));
+        }
+        ConflictReport report = createReport(gav, listings, missing);
+        logger.info("Detected conflicts of [{}] - artifacts: {}, missing listings: {}, took: {}ms",
+                gav, listings.size() + missing.size(), missing.size(), (System.nanoTime() - start) / 1_000_000);
+
+        cache.put(gav, new CachedReport(report, tree.get().artifactInfo().analyzed(), listingsSize));
+        if (cache.size() > MAX_CACHED_REPORTS) {
+            cache.keySet().stream().filter(key -> !key.equals(gav)).findAny().ifPresent(cache::remove);
+        }
+        return Optional.of(report);
+    }
+
+    /* listings must be sorted */
+    static ConflictReport createReport(Gav root, Map<Gav, List<String>> listings, List<Gav> missing) {
+        Map<List<Gav>, List<String>> duplicates = new HashMap<>();
+        mergeSorted(listings, (className, owners) -> duplicates.computeIfAbsent(owners, _ -> new ArrayList<>()).add(className));
+        List<ConflictReport.DuplicateClasses> duplicateClasses = duplicates.entrySet().stream()
+                .map(entry -> new ConflictReport.DuplicateClasses(entry.getKey(), entry.getValue().size(),
+                        List.copyOf(entry.getValue().subList(0, Math.min(MAX_EXAMPLES, entry.getValue().size())))))
+                .sorted(Comparator.comparingInt(ConflictReport.DuplicateClasses::count).reversed()
+                        .thenComparing(dc -> dc.examples().getFirst()))
+                .toList();
+
+        Map<Gav, List<String>> packages = new TreeMap<>();
+        listings.forEach((gav, classNames) -> packages.put(gav, classNames.stream()
+                .filter(className -> className.lastIndexOf('.') > 0)
+                .map(className -> className.substring(0, className.lastIndexOf('.')))
+                .distinct()
+                .sorted()
+                .toList()));
+        List<ConflictReport.SplitPackage> splitPackages = new ArrayList<>();
+        mergeSorted(packages, (name, owners) -> splitPackages.add(new ConflictReport.SplitPackage(name, owners)));
+
+        return new ConflictReport(root, listings.size() + missing.size(), List.copyOf(missing), duplicateClasses, splitPackages);
+    }
+
+    /* k-way merge of sorted lists, reports every name present in more than one of them (in order) */
+    private static void mergeSorted(Map<Gav, List<String>> lists, BiConsumer<String, List<Gav>> consumer) {
+        PriorityQueue<Cursor> queue = new PriorityQueue<>(Comparator.comparing(Cursor::current).thenComparing(Cursor::gav));
+        lists.forEach((gav, names) -> {
+            if (!names.isEmpty()) {
+                queue.add(new Cursor(gav, names));
+            }
+        });
+        List<Cursor> same = new ArrayList<>();
+        while (!queue.isEmpty()) {
+            String name = queue.peek().current();
+            while (!queue.isEmpty() && queue.peek().current().equals(name)) {
+                same.add(queue.poll());
+            }
+            if (same.size() > 1) {
+                consumer.accept(name, same.stream().map(Cursor::gav).toList());
+            }
+            for (Cursor cursor : same) {
+                if (cursor.advance()) {
+                    queue.add(cursor);
+                }
+            }
+            same.clear();
+        }
+    }
+
+    /* root first, then its non-optional compile and runtime dependencies */
+    static Map<Gav, ArtifactInfo> runtimeArtifacts(ArtifactTree root) {
+        Map<Gav, ArtifactInfo> visited = new LinkedHashMap<>();
+        Deque<ArtifactTree> queue = new ArrayDeque<>(List.of(root));
+        while (!queue.isEmpty()) {
+            ArtifactTree tree = queue.poll();
+            ArtifactInfo info = tree.artifactInfo();
+            if (visited.putIfAbsent(new Gav(info.groupId(), info.artifactId(), info.version(), info.classifier()), info) != null) {
+                continue;
+            }
+            tree.dependencies().stream()
+                    .filter(dep -> !Boolean.TRUE.equals(dep.optional()))
+                    .filter(dep -> dep.scope() == null || RUNTIME_SCOPES.contains(dep.scope()))
+                    .map(DependencyInfo::artifact)
+                    .forEach(queue::add);
+        }
+        return visited;
+    }
+
+    private static final class Cursor {
+        private final Gav gav;
+        private final List<String> names;
+        private int index;
+
+        Cursor(Gav gav, List<String> names) {
+            this.gav = gav;
+            this.names = names;
+        }
+
+        Gav gav() {
+            return gav;
+        }
+
+        String current() {
+            return names.get(index);
+        }
+
+        /* skips repeated names, listings are expected to be distinct anyway */
+        boolean advance() {
+            String previous = current();
+            do {
+                index++;
+            } while (index < names.size() && names.get(index).equals(previous));
+            return index < names.size();
+        }
+    }
+
+    /* Dependencies might be re-analyzed, and listings of missing ones might show up, without the root changing.
+     * Either stores a listing, so reports are valid until the root is re-analyzed or any new listing is stored */
+    private record CachedReport(ConflictReport report, LocalDateTime analyzed, long listingsSize) {
+        boolean isValid(LocalDateTime currentAnalyzed, long currentListingsSize) {
+            return Objects.equals(analyzed, currentAnalyzed) && listingsSize == currentListingsSize;
+        }
+    }
+}
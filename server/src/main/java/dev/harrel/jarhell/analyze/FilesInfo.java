@@ -1,5 +1,13 @@
 package dev.harrel.jarhell.analyze;
 
+import java.time.LocalDateTime;
 import java.util.Set;
 
-public record FilesInfo(Set<String> extensions, Set<String> classifiers) {}
+/* mainFile is known only when taken from the Maven index, otherwise it comes from the file itself */
+public record FilesInfo(Set<String> extensions, Set<String> classifiers, MainFile mainFile) {
+    public FilesInfo(Set<String> extensions, Set<String> classifiers) {
+        this(extensions, classifiers, null);
+    }
+
+    public record MainFile(String extension, LocalDateTime created, long size) {}
+}
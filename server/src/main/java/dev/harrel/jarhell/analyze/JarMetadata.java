@@ -0,0 +1,265 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.SizeComponent;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.lang.module.InvalidModuleDescriptorException;
+import java.lang.module.ModuleDescriptor;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.jar.Attributes;
+import java.util.jar.Manifest;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.IntStream;
+
+/* Jar level information derived from the central directory entries and the few small entries worth fetching */
+final class JarMetadata {
+    static final String MANIFEST_NAME = "META-INF/MANIFEST.MF";
+    static final String MODULE_INFO_NAME = "module-info.class";
+    /* main section of the manifest comes first, per-entry sections (e.g. digests of signed jars) are not needed.
+     * OSGi headers alone might take tens of kilobytes though */
+    static final int MANIFEST_PREFIX_SIZE = 64 * 1024;
+    static final int MAX_MODULE_INFO_SIZE = 64 * 1024;
+    private static final Pattern VERSIONED_PATTERN = Pattern.compile("META-INF/versions/(\\d+)/(.+)");
+    private static final Pattern MAIN_SECTION_END_PATTERN = Pattern.compile("\r\n\r\n|\n\n|\r\r");
+    private static final List<String> NATIVE_LIBRARY_SUFFIXES = List.of(".so", ".dll", ".dylib", ".jnilib");
+    private static final String WEB_CLASSES_PREFIX = "WEB-INF/classes/";
+    private static final String AAR_CLASSES_NAME = "classes.jar";
+    private static final List<String> ARCHIVE_SUFFIXES = List.of(".jar", ".war", ".aar", ".zip");
+    /* package segments used by relocations of shade-like plugins, e.g. io.grpc.netty.shaded.io.netty */
+    private static final Set<String> SHADING_MARKERS = Set.of("shaded", "shade", "repackaged", "relocated", "thirdparty",
+            "third_party", "vendor", "vendored", "jarjar");
+    /* popular libraries that are often bundled without relocation, mapped to groupId prefixes of their owners */
+    private static final Map<String, List<String>> BUNDLED_PACKAGES = Map.ofEntries(
+            Map.entry("com.google.common", List.of("com.google.guava")),
+            Map.entry("com.google.protobuf", List.of("com.google.protobuf")),
+            Map.entry("com.google.gson", List.of("com.google.code.gson")),
+            Map.entry("com.fasterxml.jackson", List.of("com.fasterxml.jackson")),
+            Map.entry("io.netty", List.of("io.netty")),
+            Map.entry("org.objectweb.asm", List.of("org.ow2.asm", "asm")),
+            Map.entry("org.apache.commons", List.of("org.apache.commons", "commons-")),
+            Map.entry("org.apache.http", List.of("org.apache.httpcomponents")),
+            Map.entry("org.slf4j", List.of("org.slf4j")),
+            Map.entry("org.yaml.snakeyaml", List.of("org.yaml")),
+            Map.entry("org.bouncycastle", List.of("org.bouncycastle")),
+            Map.entry("net.bytebuddy", List.of("net.bytebuddy")),
+            Map.entry("kotlin", List.of("org.jetbrains.kotlin")),
+            Map.entry("okio", List.of("com.squareup.okio")),
+            Map.entry("okhttp3", List.of("com.squareup.okhttp3")));
+    private static final int MAX_SHADED_PREFIXES = 10;
+
+    private JarMetadata() {}
+
+    static boolean isVersioned(ZipDirectory.Entry entry) {
+        return VERSIONED_PATTERN.matcher(entry.name()).matches();
+    }
+
+    static Optional<ZipDirectory.Entry> findManifest(List<ZipDirectory.Entry> entries) {
+        return entries.stream()
+                .filter(entry -> entry.name().equals(MANIFEST_NAME))
+                .findFirst();
+    }
+
+    /* module descriptor of a multi-release jar often lives only in the lowest versioned directory */
+    static Optional<ZipDirectory.Entry> findModuleInfo(List<ZipDirectory.Entry> entries) {
+        return entries.stream()
+                .filter(entry -> entry.name().equals(MODULE_INFO_NAME))
+                .findFirst()
+                .or(() -> entries.stream()
+                        .filter(JarMetadata::isVersionedModuleInfo)
+                        .min(Comparator.comparingInt(entry -> releaseVersion(entry).orElseThrow())))
+                .filter(entry -> entry.size() <= MAX_MODULE_INFO_SIZE);
+    }
+
+    /* evenly spread over the file, classes compiled separately (e.g. shaded or merged modules) are usually stored apart */
+    static List<ZipDirectory.Entry> sampleClasses(List<ZipDirectory.Entry> entries, int samples) {
+        List<ZipDirectory.Entry> classes = entries.stream()
+                .filter(ZipDirectory.Entry::isClass)
+                .filter(entry -> !isVersioned(entry))
+                .sorted(Comparator.comparingLong(ZipDirectory.Entry::localHeaderOffset))
+                .toList();
+        if (classes.size() <= samples) {
+            return classes;
+        }
+        return IntStream.range(0, samples)
+                .mapToObj(i -> classes.get((int) ((long) i * (classes.size() - 1) / Math.max(1, samples - 1))))
+                .toList();
+    }
+
+    /* binary names of all classes, versioned ones are reported under their base name. Module and package descriptors are skipped */
+    static List<String> classNames(List<ZipDirectory.Entry> entries) {
+        return entries.stream()
+                .filter(ZipDirectory.Entry::isClass)
+                .filter(entry -> !entry.name().endsWith("-info.class"))
+                .map(entry -> {
+                    Matcher matcher = VERSIONED_PATTERN.matcher(entry.name());
+                    return matcher.matches() ? matcher.group(2) : entry.name();
+                })
+                .map(name -> name.substring(0, name.length() - ".class".length()).replace('/', '.'))
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    /* war classes live under WEB-INF/classes/, so they are renamed to look like jar entries. Other classes are not loadable */
+    static List<ZipDirectory.Entry> webEntries(List<ZipDirectory.Entry> entries) {
+        return entries.stream()
+                .filter(entry -> !entry.isClass() || entry.name().startsWith(WEB_CLASSES_PREFIX))
+                .map(entry -> entry.name().startsWith(WEB_CLASSES_PREFIX) ? entry.withName(entry.name().substring(WEB_CLASSES_PREFIX.length())) : entry)
+                .toList();
+    }
+
+    /* aar holds its classes in classes.jar, ear in modules at the root - the biggest jar (or war) is assumed to be the main one */
+    static Optional<ZipDirectory.Entry> findNestedArchive(List<ZipDirectory.Entry> entries, String packaging) {
+        if ("aar".equals(packaging)) {
+            return entries.stream()
+                    .filter(entry -> entry.name().equals(AAR_CLASSES_NAME))
+                    .findFirst();
+        }
+        return entries.stream()
+                .filter(entry -> !entry.name().contains("/"))
+                .filter(entry -> entry.name().endsWith(".jar") || entry.name().endsWith(".war"))
+                .max(Comparator.comparing((ZipDirectory.Entry entry) -> entry.name().endsWith(".jar"))
+                        .thenComparingLong(ZipDirectory.Entry::size));
+    }
+
+    static List<Integer> releaseVersions(List<ZipDirectory.Entry> entries) {
+        return entries.stream()
+                .map(JarMetadata::releaseVersion)
+                .flatMap(Optional::stream)
+                .distinct()
+                .sorted()
+                .toList();
+    }
+
+    static int classCount(List<ZipDirectory.Entry> entries) {
+        return (int) entries.stream()
+                .filter(ZipDirectory.Entry::isClass)
+                .filter(entry -> !isVersioned(entry))
+                .count();
+    }
+
+    static boolean hasNativeLibraries(List<ZipDirectory.Entry> entries) {
+        return entries.stream()
+                .map(entry -> entry.name().toLowerCase(Locale.ROOT))
+                .anyMatch(name -> NATIVE_LIBRARY_SUFFIXES.stream().anyMatch(name::endsWith));
+    }
+
+    /* sizes straight from the central directory, every entry counts once. Shaded classes are grouped by package prefix,
+     * only the biggest prefixes are listed and the rest is reported without one */
+    static List<SizeComponent> sizeComposition(List<ZipDirectory.Entry> entries, String groupId) {
+        Map<String, SizeComponent> components = new LinkedHashMap<>();
+        Map<String, SizeComponent> shaded = new LinkedHashMap<>();
+        for (ZipDirectory.Entry entry : entries) {
+            if (entry.name().endsWith("/")) {
+                continue;
+            }
+            String name = entry.name().toLowerCase(Locale.ROOT);
+            SizeComponent component;
+            if (name.endsWith(".class")) {
+                Optional<String> prefix = shadedPrefix(packageName(entry.name()), groupId);
+                if (prefix.isPresent()) {
+                    shaded.merge(prefix.get(), toComponent(SizeComponent.SHADED_CLASSES, prefix.get(), entry), SizeComponent::plus);
+                    continue;
+                }
+                component = toComponent(SizeComponent.CLASSES, null, entry);
+            } else if (NATIVE_LIBRARY_SUFFIXES.stream().anyMatch(name::endsWith)) {
+                component = toComponent(SizeComponent.NATIVE_LIBRARIES, null, entry);
+            } else if (ARCHIVE_SUFFIXES.stream().anyMatch(name::endsWith)) {
+                component = toComponent(SizeComponent.ARCHIVES, null, entry);
+            } else {
+                component = toComponent(SizeComponent.RESOURCES, null, entry);
+            }
+            components.merge(component.kind(), component, SizeComponent::plus);
+        }
+
+        List<SizeComponent> sortedShaded = shaded.values().stream()
+                .sorted(Comparator.comparingLong(SizeComponent::size).reversed().thenComparing(SizeComponent::packagePrefix))
+                .toList();
+        List<SizeComponent> result = new ArrayList<>();
+        for (String kind : List.of(SizeComponent.CLASSES, SizeComponent.RESOURCES, SizeComponent.NATIVE_LIBRARIES, SizeComponent.ARCHIVES)) {
+            Optional.ofNullable(components.get(kind)).ifPresent(result::add);
+        }
+        result.addAll(sortedShaded.subList(0, Math.min(MAX_SHADED_PREFIXES, sortedShaded.size())));
+        sortedShaded.stream()
+                .skip(MAX_SHADED_PREFIXES)
+                .map(component -> new SizeComponent(component.kind(), null, component.entries(), component.size(), component.compressedSize()))
+                .reduce(SizeComponent::plus)
+                .ifPresent(result::add);
+        return result;
+    }
+
+    /* manifest might be truncated, so only the main section is parsed */
+    static Attributes parseMainAttributes(byte[] manifest) throws IOException {
+        String content = new String(manifest, StandardCharsets.UTF_8);
+        Matcher matcher = MAIN_SECTION_END_PATTERN.matcher(content);
+        int end = matcher.find() ? matcher.end() : Math.max(content.lastIndexOf('\n'), content.lastIndexOf('\r')) + 1;
+        byte[] mainSection = content.substring(0, end).getBytes(StandardCharsets.UTF_8);
+        return new Manifest(new ByteArrayInputStream(mainSection)).getMainAttributes();
+    }
+
+    static String parseModuleName(byte[] moduleInfo) throws IOException {
+        try {
+            return ModuleDescriptor.read(ByteBuffer.wrap(moduleInfo)).name();
+        } catch (InvalidModuleDescriptorException e) {
+            throw new IOException("Invalid module descriptor", e);
+        }
+    }
+
+    /* package of a class entry, versioned and war classes are treated as if they were at the root */
+    private static String packageName(String entryName) {
+        Matcher matcher = VERSIONED_PATTERN.matcher(entryName);
+        String name = matcher.matches() ? matcher.group(2) : entryName;
+        if (name.startsWith(WEB_CLASSES_PREFIX)) {
+            name = name.substring(WEB_CLASSES_PREFIX.length());
+        }
+        int lastSlash = name.lastIndexOf('/');
+        return lastSlash < 0 ? "" : name.substring(0, lastSlash).replace('/', '.');
+    }
+
+    /* relocated packages are reported up to two segments after the marker, bundled ones by their well known root */
+    private static Optional<String> shadedPrefix(String packageName, String groupId) {
+        String[] segments = packageName.split("\\.");
+        for (int i = 1; i < segments.length; i++) {
+            if (SHADING_MARKERS.contains(segments[i])) {
+                return Optional.of(String.join(".", List.of(segments).subList(0, Math.min(segments.length, i + 3))));
+            }
+        }
+        return BUNDLED_PACKAGES.entrySet().stream()
+                .filter(bundled -> packageName.equals(bundled.getKey()) || packageName.startsWith(bundled.getKey() + "."))
+                .filter(bundled -> bundled.getValue().stream().noneMatch(groupId::startsWith))
+                .map(Map.Entry::getKey)
+                .findFirst();
+    }
+
+    private static SizeComponent toComponent(String kind, String packagePrefix, ZipDirectory.Entry entry) {
+        return new SizeComponent(kind, packagePrefix, 1, entry.size(), entry.compressedSize());
+    }
+
+    private static boolean isVersionedModuleInfo(ZipDirectory.Entry entry) {
+        Matcher matcher = VERSIONED_PATTERN.matcher(entry.name());
+        return matcher.matches() && matcher.group(2).equals(MODULE_INFO_NAME) && releaseVersion(entry).isPresent();
+    }
+
+    private static Optional<Integer> releaseVersion(ZipDirectory.Entry entry) {
+        Matcher matcher = VERSIONED_PATTERN.matcher(entry.name());
+        if (!matcher.matches()) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(Integer.valueOf(matcher.group(1)));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+}
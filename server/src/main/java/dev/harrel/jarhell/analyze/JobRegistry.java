@@ -0,0 +1,63 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.Gav;
+import io.avaje.config.Config;
+
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Comparator;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+@Singleton
+public class JobRegistry {
+    private static final Duration RETENTION = Duration.parse(Config.get("jar-hell.jobs.retention", "PT1H"));
+    private static final int MAX_RETAINED = Config.getInt("jar-hell.jobs.max-retained", 10_000);
+
+    private final ConcurrentHashMap<String, AnalysisJob> jobs = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Gav, AnalysisJob> activeJobs = new ConcurrentHashMap<>();
+
+    public Optional<AnalysisJob> find(String id) {
+        return Optional.ofNullable(jobs.get(id));
+    }
+
+    AnalysisJob register(Gav gav) {
+        evict();
+        AnalysisJob job = new AnalysisJob(gav);
+        jobs.put(job.id(), job);
+        return job;
+    }
+
+    /* the same artifact is not analyzed twice concurrently, so there is no need for more than one active job for it */
+    AnalysisJob registerActive(Gav gav, Consumer<AnalysisJob> starter) {
+        evict();
+        boolean[] created = new boolean[1];
+        AnalysisJob job = activeJobs.computeIfAbsent(gav, k -> {
+            created[0] = true;
+            AnalysisJob newJob = new AnalysisJob(k);
+            jobs.put(newJob.id(), newJob);
+            return newJob;
+        });
+        if (created[0]) {
+            job.future().whenComplete((_, _) -> activeJobs.remove(gav, job));
+            starter.accept(job);
+        }
+        return job;
+    }
+
+    private void evict() {
+        Instant threshold = Instant.now().minus(RETENTION);
+        jobs.values().removeIf(job -> job.isFinished() && job.finished().isBefore(threshold));
+        int excess = jobs.size() - MAX_RETAINED;
+        if (excess > 0) {
+            jobs.values().stream()
+                    .filter(AnalysisJob::isFinished)
+                    .sorted(Comparator.comparing(AnalysisJob::finished))
+                    .limit(excess)
+                    .toList()
+                    .forEach(job -> jobs.remove(job.id()));
+        }
+    }
+}
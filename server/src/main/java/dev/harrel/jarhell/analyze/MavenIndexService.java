@@ -2,7 +2,9 @@ package dev.harrel.jarhell.analyze;
 
 import dev.harrel.jarhell.model.ArtifactInfo;
 import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.model.IndexRecord;
 import dev.harrel.jarhell.repo.ArtifactRepository;
+import dev.harrel.jarhell.repo.IndexRecordRepository;
 import io.avaje.config.Config;
 import org.apache.maven.index.reader.ChunkReader;
 import org.apache.maven.index.reader.IndexReader;
@@ -17,16 +19,20 @@ import javax.inject.Singleton;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.Instant;
-import java.util.Map;
+import java.util.*;
 
 @Singleton
 public class MavenIndexService {
     private static final Logger logger = LoggerFactory.getLogger(MavenIndexService.class);
+    private static final int RECORDS_BATCH_SIZE = 1000;
+    private static final String NO_VALUE = "NA";
 
     private final ArtifactRepository repo;
+    private final IndexRecordRepository indexRecordRepository;
 
-    MavenIndexService(ArtifactRepository repo) {
+    MavenIndexService(ArtifactRepository repo, IndexRecordRepository indexRecordRepository) {
         this.repo = repo;
+        this.indexRecordRepository = indexRecordRepository;
     }
 
     public void scanIndex() {
@@ -34,6 +40,7 @@ public class MavenIndexService {
         WritableResourceHandler local = new PathWritableResourceHandler(Path.of("/index/"));
         ResourceHandler remote = new UriResourceHandler(Config.getURI("maven.repo-url").resolve("/maven2/.index/"));
         int chunks = 0, rows = 0, saved = 0;
+        Map<Gav, IndexRecord> records = new HashMap<>();
         logger.info("Starting index scanning...");
         try (IndexReader indexReader = new IndexReader(local, remote)) {
             for (ChunkReader chunkReader : indexReader) {
@@ -44,6 +51,11 @@ public class MavenIndexService {
                             repo.saveArtifact(ArtifactInfo.unresolved(gav, "initial-indexing"));
                             saved++;
                         }
+                        rowToIndexRecord(row).ifPresent(rec -> records.merge(rec.gav(), rec, MavenIndexService::mergeRecords));
+                        if (records.size() >= RECORDS_BATCH_SIZE) {
+                            indexRecordRepository.saveAll(List.copyOf(records.values()));
+                            records.clear();
+                        }
                         rows++;
                         if (rows % 100_000 == 0) {
                             logger.info("Scanned {} rows, saved {}", rows, saved);
@@ -52,6 +64,7 @@ public class MavenIndexService {
                 }
                 chunks++;
             }
+            indexRecordRepository.saveAll(List.copyOf(records.values()));
             Duration duration = Duration.between(start, Instant.now());
             logger.info("Scanning finished in {}s. chunks={}, rows={}, saved={}", duration.toSeconds(), chunks, rows, saved);
         } catch (Exception e) {
@@ -66,11 +79,58 @@ public class MavenIndexService {
             return null;
         }
         String[] split = data.split("\\|");
-        if (split.length > 3 && "NA".equals(split[3])) {
+        if (split.length > 3 && NO_VALUE.equals(split[3])) {
             return new Gav(split[0], split[1], split[2]);
         } else {
             // ignore all classifiers & metadata (hashes, signatures)
             return null;
         }
     }
+
+    /* u: groupId|artifactId|version|classifier|extension, i: packaging|lastModified|size|sources|javadoc|signature|extension.
+     * Only the main file describes the artifact, other rows just add their classifiers */
+    static Optional<IndexRecord> rowToIndexRecord(Map<String, String> row) {
+        String uinfo = row.get("u");
+        if (uinfo == null) {
+            return Optional.empty();
+        }
+        String[] u = uinfo.split("\\|");
+        if (u.length < 4) {
+            return Optional.empty();
+        }
+        Gav gav = new Gav(u[0], u[1], u[2]);
+        if (!NO_VALUE.equals(u[3])) {
+            return Optional.of(new IndexRecord(gav, null, null, null, null, Set.of(u[3])));
+        }
+        String info = row.get("i");
+        String[] i = info == null ? new String[0] : info.split("\\|");
+        if (i.length < 3) {
+            return Optional.empty();
+        }
+        try {
+            long lastModified = Long.parseLong(i[1]);
+            long size = Long.parseLong(i[2]);
+            String extension = i.length > 6 ? i[6] : u.length > 4 ? u[4] : null;
+            return Optional.of(new IndexRecord(gav, nullIfAbsent(i[0]), lastModified > 0 ? lastModified : null,
+                    size >= 0 ? size : null, nullIfAbsent(extension), Set.of()));
+        } catch (NumberFormatException e) {
+            return Optional.empty();
+        }
+    }
+
+    /* both rows might miss a field, e.g. two classifier rows */
+    static IndexRecord mergeRecords(IndexRecord a, IndexRecord b) {
+        Set<String> classifiers = new HashSet<>(a.classifiers());
+        classifiers.addAll(b.classifiers());
+        return new IndexRecord(a.gav(),
+                b.packaging() != null ? b.packaging() : a.packaging(),
+                b.lastModified() != null ? b.lastModified() : a.lastModified(),
+                b.size() != null ? b.size() : a.size(),
+                b.extension() != null ? b.extension() : a.extension(),
+                Set.copyOf(classifiers));
+    }
+
+    private static String nullIfAbsent(String value) {
+        return value == null || value.isEmpty() || NO_VALUE.equals(value) ? null : value;
+    }
 }
@@ -8,9 +8,11 @@ import dev.harrel.jarhell.model.LicenseType;
 import dev.harrel.jarhell.model.descriptor.DescriptorInfo;
 import dev.harrel.jarhell.model.descriptor.License;
 import io.avaje.config.Config;
+import io.avaje.inject.PreDestroy;
 import org.apache.maven.model.IssueManagement;
 import org.apache.maven.model.Model;
 import org.apache.maven.model.Scm;
+import org.eclipse.aether.DefaultRepositorySystemSession;
 import org.eclipse.aether.RepositorySystem;
 import org.eclipse.aether.RepositorySystemSession;
 import org.eclipse.aether.artifact.Artifact;
@@ -28,6 +30,7 @@ import org.eclipse.aether.resolution.ArtifactDescriptorResult;
 import org.eclipse.aether.resolution.ArtifactResolutionException;
 import org.eclipse.aether.transfer.ArtifactTransferException;
 import org.eclipse.aether.transfer.MetadataTransferException;
+import org.eclipse.aether.util.ConfigUtils;
 import org.eclipse.aether.util.graph.visitor.PreorderNodeListGenerator;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -35,28 +38,92 @@ import org.slf4j.LoggerFactory;
 import javax.inject.Singleton;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.*;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 @Singleton
 class MavenRunner {
     private static final String MAVEN_CENTRAL = Config.get("maven.repo-url");
     private static final Logger logger = LoggerFactory.getLogger(MavenRunner.class);
+    /* resolver and its transport are heavy on locks and thread-locals, so it can be isolated from virtual threads */
+    private static final int PLATFORM_THREADS = Config.getInt("jar-hell.maven.platform-threads", 0);
+    private static final String BF_THREADS_PROP = "aether.dependencyCollector.bf.threads";
 
     private final RepositorySystem repoSystem;
     private final RepositorySystemSession session;
     private final List<RemoteRepository> remoteRepos;
+    private final ThreadPoolExecutor platformExecutor;
+    private final int configuredBfThreads;
+    private volatile int bfThreads;
 
-    MavenRunner(RepositorySystem repoSystem, RepositorySystemSession session) {
+    MavenRunner(RepositorySystem repoSystem, RepositorySystemSession session, ConcurrencyLimits concurrencyLimits) {
         this.repoSystem = repoSystem;
         this.session = session;
         this.remoteRepos = List.of(new RemoteRepository.Builder("central", "default", MAVEN_CENTRAL).build());
+        this.configuredBfThreads = ConfigUtils.getInteger(session, 5, BF_THREADS_PROP);
+        this.bfThreads = configuredBfThreads;
+        // shared session is never mutated, the next collection picks the new limit up via its own session
+        concurrencyLimits.registerExternal("resolver.bf-threads", configuredBfThreads, limit -> bfThreads = limit);
+        if (PLATFORM_THREADS > 0) {
+            this.platformExecutor = (ThreadPoolExecutor) Executors.newFixedThreadPool(PLATFORM_THREADS,
+                    Thread.ofPlatform().name("maven-runner-", 0).daemon().factory());
+            concurrencyLimits.registerExternal("maven-runner.platform-threads", PLATFORM_THREADS, this::resizePlatformExecutor);
+        } else {
+            this.platformExecutor = null;
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (platformExecutor != null) {
+            platformExecutor.shutdownNow();
+        }
     }
 
     public CollectedDependencies collectDependencies(Gav gav) {
+        return offload(() -> doCollectDependencies(gav));
+    }
+
+    // todo: this should just use ModelBuilder, then we can remove CustomDescriptorReaderDelegate
+    public DescriptorInfo resolveDescriptor(Gav gavWithClassifier) {
+        return offload(() -> doResolveDescriptor(gavWithClassifier));
+    }
+
+    private void resizePlatformExecutor(int size) {
+        if (size > platformExecutor.getMaximumPoolSize()) {
+            platformExecutor.setMaximumPoolSize(size);
+            platformExecutor.setCorePoolSize(size);
+        } else {
+            platformExecutor.setCorePoolSize(size);
+            platformExecutor.setMaximumPoolSize(size);
+        }
+    }
+
+    private <T> T offload(Supplier<T> supplier) {
+        if (platformExecutor == null) {
+            return supplier.get();
+        }
+        Future<T> future = platformExecutor.submit(supplier::get);
+        try {
+            return future.get();
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException re) {
+                throw re;
+            }
+            throw new CompletionException(e.getCause());
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+    }
+
+    private CollectedDependencies doCollectDependencies(Gav gav) {
         CollectRequest request = createCollectRequest(gav);
         CollectResult collectResult;
         try {
-            collectResult = repoSystem.collectDependencies(session, request);
+            collectResult = repoSystem.collectDependencies(collectionSession(), request);
         } catch (DependencyCollectionException e) {
             logger.warn("Dependency collection failed", e);
             collectResult = e.getResult();
@@ -78,8 +145,18 @@ class MavenRunner {
         return new CollectedDependencies(directDependencies, allDependencies);
     }
 
-    // todo: this should just use ModelBuilder, then we can remove CustomDescriptorReaderDelegate
-    public DescriptorInfo resolveDescriptor(Gav gavWithClassifier) {
+    /* copy shares caches and data with the original session, only its config differs */
+    private RepositorySystemSession collectionSession() {
+        int threads = bfThreads;
+        if (threads == configuredBfThreads) {
+            return session;
+        }
+        DefaultRepositorySystemSession copy = new DefaultRepositorySystemSession(session);
+        copy.setConfigProperty(BF_THREADS_PROP, threads);
+        return copy;
+    }
+
+    private DescriptorInfo doResolveDescriptor(Gav gavWithClassifier) {
         Gav gav = gavWithClassifier.stripClassifier();
         ArtifactDescriptorRequest request = new ArtifactDescriptorRequest(new DefaultArtifact(gav.toString()), remoteRepos, null);
         try {
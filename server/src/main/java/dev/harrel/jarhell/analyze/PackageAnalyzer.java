@@ -1,8 +1,11 @@
 package dev.harrel.jarhell.analyze;
 
+import dev.harrel.jarhell.FileRepository;
 import dev.harrel.jarhell.MavenApiClient;
 import dev.harrel.jarhell.model.Gav;
 import dev.harrel.jarhell.model.PackageInfo;
+import dev.harrel.jarhell.util.ConcurrentUtil;
+import io.avaje.config.Config;
 import org.eclipse.jetty.client.HttpClient;
 import org.eclipse.jetty.client.api.Response;
 import org.eclipse.jetty.client.util.InputStreamResponseListener;
@@ -11,31 +14,65 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import javax.inject.Singleton;
-import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.FilterInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.ByteBuffer;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.SortedMap;
+import java.util.TreeMap;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.StructuredTaskScope;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
+import java.util.jar.Attributes;
 import java.util.jar.JarEntry;
 import java.util.jar.JarInputStream;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import static java.util.concurrent.StructuredTaskScope.open;
 
 @Singleton
 class PackageAnalyzer {
     private static final Logger logger = LoggerFactory.getLogger(PackageAnalyzer.class);
-    private static final List<String> RANGE_STEPS = List.of("8096", "16384", "131072", "524288");
+    private static final List<Long> RANGE_STEPS = List.of(8096L, 16384L, 131072L, 524288L);
+    /* fits end of central directory with the longest comment and the whole central directory of most jars.
+     * Used until the actual sizes are learned */
+    private static final int TAIL_SIZE = 64 * 1024;
+    private static final int MAX_TAIL_SIZE = 1024 * 1024;
+    /* whole file answer to a range request is used only up to that size, bigger jars are read sequentially */
+    private static final int MAX_UNRANGED_SIZE = 8 * 1024 * 1024;
+    private static final String CENTRAL_DIRECTORY_READ = "central-directory";
+    private static final String FIRST_CLASS_READ = "first-class";
+    private static final int CLASS_HEADER_SIZE = 8;
+    /* first class only by default, more samples profile versions of the jar at the cost of extra range requests */
+    private static final int BYTECODE_SAMPLES = Math.max(1, Config.getInt("jar-hell.package.bytecode-samples", 1));
+    /* entries lying closer than that are fetched with a single range request */
+    private static final int COALESCE_GAP = 16 * 1024;
+    /* packagings with classes in nested archives or directories, which can be probed the same way as jars */
+    private static final Set<String> ARCHIVE_PACKAGINGS = Set.of("aar", "war", "ear");
+    private static final Pattern CONTENT_RANGE_PATTERN = Pattern.compile("bytes (\\d+)-\\d+/(\\d+)");
 
     private final HttpClient httpClient;
+    private final RangeSizeLearner rangeSizeLearner;
+    private final Optional<FileRepository> fileRepository;
 
-    PackageAnalyzer(HttpClient httpClient) {
+    PackageAnalyzer(HttpClient httpClient, RangeSizeLearner rangeSizeLearner, Optional<FileRepository> fileRepository) {
         this.httpClient = httpClient;
+        this.rangeSizeLearner = rangeSizeLearner;
+        this.fileRepository = fileRepository;
     }
 
     PackageInfo analyzePackage(Gav gav, FilesInfo filesInfo, String packaging) {
@@ -49,19 +86,237 @@ class PackageAnalyzer {
         }
     }
 
+    /* for artifacts known (or guessed) to have a jar file, packaging is irrelevant then */
+    PackageInfo analyzeJar(Gav gav) {
+        return analyzePackage(gav, new FilesInfo(Set.of("jar"), Set.of()), "jar");
+    }
+
     private PackageInfo fetchPackage(Gav gav, FilesInfo filesInfo, String packaging) throws InterruptedException, ExecutionException, TimeoutException {
+        if (fileRepository.isPresent()) {
+            return fetchLocal(fileRepository.get(), gav, filesInfo.extensions().contains("jar") ? "jar" : packaging);
+        }
         if (filesInfo.extensions().contains("jar")) {
             return fetchJar(gav);
+        } else if (ARCHIVE_PACKAGINGS.contains(packaging) && filesInfo.extensions().contains(packaging)) {
+            return fetchArchive(gav, packaging);
+        } else if (filesInfo.mainFile() != null && filesInfo.mainFile().extension().equals(packaging)) {
+            // the index already told what HEAD request would
+            return new PackageInfo(filesInfo.mainFile().created(), filesInfo.mainFile().size(), null);
         } else {
             return fetchOther(gav, packaging);
         }
     }
 
     private PackageInfo fetchJar(Gav gav) throws InterruptedException, ExecutionException, TimeoutException {
+        HttpJarSource source = new HttpJarSource(MavenApiClient.createFileUrl(gav, "jar"));
+        try {
+            return probeJar(gav, source);
+        } catch (IOException e) {
+            logger.info("Probing jar [{}] failed: {}. Falling back to sequential read", gav, e.getMessage());
+            return fetchJarSequentially(gav, source.size());
+        }
+    }
+
+    private PackageInfo fetchArchive(Gav gav, String packaging) throws InterruptedException, ExecutionException, TimeoutException {
+        HttpJarSource source = new HttpJarSource(MavenApiClient.createFileUrl(gav, packaging));
+        try {
+            return probeArchive(gav, source, packaging);
+        } catch (IOException e) {
+            logger.info("Probing {} [{}] failed: {}. Assuming no bytecode", packaging, gav, e.getMessage());
+            return fetchOther(gav, packaging);
+        }
+    }
+
+    private PackageInfo probeJar(Gav gav, JarSource source) throws IOException {
+        return probeArchive(gav, source, "jar");
+    }
+
+    /* war classes are entries of the archive itself, aar and ear ones are in a nested archive.
+     * Size composition always describes the outer archive, as that is what gets downloaded */
+    private PackageInfo probeArchive(Gav gav, JarSource source, String packaging) throws IOException {
+        List<ZipDirectory.Entry> entries = readCentralDirectory(source, packaging);
+        PackageInfo packageInfo = switch (packaging) {
+            case "war" -> describeJar(gav, source, JarMetadata.webEntries(entries));
+            case "aar", "ear" -> {
+                Optional<ZipDirectory.Entry> nested = JarMetadata.findNestedArchive(entries, packaging);
+                if (nested.isEmpty()) {
+                    logger.info("No nested archive found in {} [{}]. Assuming no bytecode", packaging, gav);
+                    yield new PackageInfo(source.created(), source.size(), null);
+                }
+                yield probeNested(gav, source, nested.get());
+            }
+            default -> describeJar(gav, source, entries);
+        };
+        return packageInfo.withSizeComposition(JarMetadata.sizeComposition(entries, gav.groupId()));
+    }
+
+    /* stored archive is a plain range of the outer file, so it is probed in place.
+     * Deflated one has to be inflated from its beginning up to the first class */
+    private PackageInfo probeNested(Gav gav, JarSource source, ZipDirectory.Entry nested) throws IOException {
+        String packaging = nested.name().endsWith(".war") ? "war" : "jar";
+        if (nested.method() == 0) {
+            long headerOffset = nested.localHeaderOffset();
+            Window local = source.range(headerOffset, nested.localRangeLength(0));
+            long dataOffset = headerOffset + ZipDirectory.dataOffset(local.from(headerOffset).buffer(), nested);
+            return probeArchive(gav, new NestedJarSource(source, dataOffset, nested.size()), packaging);
+        }
+        for (long rangeStep : RANGE_STEPS) {
+            boolean complete = rangeStep >= nested.compressedSize();
+            Window window = source.range(nested.localHeaderOffset(), nested.localRangeLength(0) + Math.min(rangeStep, nested.compressedSize()));
+            try {
+                InputStream is = ZipDirectory.openEntry(window.from(nested.localHeaderOffset()).buffer(), nested);
+                return new PackageInfo(source.created(), source.size(), parseByteCodeVersion(is));
+            } catch (IOException e) {
+                if (complete) {
+                    break;
+                }
+                logger.info("Parsing nested [{}] failed for [{}] and range [{}]. Retrying with bigger range...", nested.name(), gav, rangeStep);
+            }
+        }
+        logger.info("No class files found in nested [{}] of [{}]. Assuming no bytecode", nested.name(), gav);
+        return new PackageInfo(source.created(), source.size(), null);
+    }
+
+    /* central directory is read from the end of the file, usually it fits in the tail.
+     * The tail is requested before the size is known, so its stats are kept for all sizes only */
+    private List<ZipDirectory.Entry> readCentralDirectory(JarSource source, String extension) throws IOException {
+        int tailSize = source.remote()
+                ? (int) Math.min(MAX_TAIL_SIZE, rangeSizeLearner.suggest(CENTRAL_DIRECTORY_READ, extension, null, TAIL_SIZE))
+                : TAIL_SIZE;
+        Window tail = source.tail(tailSize);
+        Optional<ZipDirectory.End> foundEnd = ZipDirectory.findEnd(tail.buffer(), tail.offset());
+        // learned tail might be too short for a long archive comment
+        if (foundEnd.isEmpty() && tail.offset() > 0 && tailSize < TAIL_SIZE) {
+            tail = source.tail(TAIL_SIZE);
+            foundEnd = ZipDirectory.findEnd(tail.buffer(), tail.offset());
+        }
+        ZipDirectory.End end = foundEnd.orElseThrow(() -> new IOException("End of central directory not found"));
+        if (source.remote()) {
+            rangeSizeLearner.record(CENTRAL_DIRECTORY_READ, extension, null, source.size() - end.centralDirectoryOffset());
+        }
+        Window centralDirectory = tail.contains(end.centralDirectoryOffset(), end.centralDirectorySize())
+                ? tail.slice(end.centralDirectoryOffset(), end.centralDirectorySize())
+                : source.range(end.centralDirectoryOffset(), end.centralDirectorySize());
+        return ZipDirectory.parseEntries(centralDirectory.buffer());
+    }
+
+    /* only the manifest, module descriptor and headers of sampled class entries are fetched */
+    private PackageInfo describeJar(Gav gav, JarSource source, List<ZipDirectory.Entry> entries) throws IOException {
+        List<ZipDirectory.Entry> classEntries = JarMetadata.sampleClasses(entries, BYTECODE_SAMPLES);
+        Optional<ZipDirectory.Entry> manifestEntry = JarMetadata.findManifest(entries);
+        Optional<ZipDirectory.Entry> moduleInfoEntry = JarMetadata.findModuleInfo(entries);
+        Map<ZipDirectory.Entry, Integer> lengths = new HashMap<>();
+        classEntries.forEach(entry -> lengths.put(entry, CLASS_HEADER_SIZE));
+        manifestEntry.ifPresent(entry -> lengths.put(entry, JarMetadata.MANIFEST_PREFIX_SIZE));
+        moduleInfoEntry.ifPresent(entry -> lengths.put(entry, (int) entry.size()));
+        Map<ZipDirectory.Entry, byte[]> contents = readEntries(source, lengths);
+
+        SortedMap<String, Long> bytecodeVersions = profileByteCodeVersions(gav, classEntries, contents);
+        String minByteCodeVersion = null;
+        String byteCodeVersion = null;
+        if (!bytecodeVersions.isEmpty()) {
+            minByteCodeVersion = bytecodeVersions.firstKey();
+            byteCodeVersion = bytecodeVersions.lastKey();
+        } else {
+            bytecodeVersions = null;
+            logger.info("No class files found in jar [{}]. Assuming no bytecode", gav);
+        }
+        Attributes attributes = new Attributes();
+        String moduleName = null;
+        try {
+            if (manifestEntry.isPresent()) {
+                attributes = JarMetadata.parseMainAttributes(contents.get(manifestEntry.get()));
+            }
+            moduleName = attributes.getValue("Automatic-Module-Name");
+            if (moduleInfoEntry.isPresent()) {
+                moduleName = JarMetadata.parseModuleName(contents.get(moduleInfoEntry.get()));
+            }
+        } catch (IOException e) {
+            logger.info("Reading module metadata of jar [{}] failed: {}", gav, e.getMessage());
+        }
+        return new PackageInfo(source.created(), source.size(), byteCodeVersion, minByteCodeVersion, bytecodeVersions, moduleName,
+                "true".equalsIgnoreCase(attributes.getValue("Multi-Release")), JarMetadata.releaseVersions(entries),
+                JarMetadata.classCount(entries), JarMetadata.hasNativeLibraries(entries), JarMetadata.classNames(entries), null);
+    }
+
+    /* histogram sorted by version, broken classes are skipped */
+    private static SortedMap<String, Long> profileByteCodeVersions(Gav gav, List<ZipDirectory.Entry> classEntries, Map<ZipDirectory.Entry, byte[]> contents) {
+        SortedMap<String, Long> histogram = new TreeMap<>(PackageInfo.BYTECODE_VERSION_ORDER);
+        for (ZipDirectory.Entry entry : classEntries) {
+            try {
+                histogram.merge(parseClassHeader(contents.get(entry)), 1L, Long::sum);
+            } catch (IOException | IllegalArgumentException e) {
+                logger.info("Skipping class [{}] of jar [{}]: {}", entry.name(), gav, e.getMessage());
+            }
+        }
+        return histogram;
+    }
+
+    /* reads given amount of data of each entry, entries lying close to each other are fetched together.
+     * Separate ranges are fetched concurrently */
+    private static Map<ZipDirectory.Entry, byte[]> readEntries(JarSource source, Map<ZipDirectory.Entry, Integer> lengths) throws IOException {
+        List<ZipDirectory.Entry> sorted = lengths.keySet().stream()
+                .sorted(Comparator.comparingLong(ZipDirectory.Entry::localHeaderOffset))
+                .toList();
+        List<List<ZipDirectory.Entry>> groups = new ArrayList<>();
+        int from = 0;
+        while (from < sorted.size()) {
+            long end = sorted.get(from).localHeaderOffset() + sorted.get(from).localRangeLength(lengths.get(sorted.get(from)));
+            int to = from + 1;
+            while (to < sorted.size() && sorted.get(to).localHeaderOffset() - end <= COALESCE_GAP) {
+                ZipDirectory.Entry entry = sorted.get(to);
+                end = Math.max(end, entry.localHeaderOffset() + entry.localRangeLength(lengths.get(entry)));
+                to++;
+            }
+            groups.add(sorted.subList(from, to));
+            from = to;
+        }
+
+        List<Window> windows;
+        if (groups.size() == 1) {
+            windows = List.of(readGroup(source, groups.getFirst(), lengths));
+        } else {
+            try (var scope = open(StructuredTaskScope.Joiner.<Window>awaitAllSuccessfulOrThrow())) {
+                List<StructuredTaskScope.Subtask<Window>> tasks = groups.stream()
+                        .map(group -> scope.fork(() -> readGroup(source, group, lengths)))
+                        .toList();
+                ConcurrentUtil.joinScope(scope);
+                windows = tasks.stream().map(StructuredTaskScope.Subtask::get).toList();
+            } catch (StructuredTaskScope.FailedException e) {
+                if (e.getCause() instanceof IOException ioe) {
+                    throw ioe;
+                }
+                throw e;
+            }
+        }
+
+        Map<ZipDirectory.Entry, byte[]> contents = new HashMap<>();
+        for (int i = 0; i < groups.size(); i++) {
+            for (ZipDirectory.Entry entry : groups.get(i)) {
+                ByteBuffer local = windows.get(i).from(entry.localHeaderOffset()).buffer();
+                contents.put(entry, ZipDirectory.readEntryPrefix(local, entry, lengths.get(entry)));
+            }
+        }
+        return contents;
+    }
+
+    private static Window readGroup(JarSource source, List<ZipDirectory.Entry> group, Map<ZipDirectory.Entry, Integer> lengths) throws IOException {
+        long start = group.getFirst().localHeaderOffset();
+        long end = group.stream()
+                .mapToLong(entry -> entry.localHeaderOffset() + entry.localRangeLength(lengths.get(entry)))
+                .max()
+                .orElseThrow();
+        return source.range(start, end - start);
+    }
+
+    /* first range is learned from previous jars, fixed steps follow if it was not enough */
+    private PackageInfo fetchJarSequentially(Gav gav, Long sizeHint) throws InterruptedException, ExecutionException, TimeoutException {
         String url = MavenApiClient.createFileUrl(gav, "jar");
+        long firstStep = rangeSizeLearner.suggest(FIRST_CLASS_READ, "jar", sizeHint, RANGE_STEPS.getFirst());
+        List<Long> rangeSteps = Stream.concat(Stream.of(firstStep), RANGE_STEPS.stream().filter(step -> step > firstStep)).toList();
         LocalDateTime created = null;
         Long packageSize = null;
-        for (String rangeStep : RANGE_STEPS) {
+        for (long rangeStep : rangeSteps) {
             InputStreamResponseListener listener = new InputStreamResponseListener();
             httpClient.newRequest(url)
                     .headers(headers -> headers.add("Range", "bytes=0-" + rangeStep))
@@ -86,10 +341,12 @@ class PackageAnalyzer {
                         .orElseThrow();
             }
             try {
-                String byteCodeVersion = parseByteCodeVersion(listener.getInputStream());
+                CountingInputStream is = new CountingInputStream(listener.getInputStream());
+                String byteCodeVersion = parseByteCodeVersion(is);
+                rangeSizeLearner.record(FIRST_CLASS_READ, "jar", packageSize, is.count);
                 return new PackageInfo(created, packageSize, byteCodeVersion);
             } catch (IOException e) {
-                if (packageSize < Long.parseLong(rangeStep)) {
+                if (packageSize < rangeStep) {
                     break;
                 }
                 logger.info("Parsing jar failed for [{}] and range [{}]. Retrying with bigger range...", gav, rangeStep);
@@ -99,6 +356,40 @@ class PackageAnalyzer {
         return new PackageInfo(created, packageSize, null);
     }
 
+    /* whole file is mapped, so there's no need for range steps */
+    private PackageInfo fetchLocal(FileRepository fileRepository, Gav gav, String extension) {
+        String path = MavenApiClient.createFilePath(gav, extension);
+        try {
+            LocalDateTime created = fileRepository.lastModified(path);
+            long packageSize = fileRepository.size(path);
+            if (ARCHIVE_PACKAGINGS.contains(extension)) {
+                try {
+                    return probeArchive(gav, new MappedJarSource(fileRepository.map(path), created), extension);
+                } catch (IOException e) {
+                    logger.info("Probing {} [{}] failed: {}. Assuming no bytecode", extension, gav, e.getMessage());
+                }
+            }
+            if (!"jar".equals(extension)) {
+                return new PackageInfo(created, packageSize, null);
+            }
+            ByteBuffer mapped = fileRepository.map(path);
+            try {
+                return probeJar(gav, new MappedJarSource(mapped, created));
+            } catch (IOException e) {
+                logger.info("Probing jar [{}] failed: {}. Falling back to sequential read", gav, e.getMessage());
+            }
+            try {
+                String byteCodeVersion = parseByteCodeVersion(FileRepository.asInputStream(mapped));
+                return new PackageInfo(created, packageSize, byteCodeVersion);
+            } catch (IOException e) {
+                logger.info("No class files found in jar [{}]. Assuming no bytecode", gav);
+                return new PackageInfo(created, packageSize, null);
+            }
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Reading file [%s] failed".formatted(path), e);
+        }
+    }
+
     private PackageInfo fetchOther(Gav gav, String packaging) throws InterruptedException, ExecutionException, TimeoutException {
         String url = MavenApiClient.createFileUrl(gav, packaging);
         InputStreamResponseListener listener = new InputStreamResponseListener();
@@ -119,20 +410,234 @@ class PackageAnalyzer {
         return new PackageInfo(created, packageSize, null);
     }
 
+    // closing the stream aborts the rest of the response, which is not needed anyway
     private String parseByteCodeVersion(InputStream is) throws IOException {
-        JarInputStream jis = new JarInputStream(is);
-        JarEntry entry = jis.getNextJarEntry();
-        while (entry != null && !(entry.getName().endsWith(".class") && !entry.getName().equals("module-info.class"))) {
-            entry = jis.getNextJarEntry();
+        try (JarInputStream jis = new JarInputStream(is)) {
+            JarEntry entry = jis.getNextJarEntry();
+            while (entry != null && !(entry.getName().endsWith(".class") && !entry.getName().equals("module-info.class"))) {
+                entry = jis.getNextJarEntry();
+            }
+
+            return parseClassHeader(jis.readNBytes(CLASS_HEADER_SIZE));
         }
+    }
 
-        DataInputStream dis = new DataInputStream(jis);
-        int magicNumber = dis.readInt();
-        if (magicNumber != 0xCAFEBABE) {
+    private static String parseClassHeader(byte[] header) throws IOException {
+        if (header.length < CLASS_HEADER_SIZE) {
+            throw new EOFException("Class header is too short");
+        }
+        ByteBuffer buf = ByteBuffer.wrap(header);
+        if (buf.getInt(0) != 0xCAFEBABE) {
             throw new IllegalArgumentException("Invalid magic number");
         }
-        int minor = 0xFFFF & dis.readShort();
-        int major = 0xFFFF & dis.readShort();
+        int minor = Short.toUnsignedInt(buf.getShort(4));
+        int major = Short.toUnsignedInt(buf.getShort(6));
         return major + "." + minor;
     }
+
+    private interface JarSource {
+        LocalDateTime created();
+
+        Long size();
+
+        boolean remote();
+
+        Window tail(int length) throws IOException;
+
+        Window range(long offset, long length) throws IOException;
+    }
+
+    private record Window(long offset, ByteBuffer buffer) {
+        boolean contains(long start, long length) {
+            return start >= offset && start + length <= offset + buffer.limit();
+        }
+
+        Window slice(long start, long length) {
+            return new Window(start, buffer.slice((int) (start - offset), (int) length));
+        }
+
+        Window from(long start) throws IOException {
+            if (start < offset || start >= offset + buffer.limit()) {
+                throw new EOFException("Offset [%d] is outside of the fetched window".formatted(start));
+            }
+            return slice(start, offset + buffer.limit() - start);
+        }
+    }
+
+    private record MappedJarSource(ByteBuffer file, LocalDateTime created) implements JarSource {
+        @Override
+        public Long size() {
+            return (long) file.limit();
+        }
+
+        @Override
+        public boolean remote() {
+            return false;
+        }
+
+        @Override
+        public Window tail(int length) {
+            int start = Math.max(0, file.limit() - length);
+            return new Window(start, file.slice(start, file.limit() - start));
+        }
+
+        @Override
+        public Window range(long offset, long length) throws IOException {
+            if (offset >= file.limit()) {
+                throw new EOFException("Offset [%d] is beyond the end of file".formatted(offset));
+            }
+            int end = (int) Math.min(file.limit(), offset + length);
+            return new Window(offset, file.slice((int) offset, end - (int) offset));
+        }
+    }
+
+    /* archive stored inside another one, offsets are relative to its data. Size and modification time are the outer ones.
+     * Not remote on its own, so range sizes are not learned from it */
+    private record NestedJarSource(JarSource outer, long dataOffset, long length) implements JarSource {
+        @Override
+        public LocalDateTime created() {
+            return outer.created();
+        }
+
+        @Override
+        public Long size() {
+            return outer.size();
+        }
+
+        @Override
+        public boolean remote() {
+            return false;
+        }
+
+        @Override
+        public Window tail(int tailLength) throws IOException {
+            long start = Math.max(0, length - tailLength);
+            return range(start, length - start);
+        }
+
+        @Override
+        public Window range(long offset, long rangeLength) throws IOException {
+            if (offset >= length) {
+                throw new EOFException("Offset [%d] is beyond the end of nested archive".formatted(offset));
+            }
+            long end = Math.min(length, offset + rangeLength);
+            Window window = outer.range(dataOffset + offset, end - offset);
+            // outer window might reach beyond the nested archive, which would confuse looking for its end
+            Window nested = new Window(window.offset() - dataOffset, window.buffer());
+            if (!nested.contains(offset, end - offset)) {
+                throw new EOFException("Range [%d-%d] of nested archive was not fetched".formatted(offset, end));
+            }
+            return nested.slice(offset, end - offset);
+        }
+    }
+
+    /* size and modification time are taken from the first response, later ranges might be fetched concurrently */
+    private class HttpJarSource implements JarSource {
+        private final String url;
+        private volatile LocalDateTime created;
+        private volatile Long size;
+
+        HttpJarSource(String url) {
+            this.url = url;
+        }
+
+        @Override
+        public LocalDateTime created() {
+            return created;
+        }
+
+        @Override
+        public Long size() {
+            return size;
+        }
+
+        @Override
+        public boolean remote() {
+            return true;
+        }
+
+        @Override
+        public Window tail(int length) throws IOException {
+            return fetch("bytes=-" + length);
+        }
+
+        @Override
+        public Window range(long offset, long length) throws IOException {
+            return fetch("bytes=%d-%d".formatted(offset, offset + length - 1));
+        }
+
+        private Window fetch(String range) throws IOException {
+            InputStreamResponseListener listener = new InputStreamResponseListener();
+            httpClient.newRequest(url)
+                    .headers(headers -> headers.add("Range", range))
+                    .send(listener);
+            Response res;
+            try {
+                res = listener.get(5L, TimeUnit.SECONDS);
+            } catch (ExecutionException | TimeoutException e) {
+                throw new IllegalArgumentException(e);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalArgumentException(e);
+            }
+            // closing the body before it is fully read aborts the request
+            try (InputStream is = listener.getInputStream()) {
+                if (res.getStatus() >= 400) {
+                    throw new IllegalArgumentException("HTTP call failed [%s] for url [%s]".formatted(res.getStatus(), url));
+                }
+                if (created == null) {
+                    String lastModifiedHeader = Objects.requireNonNull(res.getHeaders().get("Last-Modified"));
+                    created = LocalDateTime.parse(lastModifiedHeader, DateTimeFormatter.RFC_1123_DATE_TIME);
+                }
+                // server might ignore the range and send whole file
+                Matcher matcher = CONTENT_RANGE_PATTERN.matcher(Objects.requireNonNullElse(res.getHeaders().get("Content-Range"), ""));
+                if (res.getStatus() != 206 || !matcher.matches()) {
+                    byte[] body = is.readNBytes(MAX_UNRANGED_SIZE + 1);
+                    if (body.length > MAX_UNRANGED_SIZE) {
+                        throw new IOException("Range ignored for url [%s] and file exceeds [%d] bytes".formatted(url, MAX_UNRANGED_SIZE));
+                    }
+                    size = (long) body.length;
+                    return new Window(0, ByteBuffer.wrap(body));
+                }
+                if (size == null) {
+                    size = Long.valueOf(matcher.group(2));
+                }
+                return new Window(Long.parseLong(matcher.group(1)), ByteBuffer.wrap(is.readAllBytes()));
+            }
+        }
+    }
+
+    /* tells how far into the jar the stream had to be read */
+    private static class CountingInputStream extends FilterInputStream {
+        private long count;
+
+        CountingInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+                count++;
+            }
+            return b;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            int read = super.read(b, off, len);
+            if (read > 0) {
+                count += read;
+            }
+            return read;
+        }
+
+        @Override
+        public long skip(long n) throws IOException {
+            long skipped = super.skip(n);
+            count += skipped;
+            return skipped;
+        }
+    }
 }
@@ -0,0 +1,387 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.MavenApiClient;
+import dev.harrel.jarhell.model.CollectedDependencies;
+import dev.harrel.jarhell.model.FlatDependency;
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.util.ConcurrentUtil;
+import io.avaje.config.Config;
+import org.apache.maven.model.Dependency;
+import org.apache.maven.model.DependencyManagement;
+import org.apache.maven.model.Exclusion;
+import org.apache.maven.model.Model;
+import org.apache.maven.model.Parent;
+import org.apache.maven.model.Repository;
+import org.apache.maven.model.building.*;
+import org.apache.maven.model.resolution.ModelResolver;
+import org.apache.maven.model.resolution.UnresolvableModelException;
+import org.eclipse.aether.RepositorySystemSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.function.Function;
+
+import static java.util.concurrent.StructuredTaskScope.open;
+
+/* Alternative to Aether collection which fetches whole levels of the graph in parallel.
+ * Mirrors the session defaults: nearest wins, test/provided and transitive optional deps are skipped,
+ * exclusions are inherited and dependency management from the root and direct deps applies below them.
+ * Version ranges (and LATEST/RELEASE) are not supported - UnsupportedGraphException tells the caller to fall back to MavenRunner */
+@Singleton
+class PomGraphResolver {
+    private static final Logger logger = LoggerFactory.getLogger(PomGraphResolver.class);
+    private static final int MAX_CACHED_MODELS = Config.getInt("jar-hell.resolver.max-cached-models", 20_000);
+    private static final Set<String> SKIPPED_SCOPES = Set.of("test", "provided");
+    /* the same order as in JavaScopeSelector */
+    private static final List<String> SCOPE_PRIORITY = List.of("system", "compile", "runtime", "provided", "test");
+
+    private final ModelBuilder modelBuilder;
+    private final MavenApiClient mavenApiClient;
+    private final Properties systemProperties = new Properties();
+    private final ConcurrentHashMap<Gav, CompletableFuture<Optional<String>>> rawPoms = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Gav, CompletableFuture<Optional<Model>>> models = new ConcurrentHashMap<>();
+    private final ModelCache modelCache = new SharedModelCache();
+    private final ModelResolver modelResolver = new PomModelResolver();
+
+    PomGraphResolver(ModelBuilder modelBuilder, MavenApiClient mavenApiClient, RepositorySystemSession session) {
+        this.modelBuilder = modelBuilder;
+        this.mavenApiClient = mavenApiClient;
+        this.systemProperties.putAll(session.getSystemProperties());
+    }
+
+    public CollectedDependencies collectDependencies(Gav gav) {
+        Optional<Model> rootModel = effectiveModel(gav.stripClassifier());
+        if (rootModel.isEmpty()) {
+            return CollectedDependencies.empty();
+        }
+
+        Map<String, Node> winners = new LinkedHashMap<>();
+        Map<String, String> scopes = new HashMap<>();
+        String rootKey = conflictKey(gav.groupId(), gav.artifactId(), "jar", gav.classifier());
+        winners.put(rootKey, new Node(gav, rootKey, 0, false, Set.of(), Map.of()));
+        Map<String, Dependency> rootManagement = management(rootModel.get(), Map.of());
+
+        List<Node> directNodes = new ArrayList<>();
+        for (Dependency dep : rootModel.get().getDependencies()) {
+            String scope = scopeOf(dep.getScope());
+            if (SKIPPED_SCOPES.contains(scope)) {
+                continue;
+            }
+            Node node = createNode(dep, dep.getVersion(), 1, dep.isOptional(), exclusions(Set.of(), dep, null), rootManagement);
+            if (winners.putIfAbsent(node.key(), node) == null) {
+                scopes.put(node.key(), scope);
+                directNodes.add(node);
+            }
+        }
+
+        List<Node> level = directNodes;
+        while (!level.isEmpty()) {
+            Map<Gav, Optional<Model>> levelModels = fetchModels(level);
+            List<Node> nextLevel = new ArrayList<>();
+            for (Node node : level) {
+                Optional<Model> model = levelModels.get(node.gav().stripClassifier());
+                if (model.isEmpty()) {
+                    continue;
+                }
+                expand(node, model.get(), scopes.get(node.key()), winners, scopes, nextLevel);
+            }
+            level = nextLevel;
+        }
+
+        List<FlatDependency> directDependencies = directNodes.stream()
+                .map(node -> new FlatDependency(node.gav(), node.optional(), scopes.get(node.key())))
+                .toList();
+        List<FlatDependency> allDependencies = winners.values().stream()
+                .filter(node -> node.depth() > 0)
+                .map(node -> new FlatDependency(node.gav(), node.optional(), scopes.get(node.key())))
+                .toList();
+        return new CollectedDependencies(directDependencies, allDependencies);
+    }
+
+    private void expand(Node node, Model model, String nodeScope, Map<String, Node> winners, Map<String, String> scopes, List<Node> nextLevel) {
+        // like ClassicDependencyManager - management is collected only from the root and direct dependencies
+        Map<String, Dependency> management = node.depth() == 1 ? management(model, node.management()) : node.management();
+        for (Dependency dep : model.getDependencies()) {
+            String declaredScope = scopeOf(dep.getScope());
+            if (SKIPPED_SCOPES.contains(declaredScope) || dep.isOptional() || isExcluded(node.exclusions(), dep)) {
+                continue;
+            }
+            Dependency managed = management.get(dep.getManagementKey());
+            String version = managed != null && managed.getVersion() != null ? managed.getVersion() : dep.getVersion();
+            String scope = deriveScope(nodeScope, managed != null && managed.getScope() != null ? scopeOf(managed.getScope()) : declaredScope);
+
+            Node child = createNode(dep, version, node.depth() + 1, false, exclusions(node.exclusions(), dep, managed), management);
+            Node winner = winners.putIfAbsent(child.key(), child);
+            if (winner == null) {
+                scopes.put(child.key(), scope);
+                nextLevel.add(child);
+            } else if (winner.depth() > 1) {
+                scopes.merge(child.key(), scope, PomGraphResolver::widerScope);
+            }
+        }
+    }
+
+    private Map<Gav, Optional<Model>> fetchModels(List<Node> level) {
+        List<Gav> pomGavs = level.stream()
+                .map(node -> node.gav().stripClassifier())
+                .distinct()
+                .toList();
+        try (var scope = open(StructuredTaskScope.Joiner.<Optional<Model>>awaitAllSuccessfulOrThrow())) {
+            List<StructuredTaskScope.Subtask<Optional<Model>>> tasks = pomGavs.stream()
+                    .map(pomGav -> scope.fork(() -> effectiveModel(pomGav)))
+                    .toList();
+            ConcurrentUtil.joinScope(scope);
+            Map<Gav, Optional<Model>> result = new HashMap<>();
+            for (int i = 0; i < pomGavs.size(); i++) {
+                result.put(pomGavs.get(i), tasks.get(i).get());
+            }
+            return result;
+        } catch (StructuredTaskScope.FailedException e) {
+            if (e.getCause() instanceof UnsupportedGraphException uge) {
+                throw uge;
+            }
+            throw e;
+        }
+    }
+
+    /* missing or broken poms are treated as leaves, the same way as descriptor failures in MavenRunner */
+    private Optional<Model> effectiveModel(Gav pomGav) {
+        return cached(models, pomGav, this::buildModel);
+    }
+
+    private Optional<String> rawPom(Gav pomGav) {
+        return cached(rawPoms, pomGav, mavenApiClient::fetchPom);
+    }
+
+    private Optional<Model> buildModel(Gav pomGav) {
+        Optional<String> pom = rawPom(pomGav);
+        if (pom.isEmpty()) {
+            return Optional.empty();
+        }
+        ModelBuildingRequest request = new DefaultModelBuildingRequest()
+                .setModelSource(new StringModelSource(pom.get(), pomGav.toString()))
+                .setModelResolver(modelResolver)
+                .setModelCache(modelCache)
+                .setValidationLevel(ModelBuildingRequest.VALIDATION_LEVEL_MINIMAL)
+                .setProcessPlugins(false)
+                .setTwoPhaseBuilding(false)
+                .setSystemProperties(systemProperties);
+        try {
+            return Optional.of(modelBuilder.build(request).getEffectiveModel());
+        } catch (ModelBuildingException e) {
+            logger.warn("Building model failed for [{}]: {}", pomGav, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private static <T> T cached(ConcurrentHashMap<Gav, CompletableFuture<T>> cache, Gav gav, Function<Gav, T> loader) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        CompletableFuture<T> existing = cache.putIfAbsent(gav, future);
+        if (existing != null) {
+            try {
+                return existing.join();
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException re) {
+                    throw re;
+                }
+                throw e;
+            }
+        }
+        try {
+            T value = loader.apply(gav);
+            future.complete(value);
+            trim(cache);
+            return value;
+        } catch (RuntimeException e) {
+            // failures (other than not found) are not cached, so the next collection can retry
+            cache.remove(gav, future);
+            future.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    private static void trim(ConcurrentHashMap<Gav, ? extends CompletableFuture<?>> cache) {
+        int excess = cache.size() - MAX_CACHED_MODELS;
+        if (excess <= 0) {
+            return;
+        }
+        Iterator<? extends CompletableFuture<?>> it = cache.values().iterator();
+        while (it.hasNext() && excess > 0) {
+            if (it.next().isDone()) {
+                it.remove();
+                excess--;
+            }
+        }
+    }
+
+    private static Node createNode(Dependency dep, String version, int depth, boolean optional,
+                                   Set<String> exclusions, Map<String, Dependency> management) {
+        ArtifactType type = ArtifactType.of(dep.getType(), dep.getClassifier());
+        String classifier = type.classifier().isEmpty() ? null : type.classifier();
+        checkVersion(dep.getGroupId(), dep.getArtifactId(), version);
+        Gav gav = new Gav(dep.getGroupId(), dep.getArtifactId(), version, classifier);
+        String key = conflictKey(dep.getGroupId(), dep.getArtifactId(), type.extension(), classifier);
+        return new Node(gav, key, depth, optional, exclusions, management);
+    }
+
+    private static Map<String, Dependency> management(Model model, Map<String, Dependency> inherited) {
+        DependencyManagement dm = model.getDependencyManagement();
+        if (dm == null || dm.getDependencies().isEmpty()) {
+            return inherited;
+        }
+        Map<String, Dependency> result = new HashMap<>();
+        for (Dependency dep : dm.getDependencies()) {
+            result.putIfAbsent(dep.getManagementKey(), dep);
+        }
+        // management closer to the root wins
+        result.putAll(inherited);
+        return result;
+    }
+
+    private static Set<String> exclusions(Set<String> inherited, Dependency dep, Dependency managed) {
+        if (dep.getExclusions().isEmpty() && (managed == null || managed.getExclusions().isEmpty())) {
+            return inherited;
+        }
+        Set<String> result = new HashSet<>(inherited);
+        for (Exclusion exclusion : dep.getExclusions()) {
+            result.add(exclusion.getGroupId() + ":" + exclusion.getArtifactId());
+        }
+        if (managed != null) {
+            for (Exclusion exclusion : managed.getExclusions()) {
+                result.add(exclusion.getGroupId() + ":" + exclusion.getArtifactId());
+            }
+        }
+        return result;
+    }
+
+    private static boolean isExcluded(Set<String> exclusions, Dependency dep) {
+        if (exclusions.isEmpty()) {
+            return false;
+        }
+        return exclusions.contains(dep.getGroupId() + ":" + dep.getArtifactId()) ||
+                exclusions.contains("*:" + dep.getArtifactId()) ||
+                exclusions.contains(dep.getGroupId() + ":*") ||
+                exclusions.contains("*:*");
+    }
+
+    /* the same rules as in JavaScopeDeriver */
+    private static String deriveScope(String parentScope, String childScope) {
+        if ("system".equals(childScope) || "test".equals(childScope)) {
+            return childScope;
+        }
+        if ("compile".equals(parentScope)) {
+            return childScope;
+        }
+        if ("test".equals(parentScope) || "runtime".equals(parentScope)) {
+            return parentScope;
+        }
+        if ("system".equals(parentScope) || "provided".equals(parentScope)) {
+            return "provided";
+        }
+        return "runtime";
+    }
+
+    private static String widerScope(String a, String b) {
+        return SCOPE_PRIORITY.indexOf(a) <= SCOPE_PRIORITY.indexOf(b) ? a : b;
+    }
+
+    private static String scopeOf(String scope) {
+        return scope == null || scope.isBlank() ? "compile" : scope;
+    }
+
+    private static String conflictKey(String groupId, String artifactId, String extension, String classifier) {
+        return "%s:%s:%s:%s".formatted(groupId, artifactId, extension, Objects.requireNonNullElse(classifier, ""));
+    }
+
+    private static void checkVersion(String groupId, String artifactId, String version) {
+        if (version == null || version.isEmpty() || version.startsWith("[") || version.startsWith("(") ||
+                version.equals("LATEST") || version.equals("RELEASE")) {
+            throw new UnsupportedGraphException("Unsupported version [%s] of %s:%s".formatted(version, groupId, artifactId));
+        }
+    }
+
+    private record Node(Gav gav, String key, int depth, boolean optional,
+                        Set<String> exclusions, Map<String, Dependency> management) {}
+
+    /* subset of types registered by MavenRepositorySystemUtils */
+    private record ArtifactType(String extension, String classifier) {
+        static ArtifactType of(String type, String classifier) {
+            String declaredType = Objects.requireNonNullElse(type, "jar");
+            String declaredClassifier = Objects.requireNonNullElse(classifier, "");
+            return switch (declaredType) {
+                case "test-jar" -> new ArtifactType("jar", declaredClassifier.isEmpty() ? "tests" : declaredClassifier);
+                case "ejb-client" -> new ArtifactType("jar", declaredClassifier.isEmpty() ? "client" : declaredClassifier);
+                case "java-source" -> new ArtifactType("jar", declaredClassifier.isEmpty() ? "sources" : declaredClassifier);
+                case "javadoc" -> new ArtifactType("jar", declaredClassifier.isEmpty() ? "javadoc" : declaredClassifier);
+                case "maven-plugin", "ejb", "bundle" -> new ArtifactType("jar", declaredClassifier);
+                default -> new ArtifactType(declaredType, declaredClassifier);
+            };
+        }
+    }
+
+    /* there is only one repository, so repositories declared in poms are ignored (like in the session) */
+    private class PomModelResolver implements ModelResolver {
+        @Override
+        public ModelSource resolveModel(String groupId, String artifactId, String version) throws UnresolvableModelException {
+            checkVersion(groupId, artifactId, version);
+            Gav gav = new Gav(groupId, artifactId, version);
+            return rawPom(gav)
+                    .map(pom -> new StringModelSource(pom, gav.toString()))
+                    .orElseThrow(() -> new UnresolvableModelException("POM not found", groupId, artifactId, version));
+        }
+
+        @Override
+        public ModelSource resolveModel(Parent parent) throws UnresolvableModelException {
+            return resolveModel(parent.getGroupId(), parent.getArtifactId(), parent.getVersion());
+        }
+
+        @Override
+        public ModelSource resolveModel(Dependency dependency) throws UnresolvableModelException {
+            return resolveModel(dependency.getGroupId(), dependency.getArtifactId(), dependency.getVersion());
+        }
+
+        @Override
+        public void addRepository(Repository repository) {}
+
+        @Override
+        public void addRepository(Repository repository, boolean replace) {}
+
+        @Override
+        public ModelResolver newCopy() {
+            return this;
+        }
+    }
+
+    /* parents and imported boms are shared between all builds */
+    private static class SharedModelCache implements ModelCache {
+        private final ConcurrentHashMap<CacheKey, Object> cache = new ConcurrentHashMap<>();
+
+        @Override
+        public void put(String groupId, String artifactId, String version, String tag, Object data) {
+            if (cache.size() >= MAX_CACHED_MODELS) {
+                cache.clear();
+            }
+            cache.put(new CacheKey(groupId, artifactId, version, tag), data);
+        }
+
+        @Override
+        public Object get(String groupId, String artifactId, String version, String tag) {
+            return cache.get(new CacheKey(groupId, artifactId, version, tag));
+        }
+
+        private record CacheKey(String groupId, String artifactId, String version, String tag) {}
+    }
+
+    /* the graph needs features this resolver does not implement, not an error of the artifact */
+    static class UnsupportedGraphException extends RuntimeException {
+        UnsupportedGraphException(String message) {
+            super(message);
+        }
+    }
+}
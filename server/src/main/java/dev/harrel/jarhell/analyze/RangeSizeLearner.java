@@ -0,0 +1,154 @@
+package dev.harrel.jarhell.analyze;
+
+import io.avaje.config.Config;
+import io.avaje.inject.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/* Learns how many bytes range reads of jars actually need, per kind of read, extension and size bucket.
+ * Observations are counted in power of two buckets, so a suggestion is the bucket covering most of them.
+ * Counts are saved to a properties file from time to time and on shutdown, so they survive restarts */
+@Singleton
+class RangeSizeLearner {
+    private static final Logger logger = LoggerFactory.getLogger(RangeSizeLearner.class);
+    /* 1 KB - 16 MB */
+    private static final int MIN_EXPONENT = 10;
+    private static final int MAX_EXPONENT = 24;
+    private static final int MIN_SAMPLES = 20;
+    private static final double QUANTILE = 0.9;
+    private static final int SAVE_EVERY = 100;
+    private static final String ANY_SIZE = "any";
+
+    private final Path path;
+    private final ConcurrentHashMap<String, AtomicLongArray> histograms = new ConcurrentHashMap<>();
+    private final AtomicInteger unsaved = new AtomicInteger();
+
+    @Inject
+    RangeSizeLearner() {
+        this(Path.of(Config.get("jar-hell.range-stats.path", "build/range-stats.properties")));
+    }
+
+    RangeSizeLearner(Path path) {
+        this.path = path;
+        load();
+    }
+
+    /* fallback is used until enough jars of the kind were seen */
+    long suggest(String kind, String extension, Long size, long fallback) {
+        return quantile(key(kind, extension, sizeBucket(size)))
+                .or(() -> quantile(key(kind, extension, ANY_SIZE)))
+                .orElse(fallback);
+    }
+
+    void record(String kind, String extension, Long size, long needed) {
+        int bucket = Math.clamp(exponent(needed), MIN_EXPONENT, MAX_EXPONENT) - MIN_EXPONENT;
+        histogram(key(kind, extension, ANY_SIZE)).incrementAndGet(bucket);
+        if (size != null) {
+            histogram(key(kind, extension, sizeBucket(size))).incrementAndGet(bucket);
+        }
+        if (unsaved.incrementAndGet() >= SAVE_EVERY) {
+            save();
+        }
+    }
+
+    @PreDestroy
+    public synchronized void save() {
+        unsaved.set(0);
+        Properties properties = new Properties();
+        histograms.forEach((key, histogram) -> properties.setProperty(key, IntStream.range(0, histogram.length())
+                .mapToObj(i -> String.valueOf(histogram.get(i)))
+                .collect(Collectors.joining(","))));
+        try {
+            Files.createDirectories(path.toAbsolutePath().getParent());
+            Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+            try (Writer writer = Files.newBufferedWriter(temp)) {
+                properties.store(writer, "Needed bytes of jar range reads, buckets from 2^%d to 2^%d".formatted(MIN_EXPONENT, MAX_EXPONENT));
+            }
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (IOException e) {
+            logger.warn("Saving range stats to [{}] failed: {}", path, e.getMessage());
+        }
+    }
+
+    private void load() {
+        if (!Files.exists(path)) {
+            return;
+        }
+        Properties properties = new Properties();
+        try (Reader reader = Files.newBufferedReader(path)) {
+            properties.load(reader);
+        } catch (IOException e) {
+            logger.warn("Loading range stats from [{}] failed: {}", path, e.getMessage());
+            return;
+        }
+        for (String key : properties.stringPropertyNames()) {
+            try {
+                long[] counts = Arrays.stream(properties.getProperty(key).split(","))
+                        .mapToLong(Long::parseLong)
+                        .toArray();
+                if (counts.length == MAX_EXPONENT - MIN_EXPONENT + 1) {
+                    histograms.put(key, new AtomicLongArray(counts));
+                }
+            } catch (NumberFormatException e) {
+                logger.warn("Skipping corrupted range stats of [{}]: {}", key, e.getMessage());
+            }
+        }
+        logger.info("Loaded range stats from [{}], keys: {}", path, histograms.size());
+    }
+
+    private Optional<Long> quantile(String key) {
+        AtomicLongArray histogram = histograms.get(key);
+        if (histogram == null) {
+            return Optional.empty();
+        }
+        long total = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            total += histogram.get(i);
+        }
+        if (total < MIN_SAMPLES) {
+            return Optional.empty();
+        }
+        long covered = 0;
+        for (int i = 0; i < histogram.length(); i++) {
+            covered += histogram.get(i);
+            if (covered >= total * QUANTILE) {
+                return Optional.of(1L << (i + MIN_EXPONENT));
+            }
+        }
+        return Optional.of(1L << MAX_EXPONENT);
+    }
+
+    private AtomicLongArray histogram(String key) {
+        return histograms.computeIfAbsent(key, _ -> new AtomicLongArray(MAX_EXPONENT - MIN_EXPONENT + 1));
+    }
+
+    private static String key(String kind, String extension, String sizeBucket) {
+        return "%s.%s.%s".formatted(kind, extension, sizeBucket);
+    }
+
+    private static String sizeBucket(Long size) {
+        return size == null ? ANY_SIZE : "2^" + exponent(size);
+    }
+
+    /* smallest exponent such that 2^exponent >= value */
+    private static int exponent(long value) {
+        return value <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(value - 1);
+    }
+}
@@ -0,0 +1,177 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.MavenApiClient;
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.repo.ArtifactRepository;
+import dev.harrel.jarhell.repo.ArtifactRepository.ArtifactVersions;
+import io.avaje.config.Config;
+import io.avaje.inject.PostConstruct;
+import io.avaje.inject.PreDestroy;
+import org.apache.maven.artifact.versioning.ComparableVersion;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/* Polls maven-metadata.xml of every artifact already in the graph with conditional requests.
+ * Polls are spread evenly over the whole period, so most of them should end up as 304 */
+@Singleton
+public class ReleaseWatcher {
+    private static final Logger logger = LoggerFactory.getLogger(ReleaseWatcher.class);
+    private static final Duration PERIOD = Duration.parse(Config.get("jar-hell.watcher.period", "PT24H"));
+    private static final int CONCURRENCY = Config.getInt("jar-hell.watcher.concurrency", 8);
+    private static final int PAGE_SIZE = 1000;
+
+    private final ExecutorService service = Executors.newSingleThreadExecutor();
+    private final AtomicReference<Future<?>> runFuture = new AtomicReference<>(CompletableFuture.completedFuture(null));
+    private final AtomicBoolean running = new AtomicBoolean(false);
+    private final Semaphore semaphore = new Semaphore(CONCURRENCY);
+    private final AtomicInteger tracked = new AtomicInteger();
+    private final AtomicLong cycles = new AtomicLong();
+    private final AtomicLong polls = new AtomicLong();
+    private final AtomicLong notModified = new AtomicLong();
+    private final AtomicLong enqueued = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+
+    private final ArtifactRepository repo;
+    private final MavenApiClient mavenApiClient;
+    private final AnalyzeEngine analyzeEngine;
+
+    ReleaseWatcher(ArtifactRepository repo, MavenApiClient mavenApiClient, AnalyzeEngine analyzeEngine) {
+        this.repo = repo;
+        this.mavenApiClient = mavenApiClient;
+        this.analyzeEngine = analyzeEngine;
+    }
+
+    @PostConstruct
+    void postConstruct() {
+        if (Config.enabled("jar-hell.watcher.enabled", false)) {
+            start();
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        logger.info("Shutting down...");
+        running.set(false);
+        service.shutdownNow();
+    }
+
+    public void start() {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("Already running");
+        }
+        runFuture.set(service.submit(this::run));
+    }
+
+    public void stop() {
+        running.set(false);
+        runFuture.get().cancel(true);
+        logger.info("Watcher has stopped");
+    }
+
+    public Status status() {
+        return new Status(running.get(), tracked.get(), cycles.get(), polls.get(), notModified.get(), enqueued.get(), failed.get());
+    }
+
+    private void run() {
+        while (running.get()) {
+            try {
+                runCycle();
+            } catch (InterruptedException e) {
+                logger.info("Interrupted. Stopping...");
+                Thread.currentThread().interrupt();
+                running.set(false);
+            } catch (Exception e) {
+                logger.warn("Watcher cycle failed", e);
+            }
+        }
+    }
+
+    private void runCycle() throws InterruptedException {
+        Instant startTime = Instant.now();
+        int total = repo.countArtifactGroups();
+        tracked.set(total);
+        Duration interval = PERIOD.dividedBy(Math.max(total, 1));
+        logger.info("Starting watcher cycle: artifacts={}, interval={}ms", total, interval.toMillis());
+        try (ExecutorService pollers = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (int skip = 0; skip < total && running.get(); skip += PAGE_SIZE) {
+                for (ArtifactVersions artifact : repo.findArtifactVersions(skip, PAGE_SIZE)) {
+                    if (!running.get()) {
+                        break;
+                    }
+                    Thread.sleep(interval);
+                    semaphore.acquire();
+                    pollers.execute(() -> {
+                        try {
+                            poll(artifact);
+                        } finally {
+                            semaphore.release();
+                        }
+                    });
+                }
+            }
+        }
+        cycles.incrementAndGet();
+        Duration duration = Duration.between(startTime, Instant.now());
+        logger.info("Watcher cycle finished in {}s: polls={}, notModified={}, enqueued={}, failed={}",
+                duration.toSeconds(), polls.get(), notModified.get(), enqueued.get(), failed.get());
+        Duration remaining = PERIOD.minus(duration);
+        if (remaining.isPositive() && running.get()) {
+            Thread.sleep(remaining);
+        }
+    }
+
+    private void poll(ArtifactVersions artifact) {
+        String key = artifact.groupId() + ":" + artifact.artifactId();
+        try {
+            MavenApiClient.ConditionalMetadata metadata = mavenApiClient.fetchMetadata(artifact.groupId(), artifact.artifactId(),
+                    artifact.etag(), artifact.lastModified());
+            polls.incrementAndGet();
+            if (!metadata.modified()) {
+                notModified.incrementAndGet();
+                return;
+            }
+            for (String version : newVersions(artifact.versions(), metadata.versions())) {
+                logger.info("New release found: {}:{}", key, version);
+                analyzeEngine.saveUnresolved(new Gav(artifact.groupId(), artifact.artifactId(), version), "release-watcher");
+                enqueued.incrementAndGet();
+            }
+            /* stored only after enqueueing, otherwise a failed save would be skipped as not modified on the next cycle */
+            repo.saveMetadataValidators(artifact.groupId(), artifact.artifactId(), metadata.etag(), metadata.lastModified());
+        } catch (Exception e) {
+            failed.incrementAndGet();
+            logger.info("Polling metadata failed for [{}]: {}", key, e.toString());
+        }
+    }
+
+    /* only versions newer than the latest known one are considered - old versions are not a new release */
+    static List<String> newVersions(Collection<String> known, List<String> available) {
+        ComparableVersion latestKnown = known.stream()
+                .map(ComparableVersion::new)
+                .max(Comparator.naturalOrder())
+                .orElse(null);
+        Set<String> knownSet = new HashSet<>(known);
+        return available.stream()
+                .filter(v -> !knownSet.contains(v))
+                .filter(v -> latestKnown == null || new ComparableVersion(v).compareTo(latestKnown) > 0)
+                .distinct()
+                .toList();
+    }
+
+    public record Status(boolean running,
+                         int trackedArtifacts,
+                         long cycles,
+                         long polls,
+                         long notModified,
+                         long enqueued,
+                         long failed) {}
+}
@@ -1,12 +1,13 @@
 package dev.harrel.jarhell.analyze;
 
 import dev.harrel.jarhell.CustomHttpClient;
+import dev.harrel.jarhell.FileRepository;
+import dev.harrel.jarhell.MavenApiClient;
 import dev.harrel.jarhell.util.ConcurrentUtil;
+import dev.harrel.jarhell.util.ResizableSemaphore;
+import io.avaje.config.Config;
 import io.avaje.inject.PreDestroy;
 import org.apache.maven.artifact.versioning.ComparableVersion;
-import org.eclipse.jetty.client.api.ContentResponse;
-import org.jsoup.Jsoup;
-import org.jsoup.nodes.Document;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,6 +20,7 @@ import java.time.Instant;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.*;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
@@ -36,11 +38,16 @@ public class RepoWalker {
     /* server.bolt.thread_pool_max_size has default of 400 */
     private static final int CONSUMER_POOL_SIZE = 32;
     private static final int HTTP_POOL_SIZE = 16 * Runtime.getRuntime().availableProcessors();
-    private final ExecutorService consumerService = Executors.newFixedThreadPool(CONSUMER_POOL_SIZE, Thread.ofVirtual().factory());
-    private final ExecutorService httpService = Executors.newFixedThreadPool(HTTP_POOL_SIZE, Thread.ofVirtual().factory());
+    private static final int RETRIES = Config.getInt("jar-hell.walker.retries", 3);
+    private final ExecutorService consumerService = Executors.newVirtualThreadPerTaskExecutor();
+    private final ExecutorService httpService = Executors.newVirtualThreadPerTaskExecutor();
+    private final ResizableSemaphore consumerLimit;
+    private final ResizableSemaphore httpLimit;
 
-    public RepoWalker(CustomHttpClient httpClient) {
+    public RepoWalker(CustomHttpClient httpClient, ConcurrencyLimits concurrencyLimits) {
         this.httpClient = httpClient;
+        this.consumerLimit = concurrencyLimits.register("repo-walker.consumer", CONSUMER_POOL_SIZE);
+        this.httpLimit = concurrencyLimits.register("repo-walker.http", HTTP_POOL_SIZE);
     }
 
     @PreDestroy
@@ -57,7 +64,7 @@ public class RepoWalker {
     }
 
     public CompletableFuture<Summary> walk(String repoUrl, Consumer<ArtifactData> consumer) {
-        logger.info("Starting repo walking: url={}, vConsumerPoolSize={}, vHttpPoolSize={}", repoUrl, CONSUMER_POOL_SIZE, HTTP_POOL_SIZE);
+        logger.info("Starting repo walking: url={}, vConsumerPoolSize={}, vHttpPoolSize={}", repoUrl, consumerLimit.limit(), httpLimit.limit());
         Instant startTime = Instant.now();
         SharedState sharedState = new SharedState(repoUrl, consumer);
         return walkInternal(sharedState, List.of())
@@ -81,24 +88,36 @@ public class RepoWalker {
         if (state.requestsCount().incrementAndGet() % 1000 == 0) {
             logger.info("Walking in progress... {} - {}", state.requestsCount(), uri);
         }
-        ContentResponse res;
-        try {
-            res = httpClient.sendGetWithRetries(uri, 0);
-        } catch (RuntimeException e) {
-            logger.warn("HTTP call failed for url [{}]", uri, e);
-            return failure(state.failedRequestsCount());
-        } catch (InterruptedException e) {
-            Thread.currentThread().interrupt();
-            throw new CompletionException(e);
-        }
-        if (res.getStatus() >= 400) {
-            logger.warn("HTTP call failed [{}] for url [{}]", res.getStatus(), uri);
-            return failure(state.failedRequestsCount());
+        List<String> hrefs;
+        if (state.fileRepository() != null) {
+            Optional<List<String>> listing = state.fileRepository().list(segmentsToPath(pathSegments));
+            if (listing.isEmpty()) {
+                logger.warn("Directory listing failed for [{}]", uri);
+                return failure(state.failedRequestsCount());
+            }
+            hrefs = listing.get();
+        } else {
+            try {
+                hrefs = httpClient.streamGetWithRetries(uri, RETRIES, (res, body) -> {
+                    if (res.getStatus() >= 400) {
+                        logger.warn("HTTP call failed [{}] for url [{}]", res.getStatus(), uri);
+                        return null;
+                    }
+                    return MavenApiClient.parseHrefs(body);
+                });
+            } catch (RuntimeException e) {
+                logger.warn("HTTP call failed for url [{}]", uri, e);
+                return failure(state.failedRequestsCount());
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException(e);
+            }
+            if (hrefs == null) {
+                return failure(state.failedRequestsCount());
+            }
         }
 
-        Document doc = Jsoup.parse(res.getContentAsString());
-        List<String> dirs = doc.getElementsByTag("a").stream()
-                .map(el -> el.attr("href"))
+        List<String> dirs = hrefs.stream()
                 .filter(href -> href.endsWith("/") && !href.equals("../"))
                 .toList();
         Map<Boolean, List<String>> partitioned = dirs.stream()
@@ -114,14 +133,14 @@ public class RepoWalker {
         List<CompletableFuture<?>> futures = new ArrayList<>(paths.size() + 1);
         if (!versions.isEmpty() && pathSegments.size() >= 2) {
             ArtifactData artifactData = createArtifactData(pathSegments, versions);
-            CompletableFuture<Void> artifactFuture = CompletableFuture.supplyAsync(() -> {
+            CompletableFuture<Void> artifactFuture = CompletableFuture.supplyAsync(() -> consumerLimit.<Void>withPermit(() -> {
                 state.consumer().accept(artifactData);
                 if (state.artifactsCount().incrementAndGet() % 1000 == 0) {
                     logger.info("Consuming in progress... {} - {}:{}",
                             state.artifactsCount(), artifactData.groupId(), artifactData.artifactId());
                 }
                 return null;
-            }, consumerService).handle((_, ex) -> {
+            }), consumerService).handle((_, ex) -> {
                 if (ex != null) {
                     logger.warn("Artifact processing failed for [{}:{}]", artifactData.groupId, artifactData.artifactId, ex);
                     return failure(state.failedArtifactsCount());
@@ -133,7 +152,7 @@ public class RepoWalker {
         }
         for (String path : paths) {
             CompletableFuture<?> cf = CompletableFuture.supplyAsync(
-                            () -> walkInternal(state, concatList(pathSegments, path)), httpService)
+                            () -> httpLimit.withPermit(() -> walkInternal(state, concatList(pathSegments, path))), httpService)
                     .thenCompose(Function.identity());
             futures.add(cf);
         }
@@ -148,6 +167,12 @@ public class RepoWalker {
         return URI.create(state.repoUrl() + "/" + path + (path.isEmpty() ? "" : "/"));
     }
 
+    private static String segmentsToPath(List<String> pathSegments) {
+        return pathSegments.stream()
+                .map(v -> v.substring(0, v.length() - 1))
+                .collect(Collectors.joining("/"));
+    }
+
     private List<String> concatList(List<String> pathSegments, String path) {
         return Stream.concat(pathSegments.stream(), Stream.of(path)).toList();
     }
@@ -175,13 +200,15 @@ public class RepoWalker {
                           long failedArtifactsCount) {}
 
     private record SharedState(String repoUrl,
+                               FileRepository fileRepository,
                                Consumer<ArtifactData> consumer,
                                AtomicLong requestsCount,
                                AtomicLong artifactsCount,
                                AtomicLong failedRequestsCount,
                                AtomicLong failedArtifactsCount) {
         private SharedState(String repoUrl, Consumer<ArtifactData> consumer) {
-            this(repoUrl, consumer, new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong());
+            this(repoUrl, FileRepository.of(repoUrl).orElse(null), consumer,
+                    new AtomicLong(), new AtomicLong(), new AtomicLong(), new AtomicLong());
         }
     }
 }
@@ -0,0 +1,45 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.*;
+import dev.harrel.jarhell.repo.ArtifactRepository;
+
+import javax.inject.Singleton;
+import java.util.*;
+
+/* Which dependency contributes which kind of bloat. Built from compositions stored during analysis, so nothing is downloaded */
+@Singleton
+public class SizeRollup {
+    private final ArtifactRepository artifactRepository;
+
+    SizeRollup(ArtifactRepository artifactRepository) {
+        this.artifactRepository = artifactRepository;
+    }
+
+    public Optional<SizeReport> rollup(Gav gav) {
+        return artifactRepository.find(gav, -1)
+                .map(tree -> createReport(gav, ConflictDetector.runtimeArtifacts(tree)));
+    }
+
+    static SizeReport createReport(Gav root, Map<Gav, ArtifactInfo> artifacts) {
+        Map<List<String>, SizeComponent> total = new LinkedHashMap<>();
+        List<Gav> missing = new ArrayList<>();
+        List<SizeReport.ArtifactSize> artifactSizes = new ArrayList<>();
+        artifacts.forEach((gav, info) -> {
+            long size = Objects.requireNonNullElse(info.packageSize(), 0L);
+            List<SizeComponent> composition = Objects.requireNonNullElse(info.sizeComposition(), List.of());
+            if (info.sizeComposition() == null && size > 0) {
+                missing.add(gav);
+            }
+            composition.forEach(component ->
+                    total.merge(Arrays.asList(component.kind(), component.packagePrefix()), component, SizeComponent::plus));
+            artifactSizes.add(new SizeReport.ArtifactSize(gav, size, composition));
+        });
+        artifactSizes.sort(Comparator.comparingLong(SizeReport.ArtifactSize::size).reversed()
+                .thenComparing(SizeReport.ArtifactSize::artifact));
+        List<SizeComponent> totalComposition = total.values().stream()
+                .sorted(Comparator.comparingLong(SizeComponent::size).reversed())
+                .toList();
+        long size = artifactSizes.stream().mapToLong(SizeReport.ArtifactSize::size).sum();
+        return new SizeReport(root, size, List.copyOf(missing), totalComposition, List.copyOf(artifactSizes));
+    }
+}
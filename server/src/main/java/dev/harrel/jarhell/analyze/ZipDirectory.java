@@ -0,0 +1,214 @@
+package dev.harrel.jarhell.analyze;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+
+/* Minimal reader of ZIP structures, so that a jar can be probed with range requests instead of being streamed from the start.
+ * Buffers are always a window of the file starting at some offset - offsets stored in ZIP records are absolute */
+final class ZipDirectory {
+    private static final int EOCD_SIGNATURE = 0x06054b50;
+    private static final int EOCD_SIZE = 22;
+    private static final int ZIP64_LOCATOR_SIGNATURE = 0x07064b50;
+    private static final int ZIP64_LOCATOR_SIZE = 20;
+    private static final int ZIP64_EOCD_SIGNATURE = 0x06064b50;
+    private static final int CEN_SIGNATURE = 0x02014b50;
+    private static final int CEN_SIZE = 46;
+    private static final int LOC_SIGNATURE = 0x04034b50;
+    private static final int LOC_SIZE = 30;
+    private static final long MAX_U32 = 0xFFFFFFFFL;
+    /* local extra field usually equals the central one, but sometimes is padded (e.g. by zipalign) */
+    static final int LOCAL_HEADER_SLACK = 256;
+    static final int MAX_COMMENT_SIZE = 0xFFFF;
+
+    private ZipDirectory() {}
+
+    static Optional<End> findEnd(ByteBuffer tail, long tailOffset) {
+        ByteBuffer buf = tail.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        int limit = buf.limit();
+        for (int pos = limit - EOCD_SIZE; pos >= Math.max(0, limit - EOCD_SIZE - MAX_COMMENT_SIZE); pos--) {
+            if (buf.getInt(pos) != EOCD_SIGNATURE || pos + EOCD_SIZE + u16(buf, pos + 20) > limit) {
+                continue;
+            }
+            long entries = u16(buf, pos + 10);
+            long cdSize = u32(buf, pos + 12);
+            long cdOffset = u32(buf, pos + 16);
+            if (cdOffset == MAX_U32 || cdSize == MAX_U32 || entries == 0xFFFF) {
+                return findZip64End(buf, tailOffset, pos);
+            }
+            return Optional.of(new End(cdOffset, cdSize, entries));
+        }
+        return Optional.empty();
+    }
+
+    private static Optional<End> findZip64End(ByteBuffer buf, long tailOffset, int eocdPos) {
+        int locatorPos = eocdPos - ZIP64_LOCATOR_SIZE;
+        if (locatorPos < 0 || buf.getInt(locatorPos) != ZIP64_LOCATOR_SIGNATURE) {
+            return Optional.empty();
+        }
+        long zip64Pos = buf.getLong(locatorPos + 8) - tailOffset;
+        if (zip64Pos < 0 || zip64Pos + 56 > buf.limit() || buf.getInt((int) zip64Pos) != ZIP64_EOCD_SIGNATURE) {
+            return Optional.empty();
+        }
+        int pos = (int) zip64Pos;
+        return Optional.of(new End(buf.getLong(pos + 48), buf.getLong(pos + 40), buf.getLong(pos + 32)));
+    }
+
+    static List<Entry> parseEntries(ByteBuffer centralDirectory) throws IOException {
+        ByteBuffer buf = centralDirectory.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        List<Entry> entries = new ArrayList<>();
+        int pos = 0;
+        while (pos + CEN_SIZE <= buf.limit() && buf.getInt(pos) == CEN_SIGNATURE) {
+            int method = u16(buf, pos + 10);
+            long compressedSize = u32(buf, pos + 20);
+            long size = u32(buf, pos + 24);
+            int nameLength = u16(buf, pos + 28);
+            int extraLength = u16(buf, pos + 30);
+            int commentLength = u16(buf, pos + 32);
+            long localHeaderOffset = u32(buf, pos + 42);
+            if (pos + CEN_SIZE + nameLength + extraLength > buf.limit()) {
+                throw new IOException("Truncated central directory");
+            }
+            String name = readString(buf, pos + CEN_SIZE, nameLength);
+
+            // zip64 extra field holds only the values which overflowed, in that order
+            int extraPos = pos + CEN_SIZE + nameLength;
+            int extraEnd = extraPos + extraLength;
+            while (extraPos + 4 <= extraEnd) {
+                int id = u16(buf, extraPos);
+                int dataSize = u16(buf, extraPos + 2);
+                if (id == 0x0001) {
+                    int valuePos = extraPos + 4;
+                    if (size == MAX_U32 && valuePos + 8 <= extraEnd) {
+                        size = buf.getLong(valuePos);
+                        valuePos += 8;
+                    }
+                    if (compressedSize == MAX_U32 && valuePos + 8 <= extraEnd) {
+                        compressedSize = buf.getLong(valuePos);
+                        valuePos += 8;
+                    }
+                    if (localHeaderOffset == MAX_U32 && valuePos + 8 <= extraEnd) {
+                        localHeaderOffset = buf.getLong(valuePos);
+                    }
+                }
+                extraPos += 4 + dataSize;
+            }
+
+            entries.add(new Entry(name, method, compressedSize, size, localHeaderOffset, nameLength + extraLength));
+            pos += CEN_SIZE + nameLength + extraLength + commentLength;
+        }
+        return entries;
+    }
+
+    /* position of the entry data relative to its local header, which must be at the beginning of the buffer */
+    static int dataOffset(ByteBuffer local, Entry entry) throws IOException {
+        ByteBuffer buf = local.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (buf.limit() < LOC_SIZE || buf.getInt(0) != LOC_SIGNATURE) {
+            throw new IOException("Invalid local header of entry [%s]".formatted(entry.name()));
+        }
+        int dataStart = LOC_SIZE + u16(buf, 26) + u16(buf, 28);
+        if (dataStart > buf.limit()) {
+            throw new IOException("Truncated local header of entry [%s]".formatted(entry.name()));
+        }
+        return dataStart;
+    }
+
+    /* reads first bytes of the entry data, local header must be at the beginning of the buffer */
+    static byte[] readEntryPrefix(ByteBuffer local, Entry entry, int length) throws IOException {
+        int dataStart = dataOffset(local, entry);
+        int wanted = (int) Math.min(length, entry.size());
+        int available = (int) Math.min(local.limit() - dataStart, entry.compressedSize());
+        byte[] data = new byte[available];
+        local.get(dataStart, data);
+        return switch (entry.method()) {
+            case 0 -> {
+                if (available < wanted) {
+                    throw new IOException("Not enough data of entry [%s]".formatted(entry.name()));
+                }
+                yield Arrays.copyOf(data, wanted);
+            }
+            case 8 -> inflate(data, wanted, entry);
+            default -> throw new IOException("Unsupported compression method [%d] of entry [%s]".formatted(entry.method(), entry.name()));
+        };
+    }
+
+    /* stream of the entry data available in the buffer, so it ends early if the buffer holds only a part of the entry */
+    static InputStream openEntry(ByteBuffer local, Entry entry) throws IOException {
+        int dataStart = dataOffset(local, entry);
+        int available = (int) Math.min(local.limit() - dataStart, entry.compressedSize());
+        byte[] data = new byte[available];
+        local.get(dataStart, data);
+        return switch (entry.method()) {
+            case 0 -> new ByteArrayInputStream(data);
+            case 8 -> new InflaterInputStream(new ByteArrayInputStream(data), new Inflater(true));
+            default -> throw new IOException("Unsupported compression method [%d] of entry [%s]".formatted(entry.method(), entry.name()));
+        };
+    }
+
+    private static byte[] inflate(byte[] data, int length, Entry entry) throws IOException {
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(data);
+            byte[] result = new byte[length];
+            int read = 0;
+            while (read < length) {
+                int inflated = inflater.inflate(result, read, length - read);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput() || inflater.needsDictionary())) {
+                    break;
+                }
+                read += inflated;
+            }
+            if (read < length) {
+                throw new IOException("Not enough data to inflate entry [%s]".formatted(entry.name()));
+            }
+            return result;
+        } catch (DataFormatException e) {
+            throw new IOException("Inflating entry [%s] failed".formatted(entry.name()), e);
+        } finally {
+            inflater.end();
+        }
+    }
+
+    private static String readString(ByteBuffer buf, int pos, int length) {
+        byte[] bytes = new byte[length];
+        buf.get(pos, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static int u16(ByteBuffer buf, int pos) {
+        return Short.toUnsignedInt(buf.getShort(pos));
+    }
+
+    private static long u32(ByteBuffer buf, int pos) {
+        return Integer.toUnsignedLong(buf.getInt(pos));
+    }
+
+    record End(long centralDirectoryOffset, long centralDirectorySize, long entries) {}
+
+    record Entry(String name, int method, long compressedSize, long size, long localHeaderOffset, int centralNameAndExtraLength) {
+        boolean isClass() {
+            return name.endsWith(".class") && !name.endsWith("module-info.class");
+        }
+
+        /* the same data under another name, e.g. classes of a war without the WEB-INF/classes/ prefix */
+        Entry withName(String newName) {
+            return new Entry(newName, method, compressedSize, size, localHeaderOffset, centralNameAndExtraLength);
+        }
+
+        /* upper bound of bytes needed to read the given amount of (possibly deflated) data */
+        long localRangeLength(int dataLength) {
+            long data = method == 0 ? dataLength : Math.max(512, dataLength * 2L);
+            return LOC_SIZE + centralNameAndExtraLength + LOCAL_HEADER_SLACK + Math.min(compressedSize, data);
+        }
+    }
+}
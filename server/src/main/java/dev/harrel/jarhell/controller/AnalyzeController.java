@@ -1,12 +1,18 @@
 package dev.harrel.jarhell.controller;
 
+import dev.harrel.jarhell.analyze.AnalysisJob;
 import dev.harrel.jarhell.analyze.AnalyzeEngine;
+import dev.harrel.jarhell.error.BadRequestException;
 import dev.harrel.jarhell.model.Gav;
 import io.avaje.http.api.Controller;
 import io.avaje.http.api.Post;
+import io.avaje.http.api.QueryParam;
 import io.javalin.http.Context;
+import io.javalin.http.Header;
 import io.javalin.http.HttpStatus;
 
+import java.time.Duration;
+
 @Controller("/api/v1")
 class AnalyzeController {
     private final AnalyzeEngine analyzeEngine;
@@ -16,14 +22,29 @@ class AnalyzeController {
     }
 
     @Post("/analyze")
-    void analyze(Gav gav, Context ctx) {
-        analyzeEngine.analyze(gav);
-        ctx.status(HttpStatus.ACCEPTED);
+    void analyze(Gav gav, @QueryParam Long maxAge, Context ctx) {
+        AnalysisJob job = analyzeEngine.submit(gav, toMaxAge(maxAge));
+        ctx.status(HttpStatus.ACCEPTED)
+                .header(Header.LOCATION, "/api/v1/jobs/" + job.id())
+                .json(job.status());
     }
 
     @Post("/analyze-and-wait")
-    void analyzeAndWait(Gav gav, Context ctx) {
-        analyzeEngine.analyze(gav).join();
-        ctx.redirect("/api/v1/packages/%s?depth=1".formatted(gav));
+    void analyzeAndWait(Gav gav, @QueryParam Long maxAge, Context ctx) {
+        AnalysisJob job = analyzeEngine.submit(gav, toMaxAge(maxAge));
+        // request thread is released while waiting
+        ctx.future(() -> job.future()
+                .thenRun(() -> ctx.redirect("/api/v1/packages/%s?depth=1".formatted(gav))));
+    }
+
+    /* maxAge is in seconds, same as in Cache-Control header */
+    static Duration toMaxAge(Long maxAge) {
+        if (maxAge == null) {
+            return null;
+        }
+        if (maxAge < 0) {
+            throw new BadRequestException("maxAge parameter cannot be negative");
+        }
+        return Duration.ofSeconds(maxAge);
     }
 }
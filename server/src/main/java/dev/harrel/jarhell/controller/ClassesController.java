@@ -0,0 +1,45 @@
+package dev.harrel.jarhell.controller;
+
+import dev.harrel.jarhell.error.BadRequestException;
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.repo.ClassIndex;
+import io.avaje.http.api.Controller;
+import io.avaje.http.api.Get;
+import io.avaje.http.api.QueryParam;
+
+import java.util.List;
+import java.util.Objects;
+
+@Controller("/api/v1/classes")
+class ClassesController {
+    private static final int DEFAULT_LIMIT = 100;
+    private static final int MAX_LIMIT = 1000;
+
+    private final ClassIndex classIndex;
+
+    ClassesController(ClassIndex classIndex) {
+        this.classIndex = classIndex;
+    }
+
+    /* fully qualified class name, e.g. org.slf4j.Logger */
+    @Get
+    List<Gav> find(@QueryParam String name) {
+        if (name == null) {
+            throw new BadRequestException("name parameter is required");
+        }
+        return classIndex.find(name);
+    }
+
+    /* class name or package prefix, e.g. org.slf4j. */
+    @Get("/search")
+    List<ClassIndex.Match> search(@QueryParam String prefix, @QueryParam Integer limit) {
+        if (prefix == null || prefix.isEmpty()) {
+            throw new BadRequestException("prefix parameter is required");
+        }
+        int limitParam = Objects.requireNonNullElse(limit, DEFAULT_LIMIT);
+        if (limitParam < 1 || limitParam > MAX_LIMIT) {
+            throw new BadRequestException("limit parameter must be between 1 and %d".formatted(MAX_LIMIT));
+        }
+        return classIndex.findByPrefix(prefix, limitParam);
+    }
+}
@@ -0,0 +1,38 @@
+package dev.harrel.jarhell.controller;
+
+import dev.harrel.jarhell.analyze.AnalysisJob;
+import dev.harrel.jarhell.analyze.JobRegistry;
+import dev.harrel.jarhell.error.ResourceNotFoundException;
+import io.avaje.http.api.Controller;
+import io.avaje.http.api.Get;
+import io.javalin.http.Context;
+import io.javalin.http.Header;
+
+import java.time.Duration;
+import java.time.Instant;
+
+@Controller("/api/v1/jobs")
+class JobsController {
+    private final JobRegistry jobRegistry;
+
+    JobsController(JobRegistry jobRegistry) {
+        this.jobRegistry = jobRegistry;
+    }
+
+    @Get("/{id}")
+    AnalysisJob.Status get(String id, Context ctx) {
+        AnalysisJob job = jobRegistry.find(id)
+                .orElseThrow(() -> new ResourceNotFoundException("Job with id [%s] not found".formatted(id)));
+        AnalysisJob.Status status = job.status();
+        if (!job.isFinished()) {
+            ctx.header(Header.RETRY_AFTER, String.valueOf(retryAfter(status)));
+        }
+        return status;
+    }
+
+    /* the longer the job runs, the less often it is worth asking (1-30s) */
+    private static long retryAfter(AnalysisJob.Status status) {
+        long elapsed = Duration.between(status.submitted(), Instant.now()).toSeconds();
+        return Math.clamp(elapsed / 10, 1, 30);
+    }
+}
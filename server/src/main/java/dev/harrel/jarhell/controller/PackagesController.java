@@ -1,24 +1,37 @@
 package dev.harrel.jarhell.controller;
 
+import dev.harrel.jarhell.analyze.AnalyzeEngine;
+import dev.harrel.jarhell.analyze.ConflictDetector;
+import dev.harrel.jarhell.analyze.SizeRollup;
 import dev.harrel.jarhell.error.BadRequestException;
 import dev.harrel.jarhell.error.ResourceNotFoundException;
 import dev.harrel.jarhell.model.ArtifactInfo;
 import dev.harrel.jarhell.model.ArtifactTree;
+import dev.harrel.jarhell.model.ConflictReport;
 import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.model.SizeReport;
 import dev.harrel.jarhell.repo.ArtifactRepository;
 import io.avaje.http.api.Controller;
 import io.avaje.http.api.Get;
 import io.avaje.http.api.QueryParam;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Optional;
 
 @Controller("/api/v1/packages")
 class PackagesController {
     private final ArtifactRepository artifactRepository;
+    private final AnalyzeEngine analyzeEngine;
+    private final ConflictDetector conflictDetector;
+    private final SizeRollup sizeRollup;
 
-    PackagesController(ArtifactRepository artifactRepository) {
+    PackagesController(ArtifactRepository artifactRepository, AnalyzeEngine analyzeEngine, ConflictDetector conflictDetector,
+                       SizeRollup sizeRollup) {
         this.artifactRepository = artifactRepository;
+        this.analyzeEngine = analyzeEngine;
+        this.conflictDetector = conflictDetector;
+        this.sizeRollup = sizeRollup;
     }
 
     @Get
@@ -66,13 +79,31 @@ class PackagesController {
     }
 
     @Get("/{coordinate}")
-    ArtifactTree get(String coordinate, @QueryParam Integer depth) {
+    ArtifactTree get(String coordinate, @QueryParam Integer depth, @QueryParam Long maxAge) {
         Gav gav = Gav.fromCoordinate(coordinate)
                 .orElseThrow(() -> new BadRequestException("Invalid artifact coordinate format [%s]".formatted(coordinate)));
         Integer depthParam = Optional.ofNullable(depth).orElse(-1);
-        return artifactRepository.find(gav, depthParam)
+        Duration maxAgeParam = AnalyzeController.toMaxAge(maxAge);
+        ArtifactTree artifactTree = artifactRepository.find(gav, depthParam)
                 .orElseThrow(() -> new ResourceNotFoundException(gav));
+        analyzeEngine.refreshIfStale(artifactTree.artifactInfo(), maxAgeParam);
+        return artifactTree;
+    }
 
+    @Get("/{coordinate}/conflicts")
+    ConflictReport getConflicts(String coordinate) {
+        Gav gav = Gav.fromCoordinate(coordinate)
+                .orElseThrow(() -> new BadRequestException("Invalid artifact coordinate format [%s]".formatted(coordinate)));
+        return conflictDetector.detect(gav)
+                .orElseThrow(() -> new ResourceNotFoundException(gav));
+    }
+
+    @Get("/{coordinate}/size")
+    SizeReport getSize(String coordinate) {
+        Gav gav = Gav.fromCoordinate(coordinate)
+                .orElseThrow(() -> new BadRequestException("Invalid artifact coordinate format [%s]".formatted(coordinate)));
+        return sizeRollup.rollup(gav)
+                .orElseThrow(() -> new ResourceNotFoundException(gav));
     }
 
     record SearchResult(String g, String a) {}
@@ -1,29 +1,63 @@
 package dev.harrel.jarhell.controller;
 
+import dev.harrel.jarhell.CircuitBreaker;
+import dev.harrel.jarhell.CircuitBreakers;
+import dev.harrel.jarhell.HedgePolicy;
 import dev.harrel.jarhell.analyze.AnalyzeEngine;
 import dev.harrel.jarhell.analyze.ArtifactProcessor;
+import dev.harrel.jarhell.analyze.ConcurrencyLimits;
 import dev.harrel.jarhell.analyze.MavenIndexService;
+import dev.harrel.jarhell.analyze.ReleaseWatcher;
 import dev.harrel.jarhell.analyze.RepoWalker;
+import dev.harrel.jarhell.error.BadRequestException;
+import dev.harrel.jarhell.error.ResourceNotFoundException;
 import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.trace.PinningMonitor;
+import dev.harrel.jarhell.trace.Trace;
+import dev.harrel.jarhell.trace.TraceStore;
 import io.avaje.config.Config;
 import io.avaje.http.api.Controller;
+import io.avaje.http.api.Get;
 import io.avaje.http.api.Post;
 import io.avaje.http.api.QueryParam;
 import io.javalin.http.Context;
 import io.javalin.http.HttpStatus;
 
+import java.util.List;
+
 @Controller("/technical/v1")
 class TechnicalController {
     private final MavenIndexService indexService;
     private final AnalyzeEngine analyzeEngine;
     private final RepoWalker repoWalker;
     private final ArtifactProcessor artifactProcessor;
+    private final ReleaseWatcher releaseWatcher;
+    private final TraceStore traceStore;
+    private final PinningMonitor pinningMonitor;
+    private final ConcurrencyLimits concurrencyLimits;
+    private final CircuitBreakers circuitBreakers;
+    private final HedgePolicy hedgePolicy;
 
-    TechnicalController(MavenIndexService indexService, AnalyzeEngine analyzeEngine, RepoWalker repoWalker, ArtifactProcessor artifactProcessor) {
+    TechnicalController(MavenIndexService indexService,
+                        AnalyzeEngine analyzeEngine,
+                        RepoWalker repoWalker,
+                        ArtifactProcessor artifactProcessor,
+                        ReleaseWatcher releaseWatcher,
+                        TraceStore traceStore,
+                        PinningMonitor pinningMonitor,
+                        ConcurrencyLimits concurrencyLimits,
+                        CircuitBreakers circuitBreakers,
+                        HedgePolicy hedgePolicy) {
         this.indexService = indexService;
         this.analyzeEngine = analyzeEngine;
         this.repoWalker = repoWalker;
         this.artifactProcessor = artifactProcessor;
+        this.releaseWatcher = releaseWatcher;
+        this.traceStore = traceStore;
+        this.pinningMonitor = pinningMonitor;
+        this.concurrencyLimits = concurrencyLimits;
+        this.circuitBreakers = circuitBreakers;
+        this.hedgePolicy = hedgePolicy;
     }
 
     @Post("/refresh-index")
@@ -49,4 +83,61 @@ class TechnicalController {
     void stopProcessor() {
         artifactProcessor.stop();
     }
+
+    @Get("/watcher")
+    ReleaseWatcher.Status watcherStatus() {
+        return releaseWatcher.status();
+    }
+
+    @Post("/watcher/start")
+    void startWatcher() {
+        releaseWatcher.start();
+    }
+
+    @Post("/watcher/stop")
+    void stopWatcher() {
+        releaseWatcher.stop();
+    }
+
+    @Get("/traces/{coordinate}")
+    Trace.View trace(String coordinate) {
+        Gav gav = Gav.fromCoordinate(coordinate)
+                .orElseThrow(() -> new BadRequestException("Invalid artifact coordinate format [%s]".formatted(coordinate)));
+        return traceStore.findLatest(gav.toString())
+                .orElseThrow(() -> new ResourceNotFoundException("Trace for [%s] not found".formatted(gav)));
+    }
+
+    @Get("/pinning")
+    List<PinningMonitor.Site> pinning() {
+        return pinningMonitor.sites();
+    }
+
+    @Post("/pinning/reset")
+    void resetPinning() {
+        pinningMonitor.reset();
+    }
+
+    @Get("/concurrency")
+    List<ConcurrencyLimits.Status> concurrency() {
+        return concurrencyLimits.status();
+    }
+
+    @Get("/breakers")
+    List<CircuitBreaker.Status> breakers() {
+        return circuitBreakers.status();
+    }
+
+    @Get("/hedging")
+    HedgePolicy.Status hedging() {
+        return hedgePolicy.status();
+    }
+
+    @Post("/concurrency/{name}")
+    ConcurrencyLimits.Status setConcurrency(String name, @QueryParam Integer limit) {
+        if (limit == null || limit < 1) {
+            throw new BadRequestException("limit parameter must be a positive number");
+        }
+        return concurrencyLimits.resize(name, limit)
+                .orElseThrow(() -> new ResourceNotFoundException("Concurrency limit [%s] not found".formatted(name)));
+    }
 }
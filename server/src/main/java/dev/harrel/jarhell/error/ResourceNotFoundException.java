@@ -6,4 +6,8 @@ public class ResourceNotFoundException extends RuntimeException {
     public ResourceNotFoundException(Gav gav) {
         super("Package with coordinates [%s] not found".formatted(gav));
     }
+
+    public ResourceNotFoundException(String message) {
+        super(message);
+    }
 }
@@ -0,0 +1,131 @@
+package dev.harrel.jarhell.maven;
+
+import dev.harrel.jarhell.HttpArchive;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.*;
+import org.eclipse.aether.transfer.NoTransporterException;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Set;
+
+/* Records or replays resolver HTTP traffic using the same archive as CustomHttpClient.
+ * When the archive is off, it refuses to create transporter, so the regular HTTP transporter is used */
+public class ArchiveTransporterFactory implements TransporterFactory {
+    private static final Set<String> PROTOCOLS = Set.of("http", "https");
+
+    private final HttpArchive archive;
+    private final TransporterFactory delegate;
+
+    public ArchiveTransporterFactory(HttpArchive archive, TransporterFactory delegate) {
+        this.archive = archive;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository) throws NoTransporterException {
+        if (archive.mode() == HttpArchive.Mode.OFF || !PROTOCOLS.contains(repository.getProtocol())) {
+            throw new NoTransporterException(repository);
+        }
+        URI baseUri = URI.create(repository.getUrl().endsWith("/") ? repository.getUrl() : repository.getUrl() + "/");
+        Transporter transporter = archive.mode() == HttpArchive.Mode.RECORD ? delegate.newInstance(session, repository) : null;
+        return new ArchiveTransporter(archive, baseUri, transporter);
+    }
+
+    @Override
+    public float getPriority() {
+        return 100.0f;
+    }
+
+    private static class ArchiveTransporter extends AbstractTransporter {
+        private final HttpArchive archive;
+        private final URI baseUri;
+        private final Transporter delegate;
+
+        ArchiveTransporter(HttpArchive archive, URI baseUri, Transporter delegate) {
+            this.archive = archive;
+            this.baseUri = baseUri;
+            this.delegate = delegate;
+        }
+
+        @Override
+        public int classify(Throwable error) {
+            if (error instanceof NotRecordedException) {
+                return ERROR_NOT_FOUND;
+            }
+            return delegate == null ? ERROR_OTHER : delegate.classify(error);
+        }
+
+        @Override
+        protected void implPeek(PeekTask task) throws Exception {
+            String url = baseUri.resolve(task.getLocation()).toString();
+            if (delegate == null) {
+                replay("HEAD", url);
+                return;
+            }
+            try {
+                delegate.peek(task);
+                archive.record("HEAD", url, null, new HttpArchive.Entry(200, List.of(), new byte[0]));
+            } catch (Exception e) {
+                recordNotFound("HEAD", url, e);
+                throw e;
+            }
+        }
+
+        @Override
+        protected void implGet(GetTask task) throws Exception {
+            String url = baseUri.resolve(task.getLocation()).toString();
+            if (delegate == null) {
+                byte[] body = replay("GET", url).body();
+                utilGet(task, new ByteArrayInputStream(body), true, body.length, false);
+                return;
+            }
+            try {
+                delegate.get(task);
+                byte[] body = task.getDataFile() != null ? Files.readAllBytes(task.getDataFile().toPath()) : task.getDataBytes();
+                archive.record("GET", url, null, new HttpArchive.Entry(200, List.of(), body));
+            } catch (Exception e) {
+                recordNotFound("GET", url, e);
+                throw e;
+            }
+        }
+
+        /* uploads are not archived, when replaying there is nothing to send them to */
+        @Override
+        protected void implPut(PutTask task) throws Exception {
+            if (delegate == null) {
+                throw new IOException("Cannot upload [%s] while replaying".formatted(task.getLocation()));
+            }
+            delegate.put(task);
+        }
+
+        @Override
+        protected void implClose() {
+            if (delegate != null) {
+                delegate.close();
+            }
+        }
+
+        private HttpArchive.Entry replay(String method, String url) throws NotRecordedException {
+            return archive.find(method, url, null)
+                    .filter(entry -> entry.status() < 400)
+                    .orElseThrow(() -> new NotRecordedException(method + " " + url));
+        }
+
+        private void recordNotFound(String method, String url, Exception e) {
+            if (delegate.classify(e) == ERROR_NOT_FOUND) {
+                archive.record(method, url, null, new HttpArchive.Entry(404, List.of(), new byte[0]));
+            }
+        }
+    }
+
+    private static class NotRecordedException extends Exception {
+        NotRecordedException(String message) {
+            super(message);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package dev.harrel.jarhell.maven;
+
+import dev.harrel.jarhell.CircuitBreaker;
+import org.eclipse.aether.RepositorySystemSession;
+import org.eclipse.aether.repository.RemoteRepository;
+import org.eclipse.aether.spi.connector.transport.*;
+import org.eclipse.aether.transfer.NoTransporterException;
+
+import java.util.Set;
+
+/* Guards resolver HTTP traffic with a circuit breaker, so resolution fails fast while the repository is down.
+ * Not found is an answer, only other errors count as failures */
+public class BreakerTransporterFactory implements TransporterFactory {
+    private static final Set<String> PROTOCOLS = Set.of("http", "https");
+
+    private final CircuitBreaker breaker;
+    private final TransporterFactory delegate;
+
+    public BreakerTransporterFactory(CircuitBreaker breaker, TransporterFactory delegate) {
+        this.breaker = breaker;
+        this.delegate = delegate;
+    }
+
+    @Override
+    public Transporter newInstance(RepositorySystemSession session, RemoteRepository repository) throws NoTransporterException {
+        if (!PROTOCOLS.contains(repository.getProtocol())) {
+            throw new NoTransporterException(repository);
+        }
+        return new BreakerTransporter(breaker, delegate.newInstance(session, repository));
+    }
+
+    /* below archive transporter, above the plain HTTP one */
+    @Override
+    public float getPriority() {
+        return 50.0f;
+    }
+
+    private record BreakerTransporter(CircuitBreaker breaker, Transporter delegate) implements Transporter {
+        @Override
+        public int classify(Throwable error) {
+            if (error instanceof CircuitBreaker.OpenException) {
+                return ERROR_OTHER;
+            }
+            return delegate.classify(error);
+        }
+
+        @Override
+        public void peek(PeekTask task) throws Exception {
+            guarded(() -> delegate.peek(task));
+        }
+
+        @Override
+        public void get(GetTask task) throws Exception {
+            guarded(() -> delegate.get(task));
+        }
+
+        @Override
+        public void put(PutTask task) throws Exception {
+            delegate.put(task);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+
+        private void guarded(Call call) throws Exception {
+            if (!breaker.tryAcquire()) {
+                throw new CircuitBreaker.OpenException(breaker.name());
+            }
+            try {
+                call.run();
+                breaker.onSuccess();
+            } catch (Exception e) {
+                if (delegate.classify(e) == ERROR_NOT_FOUND) {
+                    breaker.onSuccess();
+                } else {
+                    breaker.onFailure();
+                }
+                throw e;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface Call {
+        void run() throws Exception;
+    }
+}
@@ -6,6 +6,7 @@ import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.SortedMap;
 
 public record ArtifactInfo(String groupId,
                            String artifactId,
@@ -17,6 +18,14 @@ public record ArtifactInfo(String groupId,
                            LocalDateTime created,
                            Long packageSize,
                            String bytecodeVersion,
+                           String minBytecodeVersion,
+                           SortedMap<String, Long> bytecodeVersions,
+                           String moduleName,
+                           Boolean multiRelease,
+                           List<Integer> releaseVersions,
+                           Integer classCount,
+                           Boolean nativeLibraries,
+                           List<SizeComponent> sizeComposition,
                            String packaging,
                            String name,
                            String description,
@@ -31,13 +40,14 @@ public record ArtifactInfo(String groupId,
                            LocalDateTime analyzed) {
     public static ArtifactInfo unresolved(Gav gav, String reason) {
         return new ArtifactInfo(gav.groupId(), gav.artifactId(), gav.version(), gav.classifier(), true, 1, reason,
-                null, null, null, null, null, null, null, null,
-                null, null, null, null, null, null, null);
+                null, null, null, null, null, null, null, null, null, null, null, null, null, null, null,
+                null, null, null, null, null, null, null, null);
     }
 
     public ArtifactInfo withEffectiveValues(EffectiveValues effectiveValues) {
         return new ArtifactInfo(groupId, artifactId, version, classifier, unresolved, unresolvedCount, unresolvedReason, created, packageSize, bytecodeVersion,
-                packaging, name, description, url, scmUrl, issuesUrl, inceptionYear, licenses, licenseTypes, classifiers, effectiveValues, analyzed);
+                minBytecodeVersion, bytecodeVersions, moduleName, multiRelease, releaseVersions, classCount, nativeLibraries,
+                sizeComposition, packaging, name, description, url, scmUrl, issuesUrl, inceptionYear, licenses, licenseTypes, classifiers, effectiveValues, analyzed);
     }
 
     public record EffectiveValues(Integer requiredDependencies,
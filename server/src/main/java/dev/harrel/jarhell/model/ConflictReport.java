@@ -0,0 +1,15 @@
+package dev.harrel.jarhell.model;
+
+import java.util.List;
+
+/* classes and packages present in more than one artifact of the runtime tree.
+ * Duplicated classes are grouped by the set of artifacts containing them, examples are limited */
+public record ConflictReport(Gav root,
+                             int artifacts,
+                             List<Gav> missingListings,
+                             List<DuplicateClasses> duplicateClasses,
+                             List<SplitPackage> splitPackages) {
+    public record DuplicateClasses(List<Gav> artifacts, int count, List<String> examples) {}
+
+    public record SplitPackage(String name, List<Gav> artifacts) {}
+}
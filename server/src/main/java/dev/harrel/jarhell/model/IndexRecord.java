@@ -0,0 +1,11 @@
+package dev.harrel.jarhell.model;
+
+import java.util.Set;
+
+/* metadata of an artifact's main file as published in the Maven index, lastModified is in epoch millis.
+ * Rows of classified files contribute only their classifier, so a partial record has some fields missing */
+public record IndexRecord(Gav gav, String packaging, Long lastModified, Long size, String extension, Set<String> classifiers) {
+    public boolean isComplete() {
+        return packaging != null && lastModified != null && size != null && extension != null;
+    }
+}
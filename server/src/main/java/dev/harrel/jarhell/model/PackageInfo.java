@@ -1,5 +1,35 @@
 package dev.harrel.jarhell.model;
 
 import java.time.LocalDateTime;
+import java.util.Comparator;
+import java.util.List;
+import java.util.SortedMap;
 
-public record PackageInfo(LocalDateTime created, Long size, String bytecodeVersion) {}
+/* bytecodeVersion is the highest one found, bytecodeVersions counts only sampled classes */
+public record PackageInfo(LocalDateTime created,
+                          Long size,
+                          String bytecodeVersion,
+                          String minBytecodeVersion,
+                          SortedMap<String, Long> bytecodeVersions,
+                          String moduleName,
+                          Boolean multiRelease,
+                          List<Integer> releaseVersions,
+                          Integer classCount,
+                          Boolean nativeLibraries,
+                          List<String> classNames,
+                          List<SizeComponent> sizeComposition) {
+    /* "major.minor" compared as numbers, as strings "100.0" would come before "52.0" */
+    public static final Comparator<String> BYTECODE_VERSION_ORDER = Comparator
+            .<String>comparingInt(version -> Integer.parseInt(version.substring(0, version.indexOf('.'))))
+            .thenComparingInt(version -> Integer.parseInt(version.substring(version.indexOf('.') + 1)));
+
+    /* only basic info is known, e.g. for non-jar packages */
+    public PackageInfo(LocalDateTime created, Long size, String bytecodeVersion) {
+        this(created, size, bytecodeVersion, null, null, null, null, null, null, null, null, null);
+    }
+
+    public PackageInfo withSizeComposition(List<SizeComponent> newSizeComposition) {
+        return new PackageInfo(created, size, bytecodeVersion, minBytecodeVersion, bytecodeVersions, moduleName, multiRelease,
+                releaseVersions, classCount, nativeLibraries, classNames, newSizeComposition);
+    }
+}
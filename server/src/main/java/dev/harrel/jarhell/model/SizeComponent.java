@@ -0,0 +1,18 @@
+package dev.harrel.jarhell.model;
+
+/* part of a package grouped by kind of entries, packagePrefix is set only for shaded classes */
+public record SizeComponent(String kind,
+                            String packagePrefix,
+                            long entries,
+                            long size,
+                            long compressedSize) {
+    public static final String CLASSES = "classes";
+    public static final String SHADED_CLASSES = "shaded-classes";
+    public static final String RESOURCES = "resources";
+    public static final String NATIVE_LIBRARIES = "native-libraries";
+    public static final String ARCHIVES = "archives";
+
+    public SizeComponent plus(SizeComponent other) {
+        return new SizeComponent(kind, packagePrefix, entries + other.entries, size + other.size, compressedSize + other.compressedSize);
+    }
+}
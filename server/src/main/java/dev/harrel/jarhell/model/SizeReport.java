@@ -0,0 +1,13 @@
+package dev.harrel.jarhell.model;
+
+import java.util.List;
+
+/* size composition of the runtime tree, summed up and per artifact (biggest first).
+ * Artifacts analyzed before compositions were recorded are listed as missing */
+public record SizeReport(Gav root,
+                         long size,
+                         List<Gav> missingCompositions,
+                         List<SizeComponent> composition,
+                         List<ArtifactSize> artifacts) {
+    public record ArtifactSize(Gav artifact, long size, List<SizeComponent> composition) {}
+}
@@ -104,6 +104,7 @@ public class ArtifactRepository {
         }
     }
 
+    /* failed dependencies are left to the retry of their parent, which updates the parent as well */
     public List<Gav> findAllUnresolved(int limit, int unresolvedCountLimit) {
         try (var session = session()) {
             return session.executeRead(tx -> {
@@ -112,6 +113,13 @@ public class ArtifactRepository {
                                 WHERE
                                     root.unresolved = true
                                     AND coalesce(root.unresolvedCount, 1) < $unresolvedCountLimit
+                                    AND NOT EXISTS {
+                                        MATCH (parent:Artifact)-[:DEPENDS_ON]->(root)
+                                        WHERE
+                                            coalesce(parent.failedDependenciesCount, 1) < $unresolvedCountLimit
+                                            AND root.groupId + ':' + root.artifactId + ':' + root.version +
+                                                CASE root.classifier WHEN '' THEN '' ELSE ':' + root.classifier END IN parent.failedDependencies
+                                    }
                                 RETURN root.groupId, root.artifactId, root.version, root.classifier
                                 LIMIT $limit""",
                         parameters("limit", limit, "unresolvedCountLimit", unresolvedCountLimit)
@@ -148,6 +156,80 @@ public class ArtifactRepository {
         }
     }
 
+    public Map<Gav, List<Gav>> findAllWithFailedDependencies(int limit, int retryCountLimit) {
+        try (var session = session()) {
+            return session.executeRead(tx -> {
+                Result res = tx.run("""
+                                MATCH (root:Artifact)
+                                WHERE
+                                    root.failedDependencies IS NOT NULL
+                                    AND coalesce(root.failedDependenciesCount, 1) < $retryCountLimit
+                                RETURN root.groupId, root.artifactId, root.version, root.classifier, root.failedDependencies
+                                LIMIT $limit""",
+                        parameters("limit", limit, "retryCountLimit", retryCountLimit)
+                );
+                Map<Gav, List<Gav>> result = new LinkedHashMap<>();
+                res.forEachRemaining(rec -> result.put(
+                        new Gav(
+                                rec.get("root.groupId").asString(),
+                                rec.get("root.artifactId").asString(),
+                                rec.get("root.version").asString(),
+                                rec.get("root.classifier").asString()),
+                        rec.get("root.failedDependencies").asList(v -> Gav.fromCoordinate(v.asString()).orElseThrow())
+                ));
+                return result;
+            });
+        }
+    }
+
+    public int countArtifactGroups() {
+        try (var session = session()) {
+            return session.executeRead(tx -> {
+                Result res = tx.run("""
+                        MATCH (n:Artifact)
+                        WHERE n.classifier = ''
+                        RETURN count(DISTINCT [n.groupId, n.artifactId]) AS cnt""");
+                return res.single().get("cnt").asInt();
+            });
+        }
+    }
+
+    public List<ArtifactVersions> findArtifactVersions(int skip, int limit) {
+        try (var session = session()) {
+            return session.executeRead(tx -> {
+                Result res = tx.run("""
+                                MATCH (n:Artifact)
+                                WHERE n.classifier = ''
+                                WITH n.groupId AS groupId, n.artifactId AS artifactId, collect(n.version) AS versions
+                                ORDER BY groupId, artifactId
+                                SKIP $skip
+                                LIMIT $limit
+                                OPTIONAL MATCH (g:ArtifactGroup {groupId: groupId, artifactId: artifactId})
+                                RETURN groupId, artifactId, versions, g.etag AS etag, g.lastModified AS lastModified
+                                ORDER BY groupId, artifactId""",
+                        parameters("skip", skip, "limit", limit)
+                );
+                return res.list(rec -> new ArtifactVersions(
+                        rec.get("groupId").asString(),
+                        rec.get("artifactId").asString(),
+                        rec.get("versions").asList(Value::asString),
+                        rec.get("etag", (String) null),
+                        rec.get("lastModified", (String) null)
+                ));
+            });
+        }
+    }
+
+    /* validators of maven-metadata.xml are kept apart from the artifacts, so they survive a restart of the watcher */
+    public void saveMetadataValidators(String groupId, String artifactId, String etag, String lastModified) {
+        try (var session = session()) {
+            session.executeWriteWithoutResult(tx -> tx.run(new Query("""
+                            MERGE (g:ArtifactGroup {groupId: $groupId, artifactId: $artifactId})
+                            SET g.etag = $etag, g.lastModified = $lastModified""",
+                    parameters("groupId", groupId, "artifactId", artifactId, "etag", etag, "lastModified", lastModified))));
+        }
+    }
+
     public List<Gav> search(String token) {
         try (var session = session()) {
             return session.executeRead(tx -> {
@@ -259,6 +341,41 @@ public class ArtifactRepository {
         }
     }
 
+    /* only resolved artifacts are returned - unresolved ones should be analyzed again anyway */
+    public Map<Gav, ArtifactInfo> findMany(Collection<Gav> gavs) {
+        if (gavs.isEmpty()) {
+            return Map.of();
+        }
+        List<Map<String, Object>> gavMaps = gavs.stream().distinct().map(this::toGavMap).toList();
+        try (var session = session()) {
+            SummarizedResult result = session.executeRead(tx -> {
+                Result res = tx.run(new Query("""
+                        UNWIND $gavs AS gav
+                        MATCH (n:Artifact)
+                        WHERE
+                            n.groupId = gav.groupId
+                            AND n.artifactId = gav.artifactId
+                            AND n.version = gav.version
+                            AND n.classifier = gav.classifier
+                            AND n.unresolved IS NULL
+                        RETURN n""",
+                        parameters("gavs", gavMaps))
+                );
+                return new SummarizedResult(res.list(), res.consume());
+            });
+
+            logger.info("Querying for many artifacts - requested: {}, found: {}, availableAfter: {}ms, consumedAfter: {}ms",
+                    gavMaps.size(),
+                    result.records().size(),
+                    result.summary().resultAvailableAfter(TimeUnit.MILLISECONDS),
+                    result.summary().resultConsumedAfter(TimeUnit.MILLISECONDS)
+            );
+            return result.records().stream()
+                    .map(rec -> toArtifactProps(rec.get("n").asNode()))
+                    .collect(Collectors.toMap(this::toGav, this::toArtifactInfo, (a, _) -> a));
+        }
+    }
+
     public void saveArtifact(ArtifactInfo artifactInfo) {
         ArtifactProps artifactProps = toArtifactProps(artifactInfo);
         Map<String, Object> propsMap = objectMapper.convertValue(artifactProps, new TypeReference<>() {});
@@ -286,6 +403,36 @@ public class ArtifactRepository {
         }
     }
 
+    /* saveArtifact overwrites all properties, so the failures are cleared by a full re-analysis as well */
+    public void saveFailedDependencies(Gav gav, List<Gav> failedDeps) {
+        List<String> coordinates = failedDeps.stream().map(Gav::toString).toList();
+        try (var session = session()) {
+            session.executeWriteWithoutResult(tx -> {
+                if (coordinates.isEmpty()) {
+                    tx.run(new Query("""
+                            MATCH (a:Artifact)
+                            WHERE
+                                a.groupId = $gav.groupId
+                                AND a.artifactId = $gav.artifactId
+                                AND a.version = $gav.version
+                                AND a.classifier = $gav.classifier
+                            REMOVE a.failedDependencies, a.failedDependenciesCount""",
+                            parameters("gav", toGavMap(gav))));
+                } else {
+                    tx.run(new Query("""
+                            MATCH (a:Artifact)
+                            WHERE
+                                a.groupId = $gav.groupId
+                                AND a.artifactId = $gav.artifactId
+                                AND a.version = $gav.version
+                                AND a.classifier = $gav.classifier
+                            SET a.failedDependencies = $failed, a.failedDependenciesCount = coalesce(a.failedDependenciesCount, 0) + 1""",
+                            parameters("gav", toGavMap(gav), "failed", coordinates)));
+                }
+            });
+        }
+    }
+
     private void saveDependencies(TransactionContext tx, Gav parent, List<FlatDependency> deps) {
         Map<String, Object> parentGavMap = toGavMap(parent);
         List<Map<String, Map<String, Object>>> dependencies = deps.stream().map(dep -> {
@@ -293,6 +440,16 @@ public class ArtifactRepository {
             Map<String, Object> depProps = Map.of("optional", dep.optional(), "scope", dep.scope());
             return Map.of("parentGav", parentGavMap, "depGav", depGavMap, "depProps", depProps);
         }).toList();
+        // dependencies are replaced, so that re-analysis does not leave stale relations behind
+        tx.run(new Query("""
+                MATCH (a:Artifact)-[r:DEPENDS_ON]->()
+                WHERE
+                    a.groupId = $parentGav.groupId
+                    AND a.artifactId = $parentGav.artifactId
+                    AND a.version = $parentGav.version
+                    AND a.classifier = $parentGav.classifier
+                DELETE r""",
+                parameters("parentGav", parentGavMap)));
         tx.run(new Query("""
                 UNWIND $dependencies AS dep
                 MATCH (a:Artifact), (d:Artifact)
@@ -363,6 +520,15 @@ public class ArtifactRepository {
             if (artifactProps.licenseTypes() != null) {
                 licenseTypes = artifactProps.licenseTypes().stream().map(LicenseType::valueOf).toList();
             }
+            SortedMap<String, Long> bytecodeVersions = null;
+            if (artifactProps.bytecodeVersions() != null) {
+                bytecodeVersions = new TreeMap<>(PackageInfo.BYTECODE_VERSION_ORDER);
+                bytecodeVersions.putAll(objectMapper.readValue(artifactProps.bytecodeVersions(), new TypeReference<Map<String, Long>>() {}));
+            }
+            List<SizeComponent> sizeComposition = null;
+            if (artifactProps.sizeComposition() != null) {
+                sizeComposition = objectMapper.readValue(artifactProps.sizeComposition(), new TypeReference<>() {});
+            }
 
             ArtifactInfo.EffectiveValues effectiveValues = null;
             if (artifactProps.effectiveLicenseType() != null && artifactProps.effectiveLicenseTypes() != null) {
@@ -383,7 +549,9 @@ public class ArtifactRepository {
 
             return new ArtifactInfo(artifactProps.groupId(), artifactProps.artifactId(), artifactProps.version(), artifactProps.classifier(),
                     artifactProps.unresolved(), artifactProps.unresolvedCount(), artifactProps.unresolvedReason(), artifactProps.created(),
-                    artifactProps.packageSize(), artifactProps.bytecodeVersion(), artifactProps.packaging(), artifactProps.name(),
+                    artifactProps.packageSize(), artifactProps.bytecodeVersion(), artifactProps.minBytecodeVersion(), bytecodeVersions,
+                    artifactProps.moduleName(), artifactProps.multiRelease(), artifactProps.releaseVersions(), artifactProps.classCount(),
+                    artifactProps.nativeLibraries(), sizeComposition, artifactProps.packaging(), artifactProps.name(),
                     artifactProps.description(), artifactProps.url(), artifactProps.scmUrl(), artifactProps.issuesUrl(), artifactProps.inceptionYear(),
                     licenses, licenseTypes, artifactProps.classifiers(), effectiveValues, artifactProps.analyzed());
         } catch (JsonProcessingException e) {
@@ -405,6 +573,14 @@ public class ArtifactRepository {
             if (artifactInfo.licenseTypes() != null && !artifactInfo.licenseTypes().isEmpty()) {
                 licenseTypes = artifactInfo.licenseTypes().stream().map(Enum::name).toList();
             }
+            String bytecodeVersions = null;
+            if (artifactInfo.bytecodeVersions() != null && !artifactInfo.bytecodeVersions().isEmpty()) {
+                bytecodeVersions = objectMapper.writeValueAsString(artifactInfo.bytecodeVersions());
+            }
+            String sizeComposition = null;
+            if (artifactInfo.sizeComposition() != null && !artifactInfo.sizeComposition().isEmpty()) {
+                sizeComposition = objectMapper.writeValueAsString(artifactInfo.sizeComposition());
+            }
             Integer effectiveDependencies = null;
             Integer effectiveUnresolvedDependencies = null;
             Integer effectiveOptionalDependencies = null;
@@ -425,7 +601,9 @@ public class ArtifactRepository {
             }
             return new ArtifactProps(artifactInfo.groupId(), artifactInfo.artifactId(), artifactInfo.version(), artifactInfo.classifier(),
                     artifactInfo.unresolved(), artifactInfo.unresolvedCount(), artifactInfo.unresolvedReason(), artifactInfo.created(),
-                    artifactInfo.packageSize(), artifactInfo.bytecodeVersion(), artifactInfo.packaging(), artifactInfo.name(),
+                    artifactInfo.packageSize(), artifactInfo.bytecodeVersion(), artifactInfo.minBytecodeVersion(), bytecodeVersions,
+                    artifactInfo.moduleName(), artifactInfo.multiRelease(), artifactInfo.releaseVersions(), artifactInfo.classCount(),
+                    artifactInfo.nativeLibraries(), sizeComposition, artifactInfo.packaging(), artifactInfo.name(),
                     artifactInfo.description(), artifactInfo.url(), artifactInfo.scmUrl(), artifactInfo.issuesUrl(),
                     artifactInfo.inceptionYear(), licenses, licenseTypes, artifactInfo.classifiers(), effectiveDependencies,
                     effectiveUnresolvedDependencies, effectiveOptionalDependencies, effectiveSize,
@@ -435,6 +613,8 @@ public class ArtifactRepository {
         }
     }
 
+    public record ArtifactVersions(String groupId, String artifactId, List<String> versions, String etag, String lastModified) {}
+
     private record SummarizedResult(List<Record> records, ResultSummary summary) {}
 
     private record ArtifactProps(String groupId,
@@ -447,6 +627,14 @@ public class ArtifactRepository {
                                  LocalDateTime created,
                                  Long packageSize,
                                  String bytecodeVersion,
+                                 String minBytecodeVersion,
+                                 String bytecodeVersions,
+                                 String moduleName,
+                                 Boolean multiRelease,
+                                 List<Integer> releaseVersions,
+                                 Integer classCount,
+                                 Boolean nativeLibraries,
+                                 String sizeComposition,
                                  String packaging,
                                  String name,
                                  String description,
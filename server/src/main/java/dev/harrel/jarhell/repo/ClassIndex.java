@@ -0,0 +1,231 @@
+package dev.harrel.jarhell.repo;
+
+import dev.harrel.jarhell.model.Gav;
+import io.avaje.config.Config;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+/* Class name -> artifacts lookup. Listings of analyzed jars land in the listing log and in memory first,
+ * once enough of them pile up they are merged with the current segment into a new one, which replaces it.
+ * Listings in memory take precedence over the segment, so re-analyzed artifacts do not report stale classes */
+@Singleton
+public class ClassIndex {
+    private static final Logger logger = LoggerFactory.getLogger(ClassIndex.class);
+    private static final String SEGMENT_PREFIX = "segment-";
+
+    private final ClassListingRepository listingRepository;
+    private final Path directory;
+    private final int mergeThreshold;
+    private final ConcurrentHashMap<Gav, List<String>> pending = new ConcurrentHashMap<>();
+    private final AtomicBoolean merging = new AtomicBoolean();
+    private volatile ClassIndexSegment segment = ClassIndexSegment.EMPTY;
+
+    @Inject
+    ClassIndex(ClassListingRepository listingRepository) throws IOException {
+        this(listingRepository, Path.of(Config.get("jar-hell.class-index.path", "build/class-index")),
+                Config.getInt("jar-hell.class-index.merge-threshold", 500));
+    }
+
+    ClassIndex(ClassListingRepository listingRepository, Path directory, int mergeThreshold) throws IOException {
+        this.listingRepository = listingRepository;
+        this.directory = directory;
+        this.mergeThreshold = mergeThreshold;
+        Files.createDirectories(directory);
+        load();
+    }
+
+    public void add(Gav gav, List<String> classNames) {
+        pending.put(gav, classNames.stream().distinct().sorted().toList());
+        listingRepository.save(gav, classNames);
+        if (pending.size() >= mergeThreshold && merging.compareAndSet(false, true)) {
+            Thread.ofVirtual().name("class-index-merge").start(() -> {
+                try {
+                    merge();
+                } catch (Exception e) {
+                    logger.error("Merging class index failed", e);
+                } finally {
+                    merging.set(false);
+                }
+            });
+        }
+    }
+
+    public List<Gav> find(String className) {
+        ClassIndexSegment current = segment;
+        Stream<Gav> fromSegment = current.find(className).stream()
+                .flatMap(term -> toGavs(current, term));
+        Stream<Gav> fromPending = pending.entrySet().stream()
+                .filter(entry -> Collections.binarySearch(entry.getValue(), className) >= 0)
+                .map(Map.Entry::getKey);
+        return Stream.concat(fromSegment, fromPending).sorted().toList();
+    }
+
+    public List<Match> findByPrefix(String prefix, int limit) {
+        ClassIndexSegment current = segment;
+        TreeMap<String, SortedSet<Gav>> matches = new TreeMap<>();
+        Iterator<ClassIndexSegment.Term> terms = current.iterator(prefix);
+        int found = 0;
+        while (found < limit && terms.hasNext()) {
+            ClassIndexSegment.Term term = terms.next();
+            if (!term.className().startsWith(prefix)) {
+                break;
+            }
+            List<Gav> gavs = toGavs(current, term).toList();
+            if (!gavs.isEmpty()) {
+                matches.computeIfAbsent(term.className(), _ -> new TreeSet<>()).addAll(gavs);
+                found++;
+            }
+        }
+        pending.forEach((gav, classNames) -> {
+            int index = Collections.binarySearch(classNames, prefix);
+            int from = index < 0 ? -index - 1 : index;
+            for (int i = from; i < Math.min(classNames.size(), from + limit) && classNames.get(i).startsWith(prefix); i++) {
+                matches.computeIfAbsent(classNames.get(i), _ -> new TreeSet<>()).add(gav);
+            }
+        });
+        return matches.entrySet().stream()
+                .limit(limit)
+                .map(entry -> new Match(entry.getKey(), List.copyOf(entry.getValue())))
+                .toList();
+    }
+
+    /* writes pending listings together with the current segment into a new one */
+    synchronized void merge() throws IOException {
+        long covered = listingRepository.size();
+        Map<Gav, List<String>> batch = Map.copyOf(pending);
+        if (batch.isEmpty()) {
+            return;
+        }
+        ClassIndexSegment current = segment;
+
+        List<Gav> gavs = new ArrayList<>(current.gavs());
+        Map<Gav, Integer> ids = new HashMap<>();
+        for (int i = 0; i < gavs.size(); i++) {
+            ids.put(gavs.get(i), i);
+        }
+        BitSet replaced = new BitSet();
+        TreeMap<String, BitSet> batchTerms = new TreeMap<>();
+        batch.forEach((gav, classNames) -> {
+            Integer id = ids.get(gav);
+            if (id == null) {
+                id = gavs.size();
+                gavs.add(gav);
+                ids.put(gav, id);
+            } else {
+                replaced.set(id);
+            }
+            for (String className : classNames) {
+                batchTerms.computeIfAbsent(className, _ -> new BitSet()).set(id);
+            }
+        });
+
+        Path path = directory.resolve("%s%020d.bin".formatted(SEGMENT_PREFIX, covered));
+        Path temp = directory.resolve(path.getFileName() + ".tmp");
+        ClassIndexSegment.write(temp, covered, gavs, mergeTerms(current.iterator(""), batchTerms.entrySet().iterator(), replaced));
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        segment = ClassIndexSegment.open(path);
+        batch.forEach(pending::remove);
+        deleteSegmentsExcept(path);
+        logger.info("Merged class index, artifacts: {}, classes: {}, pending: {}", gavs.size(), segment.termCount(), pending.size());
+    }
+
+    private void load() throws IOException {
+        Optional<Path> latest = listSegments().max(Comparator.naturalOrder());
+        if (latest.isPresent()) {
+            try {
+                segment = ClassIndexSegment.open(latest.get());
+                deleteSegmentsExcept(latest.get());
+            } catch (IOException e) {
+                logger.warn("Opening class index segment [{}] failed, rebuilding from listings: {}", latest.get(), e.getMessage());
+            }
+        }
+        listingRepository.forEachSince(segment.coveredOffset(), pending::put);
+        logger.info("Loaded class index from [{}], classes: {}, pending: {}", directory, segment.termCount(), pending.size());
+    }
+
+    private Stream<Path> listSegments() throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files
+                    .filter(file -> file.getFileName().toString().startsWith(SEGMENT_PREFIX))
+                    .filter(file -> file.getFileName().toString().endsWith(".bin"))
+                    .toList()
+                    .stream();
+        }
+    }
+
+    private void deleteSegmentsExcept(Path kept) throws IOException {
+        for (Path file : listSegments().filter(file -> !file.equals(kept)).toList()) {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                logger.warn("Deleting class index segment [{}] failed: {}", file, e.getMessage());
+            }
+        }
+    }
+
+    /* artifacts of the term, except the ones with newer listings pending */
+    private Stream<Gav> toGavs(ClassIndexSegment current, ClassIndexSegment.Term term) {
+        return Arrays.stream(term.ids())
+                .mapToObj(current.gavs()::get)
+                .filter(gav -> !pending.containsKey(gav));
+    }
+
+    private static Iterator<ClassIndexSegment.Term> mergeTerms(Iterator<ClassIndexSegment.Term> existing,
+                                                               Iterator<Map.Entry<String, BitSet>> added,
+                                                               BitSet replaced) {
+        return new Iterator<>() {
+            private ClassIndexSegment.Term nextExisting = existing.hasNext() ? existing.next() : null;
+            private Map.Entry<String, BitSet> nextAdded = added.hasNext() ? added.next() : null;
+            private ClassIndexSegment.Term next = advance();
+
+            private ClassIndexSegment.Term advance() {
+                while (nextExisting != null || nextAdded != null) {
+                    int cmp = nextExisting == null ? 1 : nextAdded == null ? -1 : nextExisting.className().compareTo(nextAdded.getKey());
+                    String className = cmp <= 0 ? nextExisting.className() : nextAdded.getKey();
+                    BitSet merged = new BitSet();
+                    if (cmp <= 0) {
+                        Arrays.stream(nextExisting.ids()).filter(id -> !replaced.get(id)).forEach(merged::set);
+                        nextExisting = existing.hasNext() ? existing.next() : null;
+                    }
+                    if (cmp >= 0) {
+                        merged.or(nextAdded.getValue());
+                        nextAdded = added.hasNext() ? added.next() : null;
+                    }
+                    if (!merged.isEmpty()) {
+                        return new ClassIndexSegment.Term(className, merged.stream().toArray());
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public ClassIndexSegment.Term next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                ClassIndexSegment.Term term = next;
+                next = advance();
+                return term;
+            }
+        };
+    }
+
+    public record Match(String className, List<Gav> artifacts) {}
+}
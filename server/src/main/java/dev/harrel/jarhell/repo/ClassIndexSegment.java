@@ -0,0 +1,322 @@
+package dev.harrel.jarhell.repo;
+
+import dev.harrel.jarhell.model.Gav;
+
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.foreign.Arena;
+import java.lang.foreign.MemorySegment;
+import java.lang.foreign.ValueLayout;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+
+/* Immutable, memory-mapped dictionary of class names with posting lists of artifact ids. Layout:
+ * [artifact coordinates][blocks of front-coded terms][artifact offsets][block offsets][footer]
+ * Every block starts with a fully stored term, so lookups binary search block heads and scan a single block.
+ * Term: varint shared prefix length, varint suffix length, suffix bytes, varint id count, delta coded ids */
+final class ClassIndexSegment {
+    static final ClassIndexSegment EMPTY = new ClassIndexSegment(MemorySegment.NULL, 0, List.of(), 0, 0, 0);
+
+    private static final int MAGIC = 0x4a48_4358;
+    private static final int VERSION = 1;
+    private static final int FOOTER_SIZE = 48;
+    private static final int BLOCK_SIZE = 16;
+    private static final ValueLayout.OfLong LONG = ValueLayout.JAVA_LONG_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+    private static final ValueLayout.OfInt INT = ValueLayout.JAVA_INT_UNALIGNED.withOrder(ByteOrder.BIG_ENDIAN);
+
+    private final MemorySegment segment;
+    private final long coveredOffset;
+    private final List<Gav> gavs;
+    private final int blockCount;
+    private final long termCount;
+    private final long blockTablePos;
+
+    private ClassIndexSegment(MemorySegment segment, long coveredOffset, List<Gav> gavs, int blockCount, long termCount, long blockTablePos) {
+        this.segment = segment;
+        this.coveredOffset = coveredOffset;
+        this.gavs = gavs;
+        this.blockCount = blockCount;
+        this.termCount = termCount;
+        this.blockTablePos = blockTablePos;
+    }
+
+    static ClassIndexSegment open(Path path) throws IOException {
+        MemorySegment segment;
+        try (FileChannel channel = FileChannel.open(path)) {
+            segment = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size(), Arena.ofAuto());
+        }
+        if (segment.byteSize() < FOOTER_SIZE) {
+            throw new IOException("Class index segment [%s] is truncated".formatted(path));
+        }
+        long footer = segment.byteSize() - FOOTER_SIZE;
+        if (segment.get(INT, footer) != MAGIC || segment.get(INT, footer + 4) != VERSION) {
+            throw new IOException("Class index segment [%s] has unknown format".formatted(path));
+        }
+        long coveredOffset = segment.get(LONG, footer + 8);
+        int gavCount = segment.get(INT, footer + 16);
+        int blockCount = segment.get(INT, footer + 20);
+        long termCount = segment.get(LONG, footer + 24);
+        long gavTablePos = segment.get(LONG, footer + 32);
+        long blockTablePos = segment.get(LONG, footer + 40);
+
+        List<Gav> gavs = new ArrayList<>(gavCount);
+        for (int i = 0; i < gavCount; i++) {
+            Cursor cursor = new Cursor(segment, segment.get(LONG, gavTablePos + (long) i * Long.BYTES));
+            gavs.add(Gav.fromCoordinate(cursor.readString()).orElseThrow());
+        }
+        return new ClassIndexSegment(segment, coveredOffset, List.copyOf(gavs), blockCount, termCount, blockTablePos);
+    }
+
+    /* terms must be sorted and their ids must point into gavs */
+    static void write(Path path, long coveredOffset, List<Gav> gavs, Iterator<Term> terms) throws IOException {
+        try (Writer writer = new Writer(new BufferedOutputStream(Files.newOutputStream(path), 64 * 1024))) {
+            long[] gavPositions = new long[gavs.size()];
+            for (int i = 0; i < gavs.size(); i++) {
+                gavPositions[i] = writer.position;
+                writer.writeBytes(gavs.get(i).toString().getBytes(StandardCharsets.UTF_8));
+            }
+
+            List<Long> blockPositions = new ArrayList<>();
+            long termCount = 0;
+            byte[] previous = new byte[0];
+            while (terms.hasNext()) {
+                Term term = terms.next();
+                byte[] current = term.className().getBytes(StandardCharsets.UTF_8);
+                int shared = 0;
+                if (termCount % BLOCK_SIZE == 0) {
+                    blockPositions.add(writer.position);
+                } else {
+                    shared = Arrays.mismatch(previous, current);
+                    shared = shared < 0 ? current.length : shared;
+                }
+                writer.writeVarint(shared);
+                writer.writeBytes(Arrays.copyOfRange(current, shared, current.length));
+                writer.writeVarint(term.ids().length);
+                int previousId = 0;
+                for (int id : term.ids()) {
+                    writer.writeVarint(id - previousId);
+                    previousId = id;
+                }
+                previous = current;
+                termCount++;
+            }
+
+            long gavTablePos = writer.position;
+            for (long gavPosition : gavPositions) {
+                writer.writeLong(gavPosition);
+            }
+            long blockTablePos = writer.position;
+            for (long blockPosition : blockPositions) {
+                writer.writeLong(blockPosition);
+            }
+            writer.writeInt(MAGIC);
+            writer.writeInt(VERSION);
+            writer.writeLong(coveredOffset);
+            writer.writeInt(gavs.size());
+            writer.writeInt(blockPositions.size());
+            writer.writeLong(termCount);
+            writer.writeLong(gavTablePos);
+            writer.writeLong(blockTablePos);
+        }
+    }
+
+    /* position in the listing log up to which listings are included */
+    long coveredOffset() {
+        return coveredOffset;
+    }
+
+    List<Gav> gavs() {
+        return gavs;
+    }
+
+    long termCount() {
+        return termCount;
+    }
+
+    Optional<Term> find(String className) {
+        Iterator<Term> terms = iterator(className);
+        while (terms.hasNext()) {
+            Term term = terms.next();
+            int cmp = term.className().compareTo(className);
+            if (cmp == 0) {
+                return Optional.of(term);
+            }
+            if (cmp > 0) {
+                break;
+            }
+        }
+        return Optional.empty();
+    }
+
+    /* sorted terms starting at the first one not lower than the given name */
+    Iterator<Term> iterator(String from) {
+        int block = findBlock(from);
+        Cursor cursor = new Cursor(segment, block < blockCount ? blockPosition(block) : 0);
+        return new Iterator<>() {
+            private final Iterator<Term> all = cursor.terms(termCount - (long) block * BLOCK_SIZE);
+            private Term next = advance();
+
+            private Term advance() {
+                while (all.hasNext()) {
+                    Term term = all.next();
+                    if (term.className().compareTo(from) >= 0) {
+                        return term;
+                    }
+                }
+                return null;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next != null;
+            }
+
+            @Override
+            public Term next() {
+                if (next == null) {
+                    throw new NoSuchElementException();
+                }
+                Term term = next;
+                next = advance();
+                return term;
+            }
+        };
+    }
+
+    /* last block with a head not greater than the name, the name cannot appear in earlier ones */
+    private int findBlock(String className) {
+        int low = 0;
+        int high = blockCount - 1;
+        int found = 0;
+        while (low <= high) {
+            int mid = (low + high) >>> 1;
+            Cursor cursor = new Cursor(segment, blockPosition(mid));
+            cursor.readVarint();
+            String head = cursor.readString();
+            if (head.compareTo(className) <= 0) {
+                found = mid;
+                low = mid + 1;
+            } else {
+                high = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    private long blockPosition(int block) {
+        return segment.get(LONG, blockTablePos + (long) block * Long.BYTES);
+    }
+
+    record Term(String className, int[] ids) {}
+
+    private static final class Cursor {
+        private final MemorySegment segment;
+        private long position;
+
+        Cursor(MemorySegment segment, long position) {
+            this.segment = segment;
+            this.position = position;
+        }
+
+        Iterator<Term> terms(long count) {
+            return new Iterator<>() {
+                private long remaining = count;
+                private byte[] previous = new byte[0];
+
+                @Override
+                public boolean hasNext() {
+                    return remaining > 0;
+                }
+
+                @Override
+                public Term next() {
+                    if (remaining <= 0) {
+                        throw new NoSuchElementException();
+                    }
+                    remaining--;
+                    int shared = readVarint();
+                    byte[] suffix = readBytes();
+                    byte[] current = Arrays.copyOf(previous, shared + suffix.length);
+                    System.arraycopy(suffix, 0, current, shared, suffix.length);
+                    int[] ids = new int[readVarint()];
+                    int id = 0;
+                    for (int i = 0; i < ids.length; i++) {
+                        id += readVarint();
+                        ids[i] = id;
+                    }
+                    previous = current;
+                    return new Term(new String(current, StandardCharsets.UTF_8), ids);
+                }
+            };
+        }
+
+        int readVarint() {
+            int value = 0;
+            for (int shift = 0; ; shift += 7) {
+                byte b = segment.get(ValueLayout.JAVA_BYTE, position++);
+                value |= (b & 0x7f) << shift;
+                if (b >= 0) {
+                    return value;
+                }
+            }
+        }
+
+        byte[] readBytes() {
+            byte[] bytes = new byte[readVarint()];
+            MemorySegment.copy(segment, ValueLayout.JAVA_BYTE, position, bytes, 0, bytes.length);
+            position += bytes.length;
+            return bytes;
+        }
+
+        String readString() {
+            return new String(readBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static final class Writer implements AutoCloseable {
+        private final OutputStream out;
+        private long position;
+
+        Writer(OutputStream out) {
+            this.out = out;
+        }
+
+        void writeVarint(int value) throws IOException {
+            while ((value & ~0x7f) != 0) {
+                out.write((value & 0x7f) | 0x80);
+                value >>>= 7;
+                position++;
+            }
+            out.write(value);
+            position++;
+        }
+
+        void writeBytes(byte[] bytes) throws IOException {
+            writeVarint(bytes.length);
+            out.write(bytes);
+            position += bytes.length;
+        }
+
+        void writeInt(int value) throws IOException {
+            for (int shift = 24; shift >= 0; shift -= 8) {
+                out.write(value >>> shift);
+            }
+            position += Integer.BYTES;
+        }
+
+        void writeLong(long value) throws IOException {
+            writeInt((int) (value >>> 32));
+            writeInt((int) value);
+        }
+
+        @Override
+        public void close() throws IOException {
+            out.close();
+        }
+    }
+}
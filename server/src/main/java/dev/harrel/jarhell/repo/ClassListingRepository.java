@@ -0,0 +1,179 @@
+package dev.harrel.jarhell.repo;
+
+import dev.harrel.jarhell.model.Gav;
+import io.avaje.config.Config;
+import io.avaje.inject.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiConsumer;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
+
+/* Append-only log of class names of analyzed jars: [int length][deflated record]...
+ * Record holds the coordinate and sorted class names, the latest record of an artifact wins */
+@Singleton
+public class ClassListingRepository {
+    private static final Logger logger = LoggerFactory.getLogger(ClassListingRepository.class);
+
+    private final Path path;
+    private final FileChannel channel;
+    private final ConcurrentHashMap<Gav, Long> positions = new ConcurrentHashMap<>();
+
+    @Inject
+    ClassListingRepository() throws IOException {
+        this(Path.of(Config.get("jar-hell.class-index.path", "build/class-index")).resolve("listings.bin"));
+    }
+
+    ClassListingRepository(Path path) throws IOException {
+        this.path = path;
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        load();
+    }
+
+    @PreDestroy
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    public synchronized void save(Gav gav, Collection<String> classNames) {
+        byte[] record = encode(gav, classNames.stream().distinct().sorted().toList());
+        try {
+            long position = channel.size();
+            ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + record.length)
+                    .putInt(record.length)
+                    .put(record)
+                    .flip();
+            while (buffer.hasRemaining()) {
+                channel.write(buffer, position + buffer.position());
+            }
+            positions.put(gav, position);
+        } catch (IOException e) {
+            logger.warn("Failed to save class listing of [{}]", gav, e);
+        }
+    }
+
+    public Optional<List<String>> find(Gav gav) {
+        Long position = positions.get(gav);
+        if (position == null) {
+            return Optional.empty();
+        }
+        try {
+            return Optional.of(decode(readRecord(position)).classNames());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* end of the log, records written later start at or after it */
+    public long size() {
+        try {
+            return channel.size();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /* in order of writing, so later records of the same artifact come last */
+    public void forEachSince(long position, BiConsumer<Gav, List<String>> consumer) {
+        long end = size();
+        try {
+            while (position < end) {
+                byte[] record = readRecord(position);
+                Listing listing = decode(record);
+                consumer.accept(listing.gav(), listing.classNames());
+                position += Integer.BYTES + record.length;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void load() throws IOException {
+        long position = 0;
+        long end = channel.size();
+        // anything after a record that cannot be read is unreachable anyway, e.g. after a crash mid-write
+        while (position < end) {
+            try {
+                byte[] record = readRecord(position);
+                try (DataInputStream in = inflate(record)) {
+                    String coordinate = in.readUTF();
+                    Gav gav = Gav.fromCoordinate(coordinate).orElseThrow(() -> new IOException("Invalid coordinate [%s]".formatted(coordinate)));
+                    positions.put(gav, position);
+                }
+                position += Integer.BYTES + record.length;
+            } catch (IOException e) {
+                logger.warn("Corrupted record found in [{}] at [{}], dropping the rest: {}", path, position, e.toString());
+                channel.truncate(position);
+                break;
+            }
+        }
+        logger.info("Loaded class listings from [{}], artifacts: {}", path, positions.size());
+    }
+
+    private byte[] readRecord(long position) throws IOException {
+        ByteBuffer lengthBuffer = ByteBuffer.allocate(Integer.BYTES);
+        readFully(lengthBuffer, position);
+        int length = lengthBuffer.getInt(0);
+        if (length < 0 || position + Integer.BYTES + length > channel.size()) {
+            throw new EOFException("Record at [%d] of [%s] exceeds the file".formatted(position, path));
+        }
+        ByteBuffer record = ByteBuffer.allocate(length);
+        readFully(record, position + Integer.BYTES);
+        return record.array();
+    }
+
+    private void readFully(ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of [%s]".formatted(path));
+            }
+        }
+    }
+
+    private static byte[] encode(Gav gav, List<String> classNames) {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (DataOutputStream out = new DataOutputStream(new DeflaterOutputStream(baos))) {
+            out.writeUTF(gav.toString());
+            out.writeInt(classNames.size());
+            for (String className : classNames) {
+                out.writeUTF(className);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return baos.toByteArray();
+    }
+
+    private static Listing decode(byte[] record) throws IOException {
+        try (DataInputStream in = inflate(record)) {
+            Gav gav = Gav.fromCoordinate(in.readUTF()).orElseThrow();
+            int count = in.readInt();
+            List<String> classNames = new ArrayList<>(count);
+            for (int i = 0; i < count; i++) {
+                classNames.add(in.readUTF());
+            }
+            return new Listing(gav, classNames);
+        }
+    }
+
+    private static DataInputStream inflate(byte[] record) {
+        return new DataInputStream(new InflaterInputStream(new ByteArrayInputStream(record)));
+    }
+
+    private record Listing(Gav gav, List<String> classNames) {}
+}
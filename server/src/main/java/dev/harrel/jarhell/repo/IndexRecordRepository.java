@@ -0,0 +1,85 @@
+package dev.harrel.jarhell.repo;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.model.IndexRecord;
+import org.neo4j.driver.Driver;
+import org.neo4j.driver.Query;
+import org.neo4j.driver.Result;
+import org.neo4j.driver.Session;
+import org.neo4j.driver.SessionConfig;
+
+import javax.inject.Singleton;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static org.neo4j.driver.Values.parameters;
+
+/* Maven index metadata kept apart from artifacts, so that analysis (which overwrites artifact nodes) does not lose it */
+@Singleton
+public class IndexRecordRepository {
+    private final Driver driver;
+    private final ObjectMapper objectMapper;
+
+    public IndexRecordRepository(Driver driver, ObjectMapper objectMapper) {
+        this.driver = driver;
+        this.objectMapper = objectMapper;
+    }
+
+    /* partial records are merged field by field, classifiers are accumulated */
+    public void saveAll(List<IndexRecord> records) {
+        List<Map<String, Object>> rows = records.stream()
+                .map(IndexRecordRepository::toRow)
+                .toList();
+        try (var session = session()) {
+            session.executeWriteWithoutResult(tx -> tx.run(new Query("""
+                            UNWIND $records AS rec
+                            MERGE (r:IndexRecord {coordinate: rec.coordinate})
+                            WITH r, rec, coalesce(r.classifiers, []) AS classifiers
+                            SET
+                                r.packaging = coalesce(rec.packaging, r.packaging),
+                                r.lastModified = coalesce(rec.lastModified, r.lastModified),
+                                r.size = coalesce(rec.size, r.size),
+                                r.extension = coalesce(rec.extension, r.extension),
+                                r.classifiers = classifiers + [c IN rec.classifiers WHERE NOT c IN classifiers]""",
+                    parameters("records", rows))));
+        }
+    }
+
+    public Optional<IndexRecord> find(Gav gav) {
+        try (var session = session()) {
+            return session.executeRead(tx -> {
+                Result res = tx.run(new Query("""
+                                MATCH (r:IndexRecord {coordinate: $coordinate})
+                                RETURN r""",
+                        parameters("coordinate", gav.toString())));
+                return res.list().stream()
+                        .findFirst()
+                        .map(rec -> objectMapper.convertValue(rec.get("r").asNode().asMap(), IndexRecordProps.class))
+                        .map(props -> new IndexRecord(gav, props.packaging(), props.lastModified(), props.size(), props.extension(),
+                                props.classifiers() == null ? Set.of() : Set.copyOf(props.classifiers())));
+            });
+        }
+    }
+
+    private static Map<String, Object> toRow(IndexRecord indexRecord) {
+        Map<String, Object> row = new HashMap<>();
+        row.put("coordinate", indexRecord.gav().toString());
+        row.put("packaging", indexRecord.packaging());
+        row.put("lastModified", indexRecord.lastModified());
+        row.put("size", indexRecord.size());
+        row.put("extension", indexRecord.extension());
+        row.put("classifiers", List.copyOf(indexRecord.classifiers()));
+        return row;
+    }
+
+    private Session session() {
+        return driver.session(SessionConfig.builder().withBookmarkManager(null).build());
+    }
+
+    private record IndexRecordProps(String coordinate, String packaging, Long lastModified, Long size, String extension,
+                                    List<String> classifiers) {}
+}
@@ -0,0 +1,117 @@
+package dev.harrel.jarhell.trace;
+
+import io.avaje.config.Config;
+import io.avaje.inject.PostConstruct;
+import io.avaje.inject.PreDestroy;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordedFrame;
+import jdk.jfr.consumer.RecordedStackTrace;
+import jdk.jfr.consumer.RecordingStream;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.inject.Singleton;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/* Listens to JFR jdk.VirtualThreadPinned events and aggregates them per call site.
+ * Since JDK 24 synchronized does not pin anymore, so what's left are mostly native frames and class initializers */
+@Singleton
+public class PinningMonitor {
+    private static final Logger logger = LoggerFactory.getLogger(PinningMonitor.class);
+    private static final String PINNED_EVENT = "jdk.VirtualThreadPinned";
+    private static final Duration THRESHOLD = Duration.parse(Config.get("jar-hell.pinning.threshold", "PT0.02S"));
+    private static final int MAX_SITES = 1000;
+    private static final List<String> PLATFORM_PACKAGES = List.of("java.", "jdk.", "sun.");
+
+    private final ConcurrentHashMap<String, SiteStats> sites = new ConcurrentHashMap<>();
+    private RecordingStream stream;
+
+    @PostConstruct
+    void postConstruct() {
+        if (!Config.enabled("jar-hell.pinning.enabled", true)) {
+            return;
+        }
+        try {
+            stream = new RecordingStream();
+            stream.enable(PINNED_EVENT).withThreshold(THRESHOLD).withStackTrace();
+            stream.onEvent(PINNED_EVENT, this::onPinned);
+            stream.startAsync();
+            logger.info("Pinning monitor started: threshold={}ms", THRESHOLD.toMillis());
+        } catch (RuntimeException e) {
+            logger.warn("Pinning monitor could not be started", e);
+        }
+    }
+
+    @PreDestroy
+    void destroy() {
+        if (stream != null) {
+            stream.close();
+        }
+    }
+
+    public List<Site> sites() {
+        return sites.entrySet().stream()
+                .map(e -> e.getValue().toSite(e.getKey()))
+                .sorted(Comparator.comparingLong(Site::totalMs).reversed())
+                .toList();
+    }
+
+    public void reset() {
+        sites.clear();
+    }
+
+    private void onPinned(RecordedEvent event) {
+        String reason = event.hasField("pinnedReason") ? event.getString("pinnedReason") : null;
+        record(callSite(event.getStackTrace()), reason, event.getDuration());
+    }
+
+    void record(String site, String reason, Duration duration) {
+        if (!sites.containsKey(site) && sites.size() >= MAX_SITES) {
+            site = "<other>";
+        }
+        sites.computeIfAbsent(site, _ -> new SiteStats()).add(reason, duration);
+    }
+
+    /* the first frame outside of JDK is what we're interested in, the frames above it are shown as context */
+    private static String callSite(RecordedStackTrace stackTrace) {
+        if (stackTrace == null) {
+            return "<unknown>";
+        }
+        List<RecordedFrame> frames = stackTrace.getFrames();
+        for (RecordedFrame frame : frames) {
+            String className = frame.getMethod().getType().getName();
+            if (PLATFORM_PACKAGES.stream().noneMatch(className::startsWith)) {
+                return className + "." + frame.getMethod().getName() + ":" + frame.getLineNumber();
+            }
+        }
+        return frames.isEmpty() ? "<unknown>" : frames.getFirst().getMethod().getType().getName() + "." + frames.getFirst().getMethod().getName();
+    }
+
+    public record Site(String callSite, String reason, long count, long totalMs, long maxMs) {}
+
+    private static class SiteStats {
+        private final AtomicLong count = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0L);
+        private volatile String reason;
+
+        void add(String reason, Duration duration) {
+            count.incrementAndGet();
+            totalNanos.addAndGet(duration.toNanos());
+            maxNanos.accumulate(duration.toNanos());
+            if (reason != null) {
+                this.reason = reason;
+            }
+        }
+
+        Site toSite(String callSite) {
+            return new Site(callSite, reason, count.get(),
+                    Duration.ofNanos(totalNanos.get()).toMillis(), Duration.ofNanos(maxNanos.get()).toMillis());
+        }
+    }
+}
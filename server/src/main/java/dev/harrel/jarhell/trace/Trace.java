@@ -0,0 +1,145 @@
+package dev.harrel.jarhell.trace;
+
+import io.avaje.config.Config;
+import org.slf4j.MDC;
+
+import java.time.Instant;
+import java.util.*;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/* Trace context is carried with ScopedValue, so it gets inherited by StructuredTaskScope forks.
+ * Threads not created by structured concurrency (resolver collector threads, Jetty callbacks)
+ * are covered by the span of the calling thread */
+public final class Trace {
+    public static final String MDC_KEY = "traceId";
+    private static final ScopedValue<SpanContext> CURRENT = ScopedValue.newInstance();
+    /* the root span is always kept, spans over the limit are only counted */
+    static final int MAX_SPANS = Config.getInt("jar-hell.traces.max-spans", 2_000);
+
+    private final String id = UUID.randomUUID().toString();
+    private final String name;
+    private final Instant started = Instant.now();
+    private final long startedNanos = System.nanoTime();
+    private final AtomicInteger spanIds = new AtomicInteger();
+    private final Queue<Span> spans = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger droppedSpans = new AtomicInteger();
+
+    private Trace(String name) {
+        this.name = name;
+    }
+
+    public static Optional<Trace> current() {
+        return CURRENT.isBound() ? Optional.of(CURRENT.get().trace()) : Optional.empty();
+    }
+
+    public static <T, X extends Throwable> T span(String name, ScopedValue.CallableOp<T, X> op) throws X {
+        if (!CURRENT.isBound()) {
+            return op.call();
+        }
+        SpanContext parent = CURRENT.get();
+        return parent.trace().runSpan(name, parent.spanId(), op);
+    }
+
+    static <T, X extends Throwable> T root(Trace trace, ScopedValue.CallableOp<T, X> op) throws X {
+        return trace.runSpan(trace.name, null, op);
+    }
+
+    static Trace create(String name) {
+        return new Trace(name);
+    }
+
+    public String id() {
+        return id;
+    }
+
+    public String name() {
+        return name;
+    }
+
+    public View view() {
+        List<Span> timeline = spans.stream()
+                .sorted(Comparator.comparingLong(Span::offsetMicros).thenComparingInt(Span::id))
+                .toList();
+        long durationMicros = timeline.stream()
+                .mapToLong(s -> s.offsetMicros() + s.durationMicros())
+                .max()
+                .orElse(0L);
+        return new View(id, name, started, durationMicros, droppedSpans.get(), criticalPath(timeline), timeline);
+    }
+
+    private <T, X extends Throwable> T runSpan(String spanName, Integer parentId, ScopedValue.CallableOp<T, X> op) throws X {
+        int spanId = spanIds.incrementAndGet();
+        String thread = Thread.currentThread().toString();
+        String previousTraceId = MDC.get(MDC_KEY);
+        MDC.put(MDC_KEY, id);
+        long start = System.nanoTime();
+        String error = null;
+        try {
+            return ScopedValue.where(CURRENT, new SpanContext(this, spanId)).call(op);
+        } catch (Throwable e) {
+            error = e.toString();
+            throw e;
+        } finally {
+            long end = System.nanoTime();
+            record(new Span(spanId, parentId, spanName, thread, toMicros(start - startedNanos), toMicros(end - start), error));
+            if (previousTraceId == null) {
+                MDC.remove(MDC_KEY);
+            } else {
+                MDC.put(MDC_KEY, previousTraceId);
+            }
+        }
+    }
+
+    private void record(Span span) {
+        if (span.parentId() == null || spanIds.get() <= MAX_SPANS) {
+            spans.add(span);
+        } else {
+            droppedSpans.incrementAndGet();
+        }
+    }
+
+    /* follows the child which finished last, starting from the root span */
+    private static List<Integer> criticalPath(List<Span> timeline) {
+        Map<Integer, List<Span>> children = new HashMap<>();
+        Span root = null;
+        for (Span span : timeline) {
+            if (span.parentId() == null) {
+                root = span;
+            } else {
+                children.computeIfAbsent(span.parentId(), _ -> new ArrayList<>()).add(span);
+            }
+        }
+        List<Integer> path = new ArrayList<>();
+        Span current = root;
+        while (current != null) {
+            path.add(current.id());
+            current = children.getOrDefault(current.id(), List.of()).stream()
+                    .max(Comparator.comparingLong(s -> s.offsetMicros() + s.durationMicros()))
+                    .orElse(null);
+        }
+        return path;
+    }
+
+    private static long toMicros(long nanos) {
+        return nanos / 1000;
+    }
+
+    public record Span(int id,
+                       Integer parentId,
+                       String name,
+                       String thread,
+                       long offsetMicros,
+                       long durationMicros,
+                       String error) {}
+
+    public record View(String traceId,
+                       String name,
+                       Instant started,
+                       long durationMicros,
+                       int droppedSpans,
+                       List<Integer> criticalPath,
+                       List<Span> spans) {}
+
+    private record SpanContext(Trace trace, int spanId) {}
+}
@@ -0,0 +1,42 @@
+package dev.harrel.jarhell.trace;
+
+import io.avaje.config.Config;
+
+import javax.inject.Singleton;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/* keeps only the latest trace per root.
+ * Memory is bounded by jar-hell.traces.max-retained * jar-hell.traces.max-spans, which is 200k spans by default */
+@Singleton
+public class TraceStore {
+    private static final int MAX_TRACES = Config.getInt("jar-hell.traces.max-retained", 100);
+
+    private final Map<String, Trace> traces = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Trace> eldest) {
+            return size() > MAX_TRACES;
+        }
+    };
+
+    /* starts a new trace only if there is none in the current scope, otherwise it's just a span */
+    public <T, X extends Throwable> T trace(String name, ScopedValue.CallableOp<T, X> op) throws X {
+        if (Trace.current().isPresent()) {
+            return Trace.span(name, op);
+        }
+        Trace trace = Trace.create(name);
+        synchronized (traces) {
+            traces.put(name, trace);
+        }
+        return Trace.root(trace, op);
+    }
+
+    public Optional<Trace.View> findLatest(String name) {
+        Trace trace;
+        synchronized (traces) {
+            trace = traces.get(name);
+        }
+        return Optional.ofNullable(trace).map(Trace::view);
+    }
+}
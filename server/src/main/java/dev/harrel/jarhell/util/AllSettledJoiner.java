@@ -0,0 +1,26 @@
+package dev.harrel.jarhell.util;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+
+/* Unlike awaitAllSuccessfulOrThrow, a failure does not cancel the siblings - all subtasks are awaited
+ * and the failed ones are returned, so the caller can keep the successful results */
+public final class AllSettledJoiner<T> implements StructuredTaskScope.Joiner<T, List<Subtask<? extends T>>> {
+    private final Queue<Subtask<? extends T>> failed = new ConcurrentLinkedQueue<>();
+
+    @Override
+    public boolean onComplete(Subtask<? extends T> subtask) {
+        if (subtask.state() == Subtask.State.FAILED) {
+            failed.add(subtask);
+        }
+        return false;
+    }
+
+    @Override
+    public List<Subtask<? extends T>> result() {
+        return List.copyOf(failed);
+    }
+}
@@ -6,9 +6,9 @@ import java.util.concurrent.CompletionException;
 import java.util.concurrent.StructuredTaskScope;
 
 public final class ConcurrentUtil {
-    public static void joinScope(StructuredTaskScope scope) {
+    public static <T, R> R joinScope(StructuredTaskScope<T, R> scope) {
         try {
-            scope.join();
+            return scope.join();
         } catch (InterruptedException e) {
             Thread.currentThread().interrupt();
             throw new CompletionException(e);
@@ -0,0 +1,55 @@
+package dev.harrel.jarhell.util;
+
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Semaphore;
+import java.util.function.Supplier;
+
+/* permits taken above the new limit are not revoked, the limit just applies to the next acquisitions */
+public final class ResizableSemaphore extends Semaphore {
+    private int limit;
+
+    public ResizableSemaphore(int limit) {
+        super(requirePositive(limit));
+        this.limit = limit;
+    }
+
+    public synchronized void resize(int newLimit) {
+        requirePositive(newLimit);
+        int delta = newLimit - limit;
+        if (delta > 0) {
+            release(delta);
+        } else if (delta < 0) {
+            reducePermits(-delta);
+        }
+        limit = newLimit;
+    }
+
+    public synchronized int limit() {
+        return limit;
+    }
+
+    public int inUse() {
+        return limit() - availablePermits();
+    }
+
+    public <T> T withPermit(Supplier<T> supplier) {
+        try {
+            acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CompletionException(e);
+        }
+        try {
+            return supplier.get();
+        } finally {
+            release();
+        }
+    }
+
+    private static int requirePositive(int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive, got [%d]".formatted(limit));
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,38 @@
+package dev.harrel.jarhell.util;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/* last good answers, served only when loading a fresh one fails. Bounded by evicting arbitrary entries */
+public final class StaleCache<K, V> {
+    private static final Logger logger = LoggerFactory.getLogger(StaleCache.class);
+
+    private final int maxSize;
+    private final ConcurrentHashMap<K, V> entries = new ConcurrentHashMap<>();
+
+    public StaleCache(int maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    public V get(K key, Supplier<V> loader) {
+        V value;
+        try {
+            value = loader.get();
+        } catch (RuntimeException e) {
+            V stale = entries.get(key);
+            if (stale == null) {
+                throw e;
+            }
+            logger.warn("Serving stale value for [{}]: {}", key, e.toString());
+            return stale;
+        }
+        entries.put(key, value);
+        if (entries.size() > maxSize) {
+            entries.keySet().stream().filter(k -> !k.equals(key)).findAny().ifPresent(entries::remove);
+        }
+        return value;
+    }
+}
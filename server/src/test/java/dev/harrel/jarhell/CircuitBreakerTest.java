@@ -0,0 +1,79 @@
+package dev.harrel.jarhell;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CircuitBreakerTest {
+    private final AtomicLong clock = new AtomicLong();
+    private final CircuitBreaker breaker = new CircuitBreaker("test", 3, Duration.ofSeconds(10), clock::get);
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        assertThat(breaker.status().rejectedCalls()).isEqualTo(1);
+    }
+
+    @Test
+    void closesAfterSuccessfulProbe() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.HALF_OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+
+        breaker.onSuccess();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.CLOSED);
+        assertThat(breaker.tryAcquire()).isTrue();
+        assertThat(breaker.status().transitions()).isEqualTo(Map.of(
+                "CLOSED->OPEN", 1L,
+                "OPEN->HALF_OPEN", 1L,
+                "HALF_OPEN->CLOSED", 1L));
+    }
+
+    @Test
+    void reopensAfterFailedProbe() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        breaker.onFailure();
+        assertThat(breaker.state()).isEqualTo(CircuitBreaker.State.OPEN);
+        assertThat(breaker.tryAcquire()).isFalse();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    @Test
+    void replacesProbeThatNeverReported() {
+        open();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(10));
+        assertThat(breaker.tryAcquire()).isTrue();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(breaker.tryAcquire()).isFalse();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(5));
+        assertThat(breaker.tryAcquire()).isTrue();
+    }
+
+    private void open() {
+        for (int i = 0; i < 3; i++) {
+            breaker.onFailure();
+        }
+    }
+}
@@ -0,0 +1,217 @@
+package dev.harrel.jarhell;
+
+import io.javalin.Javalin;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.awaitility.Awaitility.await;
+
+class CustomHttpClientTest {
+    private final AtomicInteger hedgedCalls = new AtomicInteger();
+    private final AtomicInteger flakyCalls = new AtomicInteger();
+    private final AtomicInteger downCalls = new AtomicInteger();
+    private final AtomicInteger throttledCalls = new AtomicInteger();
+    private final AtomicBoolean largeAborted = new AtomicBoolean();
+
+    @TempDir
+    private Path tempDir;
+    private Javalin server;
+    private String baseUrl;
+
+    @BeforeEach
+    void setUp() {
+        server = Javalin.create(config -> config.http.disableCompression())
+                .get("/hedged", ctx -> {
+                    if (hedgedCalls.incrementAndGet() == 1) {
+                        Thread.sleep(2000);
+                        ctx.result("slow");
+                    } else {
+                        ctx.result("fast");
+                    }
+                })
+                .get("/flaky", ctx -> {
+                    if (flakyCalls.incrementAndGet() < 3) {
+                        ctx.status(503).header("Retry-After", "0").result("unavailable");
+                    } else {
+                        ctx.result("ok");
+                    }
+                })
+                .get("/down", ctx -> {
+                    downCalls.incrementAndGet();
+                    ctx.status(500).result("error");
+                })
+                .get("/throttled", ctx -> {
+                    if (throttledCalls.incrementAndGet() == 1) {
+                        ctx.status(429).header("Retry-After", "1").result("slow down");
+                    } else {
+                        ctx.result("ok");
+                    }
+                })
+                .get("/plain", ctx -> ctx.result("ok"))
+                .get("/large", ctx -> {
+                    byte[] chunk = new byte[64 * 1024];
+                    ThreadLocalRandom.current().nextBytes(chunk);
+                    try (OutputStream out = ctx.outputStream()) {
+                        for (int i = 0; i < 1024; i++) {
+                            out.write(chunk);
+                        }
+                    } catch (IOException e) {
+                        largeAborted.set(true);
+                    }
+                })
+                .start(0);
+        baseUrl = "http://localhost:" + server.port();
+    }
+
+    @AfterEach
+    void tearDown() {
+        server.stop();
+    }
+
+    @Test
+    void hedgesSlowRequestAndTakesFirstResponse() throws Exception {
+        HedgePolicy hedgePolicy = new HedgePolicy(List.of(baseUrl + "/hedged"), 1.0, Duration.ofMillis(20));
+        for (int i = 0; i < 50; i++) {
+            hedgePolicy.record(baseUrl, TimeUnit.MILLISECONDS.toNanos(10));
+        }
+        CustomHttpClient httpClient = startClient(hedgePolicy);
+        try {
+            long start = System.nanoTime();
+            ContentResponse res = httpClient.sendGet(URI.create(baseUrl + "/hedged"), 5L);
+
+            assertThat(res.getContentAsString()).isEqualTo("fast");
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(1500));
+            assertThat(hedgedCalls).hasValue(2);
+            assertThat(hedgePolicy.status()).isEqualTo(new HedgePolicy.Status(1, 0));
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    @Test
+    void doesNotHedgeWithoutLatencies() throws Exception {
+        HedgePolicy hedgePolicy = new HedgePolicy(List.of(baseUrl + "/hedged"), 1.0, Duration.ofMillis(20));
+        CustomHttpClient httpClient = startClient(hedgePolicy);
+        try {
+            ContentResponse res = httpClient.sendGet(URI.create(baseUrl + "/hedged"), 5L);
+
+            assertThat(res.getContentAsString()).isEqualTo("slow");
+            assertThat(hedgedCalls).hasValue(1);
+            assertThat(hedgePolicy.status()).isEqualTo(new HedgePolicy.Status(0, 0));
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    @Test
+    void retriesUntilSuccessAndPassesOnlyFinalResponseToHandler() throws Exception {
+        CustomHttpClient httpClient = startClient(null);
+        try {
+            List<Integer> handledStatuses = new ArrayList<>();
+            String body = httpClient.streamGetWithRetries(URI.create(baseUrl + "/flaky"), 3, (res, in) -> {
+                handledStatuses.add(res.getStatus());
+                return new String(in.readAllBytes(), StandardCharsets.UTF_8);
+            });
+
+            assertThat(body).isEqualTo("ok");
+            assertThat(flakyCalls).hasValue(3);
+            assertThat(handledStatuses).containsExactly(200);
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    @Test
+    void failsAfterAllTries() throws Exception {
+        CustomHttpClient httpClient = startClient(null);
+        try {
+            assertThatThrownBy(() -> httpClient.sendGetWithRetries(URI.create(baseUrl + "/down"), 2))
+                    .isInstanceOf(IllegalArgumentException.class)
+                    .hasMessage("All tries [3] failed");
+            assertThat(downCalls).hasValue(3);
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    @Test
+    void waitsForRetryAfter() throws Exception {
+        CustomHttpClient httpClient = startClient(null);
+        try {
+            long start = System.nanoTime();
+            ContentResponse res = httpClient.sendGetWithRetries(URI.create(baseUrl + "/throttled"), 1);
+
+            assertThat(res.getContentAsString()).isEqualTo("ok");
+            assertThat(throttledCalls).hasValue(2);
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofSeconds(1));
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    @Test
+    void closingBodyEarlyAbortsRequest() throws Exception {
+        CustomHttpClient httpClient = startClient(null);
+        try {
+            int read = httpClient.streamGet(URI.create(baseUrl + "/large"), 5L, (res, in) -> in.readNBytes(1024).length);
+
+            assertThat(read).isEqualTo(1024);
+            await().atMost(Duration.ofSeconds(10)).untilTrue(largeAborted);
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    @Test
+    void pacesAsyncSendsWithoutBlockingCaller() throws Exception {
+        RateLimiter rateLimiter = new RateLimiter(2, 1, 2, Duration.ofSeconds(1));
+        CustomHttpClient httpClient = startClient(rateLimiter, null);
+        try {
+            List<CompletableFuture<Integer>> statuses = new ArrayList<>();
+            long start = System.nanoTime();
+            for (int i = 0; i < 3; i++) {
+                CompletableFuture<Integer> status = new CompletableFuture<>();
+                httpClient.newRequest(baseUrl + "/plain").send(result -> status.complete(result.getResponse().getStatus()));
+                statuses.add(status);
+            }
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(300));
+
+            assertThat(CompletableFuture.allOf(statuses.toArray(CompletableFuture[]::new))).succeedsWithin(Duration.ofSeconds(5));
+            assertThat(statuses).allSatisfy(status -> assertThat(status).isCompletedWithValue(200));
+            assertThat(Duration.ofNanos(System.nanoTime() - start)).isGreaterThanOrEqualTo(Duration.ofMillis(900));
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    private CustomHttpClient startClient(HedgePolicy hedgePolicy) throws Exception {
+        return startClient(null, hedgePolicy);
+    }
+
+    private CustomHttpClient startClient(RateLimiter rateLimiter, HedgePolicy hedgePolicy) throws Exception {
+        CustomHttpClient httpClient = new CustomHttpClient(new HttpClientTransportOverHTTP(),
+                new HttpArchive(HttpArchive.Mode.OFF, tempDir.resolve("archive.bin")), rateLimiter, null, hedgePolicy);
+        httpClient.start();
+        return httpClient;
+    }
+}
@@ -44,7 +44,14 @@ class DatabaseInitializerTest {
         EagerResult uniqueGavResult = driver.executableQuery("SHOW INDEXES WHERE name = 'unique_gav'").execute();
         assertIndex(uniqueGavResult, List.of("groupId", "artifactId", "version", "classifier"));
 
-        EagerResult uniqueConstraintResult = driver.executableQuery("SHOW CONSTRAINTS").execute();
+        EagerResult uniqueIndexRecordResult = driver.executableQuery("SHOW INDEXES WHERE name = 'unique_index_record'").execute();
+        assertThat(uniqueIndexRecordResult.records()).hasSize(1);
+        assertThat(uniqueIndexRecordResult.records().getFirst().get("labelsOrTypes").asList()).isEqualTo(List.of("IndexRecord"));
+        assertThat(uniqueIndexRecordResult.records().getFirst().get("properties").asList()).isEqualTo(List.of("coordinate"));
+
+        EagerResult constraintsResult = driver.executableQuery("SHOW CONSTRAINTS").execute();
+        assertThat(constraintsResult.records()).hasSize(2);
+        EagerResult uniqueConstraintResult = driver.executableQuery("SHOW CONSTRAINTS WHERE name = 'unique_gav'").execute();
         assertThat(uniqueConstraintResult.records()).hasSize(1);
         Record constraintRecord = uniqueConstraintResult.records().getFirst();
         assertThat(constraintRecord.get("name").asString()).isEqualTo("unique_gav");
@@ -0,0 +1,51 @@
+package dev.harrel.jarhell;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.jar.JarInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileRepositoryTest {
+    private final FileRepository fileRepository = FileRepository.of(
+            Path.of("src/test/resources/reposilite/repositories/snapshots").toUri().toString()
+    ).orElseThrow();
+
+    @Test
+    void ignoresHttpUrls() {
+        assertThat(FileRepository.of("https://repo.maven.apache.org/maven2")).isEmpty();
+    }
+
+    @Test
+    void listsDirectoriesLikeHtmlListing() {
+        assertThat(fileRepository.list("org/test/artifact")).hasValueSatisfying(entries ->
+                assertThat(entries).contains("1.0.10/", "1.1.0/", "3.0.1/", "3.2.1/", "maven-metadata.xml"));
+        assertThat(fileRepository.list("org/test/missing")).isEmpty();
+    }
+
+    @Test
+    void readsFiles() {
+        assertThat(fileRepository.readString("org/test/artifact/maven-metadata.xml")).hasValueSatisfying(content ->
+                assertThat(content).contains("<version>3.2.1</version>"));
+        assertThat(fileRepository.readString("org/test/artifact/missing.xml")).isEmpty();
+        assertThat(fileRepository.exists("org/test/artifact/3.0.1/artifact-3.0.1.pom")).isTrue();
+    }
+
+    @Test
+    void mapsJars() throws IOException {
+        String path = "org/test/artifact/3.0.1/artifact-3.0.1.jar";
+        try (JarInputStream jis = new JarInputStream(FileRepository.asInputStream(fileRepository.map(path)))) {
+            assertThat(jis.getNextJarEntry()).isNotNull();
+        }
+        assertThat(fileRepository.size(path)).isPositive();
+    }
+
+    @Test
+    void rejectsPathsOutsideOfRepository() {
+        assertThatThrownBy(() -> fileRepository.resolve("../../../../build.gradle"))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -0,0 +1,66 @@
+package dev.harrel.jarhell;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class HedgePolicyTest {
+    private static final String CENTRAL = "https://repo.maven.apache.org:443";
+
+    private final HedgePolicy policy = new HedgePolicy(List.of("https://repo.maven.apache.org/maven2"), 0.25, Duration.ofMillis(20));
+
+    @Test
+    void appliesToConfiguredUrls() {
+        assertThat(policy.appliesTo("https://repo.maven.apache.org/maven2/org/slf4j/")).isTrue();
+        assertThat(policy.appliesTo("https://search.maven.org/solrsearch/select")).isFalse();
+    }
+
+    @Test
+    void delaysByObservedP95() {
+        for (int i = 1; i < 50; i++) {
+            policy.record(CENTRAL, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertThat(policy.delay(CENTRAL)).isEmpty();
+
+        policy.record(CENTRAL, TimeUnit.MILLISECONDS.toNanos(50));
+        assertThat(policy.delay(CENTRAL)).contains(Duration.ofMillis(48));
+
+        for (int i = 51; i <= 64; i++) {
+            policy.record(CENTRAL, TimeUnit.MILLISECONDS.toNanos(i));
+        }
+        assertThat(policy.delay(CENTRAL)).contains(Duration.ofMillis(61));
+        assertThat(policy.delay("https://other:443")).isEmpty();
+    }
+
+    @Test
+    void neverDelaysLessThanMinimum() {
+        for (int i = 0; i < 100; i++) {
+            policy.record(CENTRAL, TimeUnit.MILLISECONDS.toNanos(1));
+        }
+        assertThat(policy.delay(CENTRAL)).contains(Duration.ofMillis(20));
+    }
+
+    @Test
+    void capsHedgesByBudget() {
+        assertThat(policy.tryHedge()).isFalse();
+        for (int i = 0; i < 4; i++) {
+            policy.delay(CENTRAL);
+        }
+        assertThat(policy.tryHedge()).isTrue();
+        assertThat(policy.tryHedge()).isFalse();
+
+        for (int i = 0; i < 1000; i++) {
+            policy.delay(CENTRAL);
+        }
+        int hedges = 0;
+        while (policy.tryHedge()) {
+            hedges++;
+        }
+        assertThat(hedges).isEqualTo(10);
+        assertThat(policy.status()).isEqualTo(new HedgePolicy.Status(11, 3));
+    }
+}
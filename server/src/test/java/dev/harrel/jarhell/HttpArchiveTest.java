@@ -0,0 +1,92 @@
+package dev.harrel.jarhell;
+
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.http.HttpClientTransportOverHTTP;
+import org.eclipse.jetty.http.HttpMethod;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HttpArchiveTest {
+    private static final String URL = "http://localhost:1/org/test/artifact/1.0.0/artifact-1.0.0.jar";
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void replaysRecordedEntries() throws Exception {
+        Path path = tempDir.resolve("archive.bin");
+        HttpArchive recording = new HttpArchive(HttpArchive.Mode.RECORD, path);
+        recording.record("GET", URL, "bytes=0-8096", new HttpArchive.Entry(206,
+                List.of(new HttpArchive.Header("Content-Range", "bytes 0-8096/10000")), "partial".getBytes(StandardCharsets.UTF_8)));
+        recording.record("HEAD", URL, null, new HttpArchive.Entry(200, List.of(), new byte[0]));
+        recording.close();
+
+        HttpArchive replaying = new HttpArchive(HttpArchive.Mode.REPLAY, path);
+        HttpArchive.Entry ranged = replaying.find("GET", URL, "bytes=0-8096").orElseThrow();
+        assertThat(ranged.status()).isEqualTo(206);
+        assertThat(ranged.headers()).containsExactly(new HttpArchive.Header("Content-Range", "bytes 0-8096/10000"));
+        assertThat(new String(ranged.body(), StandardCharsets.UTF_8)).isEqualTo("partial");
+        assertThat(replaying.find("HEAD", URL, null)).isPresent();
+        assertThat(replaying.find("GET", URL, null)).isEmpty();
+    }
+
+    @Test
+    void httpClientServesReplayedResponses() throws Exception {
+        Path path = tempDir.resolve("archive.bin");
+        HttpArchive recording = new HttpArchive(HttpArchive.Mode.RECORD, path);
+        recording.record("GET", URL, null, new HttpArchive.Entry(200,
+                List.of(new HttpArchive.Header("Last-Modified", "Tue, 01 Oct 2024 10:00:00 GMT")), "content".getBytes(StandardCharsets.UTF_8)));
+        recording.record("HEAD", URL, null, new HttpArchive.Entry(404, List.of(), new byte[0]));
+        recording.close();
+
+        CustomHttpClient httpClient = new CustomHttpClient(new HttpClientTransportOverHTTP(), new HttpArchive(HttpArchive.Mode.REPLAY, path));
+        httpClient.start();
+        try {
+            ContentResponse res = httpClient.sendGet(URI.create(URL), 5L);
+            assertThat(res.getStatus()).isEqualTo(200);
+            assertThat(res.getHeaders().get("Last-Modified")).isEqualTo("Tue, 01 Oct 2024 10:00:00 GMT");
+            assertThat(res.getContentAsString()).isEqualTo("content");
+
+            ContentResponse headRes = httpClient.newRequest(URL).method(HttpMethod.HEAD).send();
+            assertThat(headRes.getStatus()).isEqualTo(404);
+
+            assertThatThrownBy(() -> httpClient.sendGet(URI.create(URL + ".sha1"), 5L))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasMessageContaining("No recorded response");
+        } finally {
+            httpClient.stop();
+        }
+    }
+
+    @Test
+    void replaysTruncatedResponsesAsFailedAfterRecordedBytes() throws Exception {
+        Path path = tempDir.resolve("archive.bin");
+        HttpArchive recording = new HttpArchive(HttpArchive.Mode.RECORD, path);
+        recording.record("GET", URL, null, new HttpArchive.Entry(200, List.of(), "cont".getBytes(StandardCharsets.UTF_8), false));
+        recording.close();
+
+        HttpArchive replaying = new HttpArchive(HttpArchive.Mode.REPLAY, path);
+        assertThat(replaying.find("GET", URL, null).orElseThrow().complete()).isFalse();
+        CustomHttpClient httpClient = new CustomHttpClient(new HttpClientTransportOverHTTP(), replaying);
+        httpClient.start();
+        try {
+            String prefix = httpClient.streamGet(URI.create(URL), 5L, (_, body) -> new String(body.readNBytes(3), StandardCharsets.UTF_8));
+            assertThat(prefix).isEqualTo("con");
+
+            assertThatThrownBy(() -> httpClient.sendGet(URI.create(URL), 5L))
+                    .isInstanceOf(ExecutionException.class)
+                    .hasMessageContaining("truncated");
+        } finally {
+            httpClient.stop();
+        }
+    }
+}
@@ -5,15 +5,19 @@ import io.avaje.config.Config;
 import org.eclipse.jetty.client.api.ContentResponse;
 import org.eclipse.jetty.client.api.Request;
 import org.eclipse.jetty.http.HttpFields;
+import org.eclipse.jetty.http.HttpHeader;
 import org.eclipse.jetty.http.HttpVersion;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.ValueSource;
+import org.mockito.stubbing.Answer;
 
+import java.io.ByteArrayInputStream;
 import java.net.URI;
 import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletionException;
 import java.util.concurrent.StructuredTaskScope;
 
@@ -34,7 +38,7 @@ public class MavenApiClientTest {
     @BeforeEach
     void setUp() {
         this.httpClient = mock(CustomHttpClient.class);
-        this.mavenApiClient = new MavenApiClient(new Configuration().objectMapper(), httpClient);
+        this.mavenApiClient = new MavenApiClient(new Configuration().objectMapper(), httpClient, Optional.empty());
     }
 
     @Test
@@ -83,8 +87,8 @@ public class MavenApiClientTest {
         ContentResponseMock metadataHttpRes = new ContentResponseMock(200, """
                 <version>1.0.0</version>
                 <version>1.5.1</version>""");
-        when(httpClient.sendGet(eq(DIR_URL), anyLong())).thenReturn(dirHttpRes);
-        when(httpClient.sendGet(eq(METADATA_URL), anyLong())).thenReturn(metadataHttpRes);
+        when(httpClient.streamGet(eq(DIR_URL), anyLong(), any(), any())).thenAnswer(dirHttpRes.streamed());
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenAnswer(metadataHttpRes.streamed());
         List<String> res = mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello");
 
         assertThat(res).containsExactly(
@@ -114,7 +118,7 @@ public class MavenApiClientTest {
     @Test
     void failsIfDirAndMetadataVersionsAreEmpty() throws Exception {
         ContentResponseMock httpRes = new ContentResponseMock(200, "what?");
-        when(httpClient.sendGet(any(), anyLong())).thenReturn(httpRes);
+        when(httpClient.streamGet(any(), anyLong(), any(), any())).thenAnswer(httpRes.streamed());
 
         assertThatThrownBy(() -> mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello"))
                 .isInstanceOf(IllegalArgumentException.class);
@@ -126,8 +130,8 @@ public class MavenApiClientTest {
         ContentResponseMock metadataHttpRes = new ContentResponseMock(200, """
                 <version>1.0.0</version>
                 <version>1.5.1</version>""");
-        when(httpClient.sendGet(eq(DIR_URL), anyLong())).thenReturn(httpRes);
-        when(httpClient.sendGet(eq(METADATA_URL), anyLong())).thenReturn(metadataHttpRes);
+        when(httpClient.streamGet(eq(DIR_URL), anyLong(), any(), any())).thenAnswer(httpRes.streamed());
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenAnswer(metadataHttpRes.streamed());
 
         List<String> res = mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello");
 
@@ -138,8 +142,8 @@ public class MavenApiClientTest {
     void ignoresMetadataVersionsIf404() throws Exception {
         ContentResponseMock httpRes = new ContentResponseMock(200, "<a href=\"1.0.0/\"></a>");
         ContentResponseMock metadataHttpRes = new ContentResponseMock(404, "error");
-        when(httpClient.sendGet(eq(DIR_URL), anyLong())).thenReturn(httpRes);
-        when(httpClient.sendGet(eq(METADATA_URL), anyLong())).thenReturn(metadataHttpRes);
+        when(httpClient.streamGet(eq(DIR_URL), anyLong(), any(), any())).thenAnswer(httpRes.streamed());
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenAnswer(metadataHttpRes.streamed());
 
         List<String> res = mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello");
 
@@ -150,8 +154,8 @@ public class MavenApiClientTest {
     void failsIfDirVersionsFail() throws Exception {
         ContentResponseMock metadataHttpRes = new ContentResponseMock(200, "");
         IllegalArgumentException iae = new IllegalArgumentException();
-        when(httpClient.sendGet(eq(DIR_URL), anyLong())).thenThrow(iae);
-        when(httpClient.sendGet(eq(METADATA_URL), anyLong())).thenReturn(metadataHttpRes);
+        when(httpClient.streamGet(eq(DIR_URL), anyLong(), any(), any())).thenThrow(iae);
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenAnswer(metadataHttpRes.streamed());
 
         assertThatThrownBy(() -> mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello"))
                 .isInstanceOf(StructuredTaskScope.FailedException.class)
@@ -162,21 +166,74 @@ public class MavenApiClientTest {
     void failsIfMetadataVersionsFail() throws Exception {
         ContentResponseMock dirHttpRes = new ContentResponseMock(200, "");
         IllegalArgumentException iae = new IllegalArgumentException();
-        when(httpClient.sendGet(eq(DIR_URL), anyLong())).thenReturn(dirHttpRes);
-        when(httpClient.sendGet(eq(METADATA_URL), anyLong())).thenThrow(iae);
+        when(httpClient.streamGet(eq(DIR_URL), anyLong(), any(), any())).thenAnswer(dirHttpRes.streamed());
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenThrow(iae);
 
         assertThatThrownBy(() -> mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello"))
                 .isInstanceOf(StructuredTaskScope.FailedException.class)
                 .hasCause(iae);
     }
 
+    @Test
+    void servesLastVersionsIfFetchFails() throws Exception {
+        when(httpClient.streamGet(eq(DIR_URL), anyLong(), any(), any())).thenAnswer(new ContentResponseMock(200, "<a href=\"1.0.0/\"></a>").streamed());
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenAnswer(new ContentResponseMock(404, "error").streamed());
+        assertThat(mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello")).containsExactly("1.0.0");
+
+        when(httpClient.streamGet(eq(DIR_URL), anyLong(), any(), any())).thenThrow(new IllegalArgumentException());
+        assertThat(mavenApiClient.fetchArtifactVersions("dev.harrel", "oops.hello")).containsExactly("1.0.0");
+    }
+
+    @Test
+    void fetchesMetadataWithValidators() throws Exception {
+        HttpFields headers = HttpFields.build()
+                .add(HttpHeader.ETAG, "\"abc\"")
+                .add(HttpHeader.LAST_MODIFIED, "Tue, 01 Oct 2024 10:00:00 GMT");
+        ContentResponseMock metadataHttpRes = new ContentResponseMock(200, """
+                <version>1.0.0</version><version>1.1.0</version>
+                """, headers);
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenAnswer(metadataHttpRes.streamed());
+
+        MavenApiClient.ConditionalMetadata metadata = mavenApiClient.fetchMetadata("dev.harrel", "oops.hello", null, null);
+        assertThat(metadata.modified()).isTrue();
+        assertThat(metadata.versions()).containsExactly("1.0.0", "1.1.0");
+        assertThat(metadata.etag()).isEqualTo("\"abc\"");
+        assertThat(metadata.lastModified()).isEqualTo("Tue, 01 Oct 2024 10:00:00 GMT");
+    }
+
+    @Test
+    void keepsValidatorsIfNotModified() throws Exception {
+        when(httpClient.streamGet(eq(METADATA_URL), anyLong(), any(), any())).thenAnswer(new ContentResponseMock(304, "").streamed());
+
+        MavenApiClient.ConditionalMetadata metadata = mavenApiClient.fetchMetadata("dev.harrel", "oops.hello",
+                "\"abc\"", "Tue, 01 Oct 2024 10:00:00 GMT");
+        assertThat(metadata.modified()).isFalse();
+        assertThat(metadata.versions()).isEmpty();
+        assertThat(metadata.etag()).isEqualTo("\"abc\"");
+        assertThat(metadata.lastModified()).isEqualTo("Tue, 01 Oct 2024 10:00:00 GMT");
+    }
+
     public static class ContentResponseMock implements ContentResponse {
         private final int statusCode;
         private final String body;
+        private final HttpFields headers;
 
         public ContentResponseMock(int statusCode, String body) {
+            this(statusCode, body, null);
+        }
+
+        public ContentResponseMock(int statusCode, String body, HttpFields headers) {
             this.statusCode = statusCode;
             this.body = body;
+            this.headers = headers;
+        }
+
+        /* answer of the streaming calls, the body handler is their last argument */
+        public Answer<Object> streamed() {
+            return invocation -> {
+                CustomHttpClient.BodyHandler<?> handler = invocation.getArgument(invocation.getArguments().length - 1);
+                return handler.handle(this, new ByteArrayInputStream(getContent()));
+            };
         }
 
         @Override
@@ -226,7 +283,7 @@ public class MavenApiClientTest {
 
         @Override
         public HttpFields getHeaders() {
-            return null;
+            return headers;
         }
 
         @Override
@@ -0,0 +1,85 @@
+package dev.harrel.jarhell;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.within;
+
+class RateLimiterTest {
+    private static final String CENTRAL = "https://repo.maven.apache.org:443";
+    private static final String SEARCH = "https://search.maven.org:443";
+
+    private final AtomicLong clock = new AtomicLong();
+    private final RateLimiter limiter = new RateLimiter(10, 1, 100, Duration.ofSeconds(1), clock::get);
+
+    @Test
+    void pacesRequestsPerDestination() {
+        assertThat(limiter.reserve(CENTRAL)).isZero();
+        assertThat(limiter.reserve(CENTRAL)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(100));
+        assertThat(limiter.reserve(CENTRAL)).isEqualTo(TimeUnit.MILLISECONDS.toNanos(200));
+        assertThat(limiter.reserve(SEARCH)).isZero();
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(limiter.reserve(CENTRAL)).isZero();
+    }
+
+    @Test
+    void increasesAdditivelyAndDecreasesMultiplicatively() {
+        for (int i = 0; i < 10; i++) {
+            limiter.onResponse(CENTRAL, 200, null);
+        }
+        assertThat(limiter.rate(CENTRAL)).isCloseTo(11.0, within(0.1));
+
+        limiter.onResponse(CENTRAL, 429, null);
+        limiter.onResponse(CENTRAL, 503, null);
+        assertThat(limiter.rate(CENTRAL)).isCloseTo(5.5, within(0.1));
+
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        limiter.onResponse(CENTRAL, 429, null);
+        assertThat(limiter.rate(CENTRAL)).isCloseTo(2.75, within(0.1));
+        assertThat(limiter.rate(SEARCH)).isEqualTo(10.0);
+
+        for (int i = 0; i < 5; i++) {
+            clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+            limiter.onResponse(CENTRAL, 429, null);
+        }
+        assertThat(limiter.rate(CENTRAL)).isEqualTo(1.0);
+    }
+
+    @Test
+    void holdsDestinationForRetryAfter() {
+        limiter.onResponse(CENTRAL, 429, "3");
+
+        assertThat(limiter.reserve(CENTRAL)).isEqualTo(TimeUnit.SECONDS.toNanos(3));
+        assertThat(limiter.reserve(SEARCH)).isZero();
+    }
+
+    @Test
+    void parsesRetryAfter() {
+        Instant now = Instant.parse("2024-10-01T10:00:00Z");
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(now.plusSeconds(90).atOffset(ZoneOffset.UTC));
+
+        assertThat(RateLimiter.parseRetryAfter("120", now)).contains(Duration.ofSeconds(120));
+        assertThat(RateLimiter.parseRetryAfter(date, now)).contains(Duration.ofSeconds(90));
+        assertThat(RateLimiter.parseRetryAfter("86400", now)).contains(Duration.ofMinutes(5));
+        assertThat(RateLimiter.parseRetryAfter("-5", now)).contains(Duration.ZERO);
+        assertThat(RateLimiter.parseRetryAfter("soon", now)).isEmpty();
+        assertThat(RateLimiter.parseRetryAfter(null, now)).isEmpty();
+    }
+
+    @Test
+    void backsOffWithJitter() {
+        for (int attempt = 0; attempt < 30; attempt++) {
+            assertThat(RateLimiter.backoff(attempt, null)).isBetween(Duration.ZERO, Duration.ofSeconds(30));
+            assertThat(RateLimiter.backoff(attempt, Duration.ofMinutes(1))).isEqualTo(Duration.ofMinutes(1));
+        }
+        assertThat(RateLimiter.backoff(0, null)).isLessThanOrEqualTo(Duration.ofMillis(200));
+    }
+}
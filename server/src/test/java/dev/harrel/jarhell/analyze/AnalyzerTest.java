@@ -3,20 +3,51 @@ package dev.harrel.jarhell.analyze;
 import dev.harrel.jarhell.MavenApiClient;
 import dev.harrel.jarhell.model.*;
 import dev.harrel.jarhell.model.ArtifactInfo.EffectiveValues;
+import dev.harrel.jarhell.repo.ClassIndex;
+import dev.harrel.jarhell.repo.IndexRecordRepository;
+import org.junit.jupiter.api.Test;
 import org.junit.jupiter.params.ParameterizedTest;
 import org.junit.jupiter.params.provider.Arguments;
 import org.junit.jupiter.params.provider.MethodSource;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.junit.jupiter.params.provider.Arguments.argumentSet;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
 
 class AnalyzerTest {
-    private final Analyzer analyzer = new Analyzer(mock(MavenRunner.class), mock(MavenApiClient.class), mock(PackageAnalyzer.class));
+    private static final Gav BOM = new Gav("org.test", "bom", "1.0.0");
+    private static final long LAST_MODIFIED = 1700000000000L;
+
+    private final IndexRecordRepository indexRecordRepository = mock(IndexRecordRepository.class);
+    private final Analyzer analyzer = new Analyzer(mock(MavenRunner.class), mock(PomGraphResolver.class), mock(MavenApiClient.class),
+            mock(PackageAnalyzer.class), mock(ClassIndex.class), indexRecordRepository);
+
+    @Test
+    void describesFilesOfIndexedPomArtifact() {
+        when(indexRecordRepository.find(BOM)).thenReturn(Optional.of(new IndexRecord(BOM, "pom", LAST_MODIFIED, 1500L, "pom", Set.of())));
+
+        assertThat(analyzer.findIndexedFilesInfo(BOM)).contains(new FilesInfo(Set.of("pom"), Set.of(),
+                new FilesInfo.MainFile("pom", LocalDateTime.ofInstant(Instant.ofEpochMilli(LAST_MODIFIED), ZoneOffset.UTC), 1500L)));
+    }
+
+    @Test
+    void describesFilesOfIndexedJarArtifact() {
+        Gav gav = new Gav("org.test", "lib", "1.0.0");
+        when(indexRecordRepository.find(gav)).thenReturn(Optional.of(new IndexRecord(gav, "jar", LAST_MODIFIED, 1500L, "jar", Set.of("sources"))));
+
+        assertThat(analyzer.findIndexedFilesInfo(gav)).contains(new FilesInfo(Set.of("jar", "pom"), Set.of("sources"),
+                new FilesInfo.MainFile("jar", LocalDateTime.ofInstant(Instant.ofEpochMilli(LAST_MODIFIED), ZoneOffset.UTC), 1500L)));
+    }
 
     @ParameterizedTest
     @MethodSource("artifactTrees")
@@ -27,7 +58,7 @@ class AnalyzerTest {
 
     private static ArtifactInfo resolved(Long size, String bytecodeVersion, List<LicenseType> licenseTypes) {
         return new ArtifactInfo("org.resolved", "resolved", "1.0.0", null, null, null, null, null,
-                size, bytecodeVersion, "jar", "resolved", "desc", null, null, null, null,
+                size, bytecodeVersion, null, null, null, null, null, null, null, null, "jar", "resolved", "desc", null, null, null, null,
                 List.of(), licenseTypes, List.of(), null, null);
     }
 
@@ -127,6 +158,14 @@ class AnalyzerTest {
                         new EffectiveValues(3, 0, 1, 1111L, "61.65536",
                                 LicenseType.NO_LICENSE, List.of(Map.entry(LicenseType.NO_LICENSE, 4L)))
                 ),
+                argumentSet("2 required resolved deps - bytecode versions are compared as numbers",
+                        resolved(1000L, "99.10"), List.of(
+                                resolvedDep(1L, "100.0", false),
+                                resolvedDep(10L, "99.9", false)
+                        ),
+                        new EffectiveValues(2, 0, 0, 1011L, "100.0",
+                                LicenseType.NO_LICENSE, List.of(Map.entry(LicenseType.NO_LICENSE, 3L)))
+                ),
                 argumentSet("3 required, 1 optional resolved deps - licenses are calculated properly",
                         resolved(1000L, "52.0", List.of(LicenseType.LGPL_3)), List.of(
                                 resolvedDep(1L, "52.0", false, List.of(LicenseType.MPL_2)),
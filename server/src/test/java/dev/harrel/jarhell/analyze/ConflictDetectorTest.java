@@ -0,0 +1,107 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.*;
+import dev.harrel.jarhell.repo.ArtifactRepository;
+import dev.harrel.jarhell.repo.ClassListingRepository;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+class ConflictDetectorTest {
+    private static final Gav ROOT = new Gav("org.test", "app", "1.0.0");
+    private static final Gav COMMONS = new Gav("org.test", "commons", "1.0.0");
+    private static final Gav SHADED = new Gav("org.test", "shaded", "1.0.0");
+    private static final Gav EXTRA = new Gav("org.test", "extra", "1.0.0");
+    private static final Gav UNRESOLVED = new Gav("org.test", "unresolved", "1.0.0");
+    private static final Gav TESTING = new Gav("org.test", "testing", "1.0.0");
+    private static final Gav PROVIDED = new Gav("org.test", "provided", "1.0.0");
+
+    @Test
+    void reportsDuplicateClassesAndSplitPackages() {
+        ConflictReport report = ConflictDetector.createReport(ROOT, Map.of(
+                ROOT, List.of("org.test.app.Main"),
+                COMMONS, List.of("org.test.commons.A", "org.test.commons.B", "org.test.commons.C", "org.test.commons.util.D"),
+                SHADED, List.of("org.test.commons.A", "org.test.commons.B", "org.test.commons.util.D", "org.test.shaded.S"),
+                EXTRA, List.of("Root", "org.test.commons.B", "org.test.commons.Extra")
+        ), List.of(UNRESOLVED));
+
+        assertThat(report.artifacts()).isEqualTo(5);
+        assertThat(report.missingListings()).containsExactly(UNRESOLVED);
+        assertThat(report.duplicateClasses()).containsExactly(
+                new ConflictReport.DuplicateClasses(List.of(COMMONS, SHADED), 2, List.of("org.test.commons.A", "org.test.commons.util.D")),
+                new ConflictReport.DuplicateClasses(List.of(COMMONS, EXTRA, SHADED), 1, List.of("org.test.commons.B"))
+        );
+        assertThat(report.splitPackages()).containsExactly(
+                new ConflictReport.SplitPackage("org.test.commons", List.of(COMMONS, EXTRA, SHADED)),
+                new ConflictReport.SplitPackage("org.test.commons.util", List.of(COMMONS, SHADED))
+        );
+    }
+
+    @Test
+    void reportsNothingForDisjointArtifacts() {
+        ConflictReport report = ConflictDetector.createReport(ROOT, Map.of(
+                ROOT, List.of("org.test.app.Main"),
+                COMMONS, List.of("org.test.commons.A"),
+                SHADED, List.of()
+        ), List.of());
+
+        assertThat(report.artifacts()).isEqualTo(3);
+        assertThat(report.duplicateClasses()).isEmpty();
+        assertThat(report.splitPackages()).isEmpty();
+    }
+
+    @Test
+    void collectsOnlyNonOptionalRuntimeArtifacts() {
+        ArtifactTree root = tree(ROOT, List.of(
+                new DependencyInfo(tree(COMMONS, List.of(
+                        new DependencyInfo(tree(PROVIDED), false, "provided"),
+                        new DependencyInfo(tree(SHADED), false, "runtime"))), false, "compile"),
+                new DependencyInfo(tree(EXTRA), null, null),
+                new DependencyInfo(tree(UNRESOLVED), true, "compile"),
+                new DependencyInfo(tree(TESTING), false, "test"),
+                new DependencyInfo(tree(SHADED), false, "compile")));
+
+        assertThat(ConflictDetector.runtimeArtifacts(root)).containsOnlyKeys(ROOT, COMMONS, EXTRA, SHADED);
+    }
+
+    @Test
+    void cachesReportUntilListingsChange() {
+        ArtifactRepository artifactRepository = mock(ArtifactRepository.class);
+        ClassListingRepository listingRepository = mock(ClassListingRepository.class);
+        ArtifactTree root = tree(ROOT, List.of(new DependencyInfo(tree(COMMONS), false, "compile")));
+        when(artifactRepository.find(ROOT, 0)).thenReturn(Optional.of(tree(ROOT)));
+        when(artifactRepository.find(ROOT, -1)).thenReturn(Optional.of(root));
+        when(listingRepository.find(ROOT)).thenReturn(Optional.of(List.of("org.test.commons.A")));
+        when(listingRepository.find(COMMONS)).thenReturn(Optional.of(List.of("org.test.commons.A")));
+        when(listingRepository.size()).thenReturn(100L);
+        ConflictDetector detector = new ConflictDetector(artifactRepository, listingRepository);
+
+        ConflictReport report = detector.detect(ROOT).orElseThrow();
+        assertThat(report.duplicateClasses()).hasSize(1);
+        assertThat(detector.detect(ROOT)).contains(report);
+        verify(artifactRepository, times(1)).find(ROOT, -1);
+
+        // a dependency got re-analyzed, root stays the same
+        when(listingRepository.find(COMMONS)).thenReturn(Optional.of(List.of("org.test.commons.B")));
+        when(listingRepository.size()).thenReturn(200L);
+        assertThat(detector.detect(ROOT).orElseThrow().duplicateClasses()).isEmpty();
+        verify(artifactRepository, times(2)).find(ROOT, -1);
+    }
+
+    private static ArtifactTree tree(Gav gav) {
+        return tree(gav, List.of());
+    }
+
+    private static ArtifactTree tree(Gav gav, List<DependencyInfo> dependencies) {
+        ArtifactInfo info = new ArtifactInfo(gav.groupId(), gav.artifactId(), gav.version(), gav.classifier(), null, null, null,
+                null, null, null, null, null, null, null, null, null, null, null, "jar", null, null, null, null, null, null,
+                null, null, null, null, LocalDateTime.of(2024, 1, 1, 0, 0));
+        return new ArtifactTree(info, dependencies);
+    }
+}
@@ -0,0 +1,170 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.SizeComponent;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.jar.Attributes;
+import java.util.stream.IntStream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class JarMetadataTest {
+    private static final Path JMAIL_JAR = Path.of("src/test/resources/reposilite/repositories/snapshots/com/sanctionco/jmail/jmail/1.6.2/jmail-1.6.2.jar");
+
+    @Test
+    void readsMultiReleaseLayout() throws IOException {
+        List<ZipDirectory.Entry> entries = readEntries(ByteBuffer.wrap(createZip(
+                "META-INF/MANIFEST.MF",
+                "a/A.class",
+                "a/B.class",
+                "META-INF/versions/11/a/A.class",
+                "META-INF/versions/17/module-info.class",
+                "META-INF/versions/9/module-info.class",
+                "natives/linux-x86_64/libfoo.so"
+        )));
+
+        assertThat(JarMetadata.classCount(entries)).isEqualTo(2);
+        assertThat(JarMetadata.releaseVersions(entries)).containsExactly(9, 11, 17);
+        assertThat(JarMetadata.hasNativeLibraries(entries)).isTrue();
+        assertThat(JarMetadata.findManifest(entries)).map(ZipDirectory.Entry::name).contains("META-INF/MANIFEST.MF");
+        assertThat(JarMetadata.findModuleInfo(entries)).map(ZipDirectory.Entry::name).contains("META-INF/versions/9/module-info.class");
+    }
+
+    @Test
+    void prefersRootModuleInfo() throws IOException {
+        List<ZipDirectory.Entry> entries = readEntries(ByteBuffer.wrap(createZip(
+                "META-INF/versions/9/module-info.class",
+                "module-info.class",
+                "a/A.class"
+        )));
+
+        assertThat(JarMetadata.classCount(entries)).isEqualTo(1);
+        assertThat(JarMetadata.hasNativeLibraries(entries)).isFalse();
+        assertThat(JarMetadata.findModuleInfo(entries)).map(ZipDirectory.Entry::name).contains("module-info.class");
+    }
+
+    @Test
+    void readsWebClassesAsJarEntries() throws IOException {
+        List<ZipDirectory.Entry> entries = JarMetadata.webEntries(readEntries(ByteBuffer.wrap(createZip(
+                "META-INF/MANIFEST.MF",
+                "WEB-INF/classes/a/A.class",
+                "WEB-INF/lib/lib.jar",
+                "index.jsp",
+                "org/apache/jsp/index_jsp.class"
+        ))));
+
+        assertThat(entries).extracting(ZipDirectory.Entry::name)
+                .containsExactly("META-INF/MANIFEST.MF", "a/A.class", "WEB-INF/lib/lib.jar", "index.jsp");
+        assertThat(JarMetadata.classNames(entries)).containsExactly("a.A");
+    }
+
+    @Test
+    void findsNestedArchives() throws IOException {
+        List<ZipDirectory.Entry> aar = readEntries(ByteBuffer.wrap(createZip(
+                "AndroidManifest.xml",
+                "libs/extra.jar",
+                "classes.jar"
+        )));
+        assertThat(JarMetadata.findNestedArchive(aar, "aar")).map(ZipDirectory.Entry::name).contains("classes.jar");
+
+        List<ZipDirectory.Entry> ear = readEntries(ByteBuffer.wrap(createZip(
+                "META-INF/application.xml",
+                "lib/a-very-long-library-name.jar",
+                "web.war",
+                "ejb.jar",
+                "ejb-longer-name.jar"
+        )));
+        assertThat(JarMetadata.findNestedArchive(ear, "ear")).map(ZipDirectory.Entry::name).contains("ejb-longer-name.jar");
+        assertThat(JarMetadata.findNestedArchive(aar.subList(0, 1), "aar")).isEmpty();
+    }
+
+    @Test
+    void breaksDownSizeByKindOfEntries() throws IOException {
+        List<ZipDirectory.Entry> entries = readEntries(ByteBuffer.wrap(createZip(
+                "META-INF/MANIFEST.MF",
+                "org/example/A.class",
+                "META-INF/versions/11/org/example/A.class",
+                "org/example/shaded/io/netty/Channel.class",
+                "org/example/shaded/io/netty/buffer/ByteBuf.class",
+                "com/google/common/base/Strings.class",
+                "natives/libfoo.so",
+                "lib/bundled.jar"
+        )));
+
+        assertThat(JarMetadata.sizeComposition(entries, "org.example"))
+                .extracting(SizeComponent::kind, SizeComponent::packagePrefix, SizeComponent::entries, SizeComponent::size)
+                .containsExactly(
+                        tuple(SizeComponent.CLASSES, null, 2L, 59L),
+                        tuple(SizeComponent.RESOURCES, null, 1L, 20L),
+                        tuple(SizeComponent.NATIVE_LIBRARIES, null, 1L, 17L),
+                        tuple(SizeComponent.ARCHIVES, null, 1L, 15L),
+                        tuple(SizeComponent.SHADED_CLASSES, "org.example.shaded.io.netty", 2L, 89L),
+                        tuple(SizeComponent.SHADED_CLASSES, "com.google.common", 1L, 36L));
+        assertThat(JarMetadata.sizeComposition(entries, "com.google.guava"))
+                .extracting(SizeComponent::kind, SizeComponent::entries)
+                .contains(tuple(SizeComponent.CLASSES, 3L))
+                .doesNotContain(tuple(SizeComponent.SHADED_CLASSES, 1L));
+    }
+
+    @Test
+    void samplesClassesEvenly() throws IOException {
+        String[] names = IntStream.range(0, 10).mapToObj("a/C%d.class"::formatted).toArray(String[]::new);
+        List<ZipDirectory.Entry> entries = readEntries(ByteBuffer.wrap(createZip(names)));
+
+        assertThat(JarMetadata.sampleClasses(entries, 1)).extracting(ZipDirectory.Entry::name).containsExactly("a/C0.class");
+        assertThat(JarMetadata.sampleClasses(entries, 4)).extracting(ZipDirectory.Entry::name)
+                .containsExactly("a/C0.class", "a/C3.class", "a/C6.class", "a/C9.class");
+        assertThat(JarMetadata.sampleClasses(entries, 20)).hasSize(10);
+    }
+
+    @Test
+    void parsesMainSectionOfTruncatedManifest() throws IOException {
+        String manifest = """
+                Manifest-Version: 1.0\r
+                Automatic-Module-Name: org.test.artifact\r
+                Multi-Release: true\r
+                \r
+                Name: a/A.class\r
+                SHA-256-Digest: 4Ys""";
+
+        Attributes attributes = JarMetadata.parseMainAttributes(manifest.getBytes());
+        assertThat(attributes.getValue("Automatic-Module-Name")).isEqualTo("org.test.artifact");
+        assertThat(attributes.getValue("Multi-Release")).isEqualTo("true");
+    }
+
+    @Test
+    void readsModuleNameFromDescriptor() throws IOException {
+        ByteBuffer jar = ByteBuffer.wrap(Files.readAllBytes(JMAIL_JAR));
+        List<ZipDirectory.Entry> entries = readEntries(jar);
+        ZipDirectory.Entry moduleInfo = JarMetadata.findModuleInfo(entries).orElseThrow();
+
+        ByteBuffer local = jar.slice((int) moduleInfo.localHeaderOffset(), jar.limit() - (int) moduleInfo.localHeaderOffset());
+        byte[] content = ZipDirectory.readEntryPrefix(local, moduleInfo, (int) moduleInfo.size());
+        assertThat(JarMetadata.parseModuleName(content)).isEqualTo("com.sanctionco.jmail");
+    }
+
+    private static List<ZipDirectory.Entry> readEntries(ByteBuffer zip) throws IOException {
+        ZipDirectory.End end = ZipDirectory.findEnd(zip, 0).orElseThrow();
+        return ZipDirectory.parseEntries(zip.slice((int) end.centralDirectoryOffset(), (int) end.centralDirectorySize()));
+    }
+
+    private static byte[] createZip(String... names) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            for (String name : names) {
+                zos.putNextEntry(new ZipEntry(name));
+                zos.write(name.getBytes());
+            }
+        }
+        return baos.toByteArray();
+    }
+}
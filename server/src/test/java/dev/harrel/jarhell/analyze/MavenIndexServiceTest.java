@@ -0,0 +1,75 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.model.IndexRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MavenIndexServiceTest {
+    private static final Gav GAV = new Gav("org.test", "lib", "1.0.0");
+
+    @Test
+    void convertsMainRow() {
+        assertThat(MavenIndexService.rowToIndexRecord(Map.of(
+                "u", "org.test|lib|1.0.0|NA|jar",
+                "i", "jar|1700000000000|1234|1|1|0|jar")))
+                .contains(new IndexRecord(GAV, "jar", 1700000000000L, 1234L, "jar", Set.of()));
+    }
+
+    @Test
+    void convertsRowsWithMissingFields() {
+        assertThat(MavenIndexService.rowToIndexRecord(Map.of(
+                "u", "org.test|lib|1.0.0|NA",
+                "i", "NA|0|-1")))
+                .contains(new IndexRecord(GAV, null, null, null, null, Set.of()));
+        assertThat(MavenIndexService.rowToIndexRecord(Map.of(
+                "u", "org.test|lib|1.0.0|NA|pom",
+                "i", "pom|1700000000000|x|0|0|0|pom")))
+                .isEmpty();
+        assertThat(MavenIndexService.rowToIndexRecord(Map.of("u", "org.test|lib|1.0.0|NA"))).isEmpty();
+        assertThat(MavenIndexService.rowToIndexRecord(Map.of("i", "jar|1700000000000|1234"))).isEmpty();
+    }
+
+    @Test
+    void convertsClassifierRow() {
+        assertThat(MavenIndexService.rowToIndexRecord(Map.of(
+                "u", "org.test|lib|1.0.0|sources|jar",
+                "i", "jar|1700000000000|99|0|0|0|jar")))
+                .contains(new IndexRecord(GAV, null, null, null, null, Set.of("sources")));
+    }
+
+    @Test
+    void mergesClassifierOnlyRows() {
+        IndexRecord sources = new IndexRecord(GAV, null, null, null, null, Set.of("sources"));
+        IndexRecord javadoc = new IndexRecord(GAV, null, null, null, null, Set.of("javadoc"));
+
+        IndexRecord merged = MavenIndexService.mergeRecords(sources, javadoc);
+        assertThat(merged).isEqualTo(new IndexRecord(GAV, null, null, null, null, Set.of("sources", "javadoc")));
+        assertThat(merged.isComplete()).isFalse();
+    }
+
+    @Test
+    void mergesMainRowWithMissingFields() {
+        IndexRecord main = new IndexRecord(GAV, "jar", null, null, null, Set.of());
+        IndexRecord sources = new IndexRecord(GAV, null, null, null, null, Set.of("sources"));
+
+        assertThat(MavenIndexService.mergeRecords(main, sources))
+                .isEqualTo(new IndexRecord(GAV, "jar", null, null, null, Set.of("sources")));
+        assertThat(MavenIndexService.mergeRecords(sources, main))
+                .isEqualTo(new IndexRecord(GAV, "jar", null, null, null, Set.of("sources")));
+    }
+
+    @Test
+    void mergesCompleteMainRow() {
+        IndexRecord main = new IndexRecord(GAV, "jar", 1700000000000L, 1234L, "jar", Set.of());
+        IndexRecord javadoc = new IndexRecord(GAV, null, null, null, null, Set.of("javadoc"));
+
+        IndexRecord merged = MavenIndexService.mergeRecords(javadoc, main);
+        assertThat(merged).isEqualTo(new IndexRecord(GAV, "jar", 1700000000000L, 1234L, "jar", Set.of("javadoc")));
+        assertThat(merged.isComplete()).isTrue();
+    }
+}
@@ -0,0 +1,116 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.MavenApiClient;
+import dev.harrel.jarhell.extension.EnvironmentTest;
+import dev.harrel.jarhell.model.CollectedDependencies;
+import dev.harrel.jarhell.model.Gav;
+import org.apache.maven.model.building.ModelBuilder;
+import org.eclipse.aether.DefaultRepositoryCache;
+import org.eclipse.aether.DefaultRepositorySystemSession;
+import org.eclipse.aether.DefaultSessionData;
+import org.eclipse.aether.RepositorySystem;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnvironmentTest
+class PomGraphResolverTest {
+    private static final Logger logger = LoggerFactory.getLogger(PomGraphResolverTest.class);
+    private static final int ROUNDS = 5;
+    private static final int COPIES = 20;
+
+    @ParameterizedTest
+    @ValueSource(strings = {
+            "org.test:artifact:1.0.10",
+            "org.test:artifact:1.1.0",
+            "org.test:artifact:3.0.1",
+            "org.test:artifact:3.2.1",
+            "org.test:pre-cycle:1.0.0",
+            "org.test:cycle1:1.0.0",
+            "org.test:cycle-self:1.0.0",
+            "org.test:cycle-self-soft:1.0.0",
+            "com.sanctionco.jmail:jmail:1.6.2",
+            "dev.harrel:json-schema:1.5.0",
+            "org.test:missing:1.0.0"
+    })
+    void conformsToAether(String coordinate, MavenRunner mavenRunner, PomGraphResolver pomGraphResolver) {
+        Gav gav = Gav.fromCoordinate(coordinate).orElseThrow();
+        CollectedDependencies expected = mavenRunner.collectDependencies(gav);
+        CollectedDependencies actual = pomGraphResolver.collectDependencies(gav);
+
+        assertThat(actual.directDependencies()).containsExactlyElementsOf(expected.directDependencies());
+        assertThat(actual.allDependencies()).containsExactlyInAnyOrderElementsOf(expected.allDependencies());
+    }
+
+    /* ./gradlew benchmarkTest
+     * Every round collects the same trees concurrently, the way ArtifactProcessor does, with caches of both resolvers
+     * dropped beforehand - Aether shares its session between all collections, the POM graph resolver shares nothing but models */
+    @Test
+    @Tag("benchmark")
+    void benchmark(RepositorySystem repoSystem, DefaultRepositorySystemSession session, ModelBuilder modelBuilder,
+                   MavenApiClient mavenApiClient) throws InterruptedException {
+        List<Gav> gavs = Stream.of(
+                "org.test:artifact:1.0.10",
+                "org.test:artifact:3.2.1",
+                "org.test:pre-cycle:1.0.0",
+                "com.sanctionco.jmail:jmail:1.6.2",
+                "dev.harrel:json-schema:1.5.0"
+        ).map(c -> Gav.fromCoordinate(c).orElseThrow()).toList();
+
+        List<Long> aetherRounds = new ArrayList<>();
+        List<Long> pomGraphRounds = new ArrayList<>();
+        for (int round = 0; round < ROUNDS; round++) {
+            DefaultRepositorySystemSession coldSession = new DefaultRepositorySystemSession(session);
+            coldSession.setCache(new DefaultRepositoryCache());
+            coldSession.setData(new DefaultSessionData());
+            MavenRunner mavenRunner = new MavenRunner(repoSystem, coldSession, new ConcurrencyLimits());
+            PomGraphResolver pomGraphResolver = new PomGraphResolver(modelBuilder, mavenApiClient, coldSession);
+
+            aetherRounds.add(measureConcurrently(gavs, mavenRunner::collectDependencies));
+            pomGraphRounds.add(measureConcurrently(gavs, pomGraphResolver::collectDependencies));
+            logger.info("Round {}: aether {} ms, pom-graph {} ms", round,
+                    aetherRounds.getLast() / 1_000_000, pomGraphRounds.getLast() / 1_000_000);
+        }
+
+        long aetherMedian = median(aetherRounds);
+        long pomGraphMedian = median(pomGraphRounds);
+        logger.info("Median of {} concurrent collections: aether {} ms, pom-graph {} ms, speedup {}x",
+                gavs.size() * COPIES, aetherMedian / 1_000_000, pomGraphMedian / 1_000_000,
+                "%.2f".formatted((double) aetherMedian / pomGraphMedian));
+        assertThat(pomGraphMedian).isLessThan(aetherMedian);
+    }
+
+    /* wall time of collecting every tree COPIES times at once */
+    private static long measureConcurrently(List<Gav> gavs, Function<Gav, CollectedDependencies> collector) throws InterruptedException {
+        List<Gav> work = gavs.stream().flatMap(gav -> Collections.nCopies(COPIES, gav).stream()).toList();
+        long start = System.nanoTime();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<Future<CollectedDependencies>> futures = work.stream()
+                    .map(gav -> executor.submit(() -> collector.apply(gav)))
+                    .toList();
+            for (Future<CollectedDependencies> future : futures) {
+                assertThat(future).succeedsWithin(Duration.ofMinutes(1));
+            }
+        }
+        return System.nanoTime() - start;
+    }
+
+    private static long median(List<Long> values) {
+        return values.stream().sorted().toList().get(values.size() / 2);
+    }
+}
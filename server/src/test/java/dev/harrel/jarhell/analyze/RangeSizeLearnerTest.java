@@ -0,0 +1,67 @@
+package dev.harrel.jarhell.analyze;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RangeSizeLearnerTest {
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void usesFallbackUntilEnoughSamples() {
+        RangeSizeLearner learner = new RangeSizeLearner(tempDir.resolve("stats.properties"));
+        for (int i = 0; i < 10; i++) {
+            learner.record("first-class", "jar", 100_000L, 3000);
+        }
+        assertThat(learner.suggest("first-class", "jar", 100_000L, 8096)).isEqualTo(8096);
+    }
+
+    @Test
+    void suggestsBucketCoveringMostSamples() {
+        RangeSizeLearner learner = new RangeSizeLearner(tempDir.resolve("stats.properties"));
+        for (int i = 0; i < 95; i++) {
+            learner.record("first-class", "jar", 100_000L, 3000);
+        }
+        for (int i = 0; i < 5; i++) {
+            learner.record("first-class", "jar", 100_000L, 500_000);
+        }
+        assertThat(learner.suggest("first-class", "jar", 100_000L, 8096)).isEqualTo(4096);
+        // other size buckets fall back to stats of all sizes
+        assertThat(learner.suggest("first-class", "jar", 10_000_000L, 8096)).isEqualTo(4096);
+        assertThat(learner.suggest("first-class", "jar", null, 8096)).isEqualTo(4096);
+        assertThat(learner.suggest("central-directory", "jar", null, 8096)).isEqualTo(8096);
+    }
+
+    @Test
+    void keepsStatsAcrossRestarts() {
+        Path path = tempDir.resolve("stats.properties");
+        RangeSizeLearner learner = new RangeSizeLearner(path);
+        for (int i = 0; i < 30; i++) {
+            learner.record("central-directory", "jar", 1_000_000L, 20_000);
+        }
+        learner.save();
+
+        RangeSizeLearner restarted = new RangeSizeLearner(path);
+        assertThat(restarted.suggest("central-directory", "jar", 1_000_000L, 65536)).isEqualTo(32768);
+    }
+
+    @Test
+    void skipsCorruptedStats() throws IOException {
+        Path path = tempDir.resolve("stats.properties");
+        String counts = "0,0,0,0,0,30,0,0,0,0,0,0,0,0,0";
+        Files.writeString(path, """
+                first-class.jar.any=%s
+                central-directory.jar.any=0,x,0
+                """.formatted(counts));
+
+        RangeSizeLearner learner = new RangeSizeLearner(path);
+        assertThat(learner.suggest("first-class", "jar", null, 8096)).isEqualTo(32768);
+        assertThat(learner.suggest("central-directory", "jar", null, 65536)).isEqualTo(65536);
+    }
+}
@@ -0,0 +1,28 @@
+package dev.harrel.jarhell.analyze;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReleaseWatcherTest {
+
+    @Test
+    void findsVersionsNewerThanLatestKnown() {
+        List<String> newVersions = ReleaseWatcher.newVersions(List.of("1.0.0", "1.2.0"), List.of("1.0.0", "1.1.0", "1.2.0", "1.3.0", "2.0.0-RC1"));
+        assertThat(newVersions).containsExactly("1.3.0", "2.0.0-RC1");
+    }
+
+    @Test
+    void findsNothingIfUpToDate() {
+        List<String> newVersions = ReleaseWatcher.newVersions(List.of("1.0.0", "1.1.0"), List.of("1.0.0", "1.1.0"));
+        assertThat(newVersions).isEmpty();
+    }
+
+    @Test
+    void comparesVersionsSemantically() {
+        List<String> newVersions = ReleaseWatcher.newVersions(List.of("1.9"), List.of("1.9", "1.10"));
+        assertThat(newVersions).containsExactly("1.10");
+    }
+}
@@ -7,6 +7,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentMatcher;
 
 import java.net.URI;
+import java.nio.file.Path;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
@@ -42,13 +43,25 @@ class RepoWalkerTest {
     @Test
     void doesntFailForFailedRequests() throws ExecutionException, InterruptedException, TimeoutException {
         CustomHttpClient httpClient = mock(CustomHttpClient.class);
-        when(httpClient.sendGetWithRetries((URI) any(), anyInt())).thenReturn(new MavenApiClientTest.ContentResponseMock(200, """
+        when(httpClient.streamGetWithRetries((URI) any(), anyInt(), any())).thenAnswer(new MavenApiClientTest.ContentResponseMock(200, """
                 <a href="../">../</a>
                 <a href="path/">path/</a>
-                """));
-        when(httpClient.sendGetWithRetries(argThat(uriEndsWith("/path/")), anyInt())).thenReturn(new MavenApiClientTest.ContentResponseMock(404, "err"));
+                """).streamed());
+        when(httpClient.streamGetWithRetries(argThat(uriEndsWith("/path/")), anyInt(), any())).thenAnswer(new MavenApiClientTest.ContentResponseMock(404, "err").streamed());
 
-        new RepoWalker(httpClient).walk(repoUrl, _ -> {}).get();
+        new RepoWalker(httpClient, new ConcurrencyLimits()).walk(repoUrl, _ -> {}).get();
+    }
+
+    @Test
+    void collectsGavsFromFileRepository() {
+        String fileRepoUrl = Path.of("src/test/resources/reposilite/repositories/snapshots").toUri().toString();
+        Set<RepoWalker.ArtifactData> gavs = Collections.newSetFromMap(new ConcurrentHashMap<>());
+        new RepoWalker(mock(CustomHttpClient.class), new ConcurrencyLimits()).walk(fileRepoUrl, gavs::add).join();
+
+        assertThat(gavs).contains(
+                new RepoWalker.ArtifactData("org.test", "artifact", List.of("1.0.10", "1.1.0", "3.0.1", "3.2.1")),
+                new RepoWalker.ArtifactData("com.sanctionco.jmail", "jmail", List.of("1.6.2"))
+        );
     }
 
     private static ArgumentMatcher<URI> uriEndsWith(String suffix) {
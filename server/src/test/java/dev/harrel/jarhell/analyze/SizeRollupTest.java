@@ -0,0 +1,49 @@
+package dev.harrel.jarhell.analyze;
+
+import dev.harrel.jarhell.model.ArtifactInfo;
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.model.SizeComponent;
+import dev.harrel.jarhell.model.SizeReport;
+import org.junit.jupiter.api.Test;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SizeRollupTest {
+    private static final Gav ROOT = new Gav("org.test", "app", "1.0.0");
+    private static final Gav NATIVE = new Gav("org.test", "native", "1.0.0");
+    private static final Gav FAT = new Gav("org.test", "fat", "1.0.0");
+    private static final Gav OLD = new Gav("org.test", "old", "1.0.0");
+
+    @Test
+    void sumsUpCompositionsOfArtifacts() {
+        Map<Gav, ArtifactInfo> artifacts = new LinkedHashMap<>();
+        artifacts.put(ROOT, artifactInfo(ROOT, 100L, List.of(new SizeComponent(SizeComponent.CLASSES, null, 2, 150, 100))));
+        artifacts.put(NATIVE, artifactInfo(NATIVE, 5000L, List.of(
+                new SizeComponent(SizeComponent.CLASSES, null, 1, 50, 40),
+                new SizeComponent(SizeComponent.NATIVE_LIBRARIES, null, 3, 9000, 4960))));
+        artifacts.put(FAT, artifactInfo(FAT, 1000L, List.of(
+                new SizeComponent(SizeComponent.CLASSES, null, 1, 50, 40),
+                new SizeComponent(SizeComponent.SHADED_CLASSES, "com.google.common", 30, 1500, 960))));
+        artifacts.put(OLD, artifactInfo(OLD, 10L, null));
+
+        SizeReport report = SizeRollup.createReport(ROOT, artifacts);
+
+        assertThat(report.size()).isEqualTo(6110L);
+        assertThat(report.missingCompositions()).containsExactly(OLD);
+        assertThat(report.composition()).containsExactly(
+                new SizeComponent(SizeComponent.NATIVE_LIBRARIES, null, 3, 9000, 4960),
+                new SizeComponent(SizeComponent.SHADED_CLASSES, "com.google.common", 30, 1500, 960),
+                new SizeComponent(SizeComponent.CLASSES, null, 4, 250, 180));
+        assertThat(report.artifacts()).extracting(SizeReport.ArtifactSize::artifact).containsExactly(NATIVE, FAT, ROOT, OLD);
+    }
+
+    private static ArtifactInfo artifactInfo(Gav gav, Long packageSize, List<SizeComponent> sizeComposition) {
+        return new ArtifactInfo(gav.groupId(), gav.artifactId(), gav.version(), gav.classifier(), null, null, null, null,
+                packageSize, "52.0", null, null, null, null, null, null, null, sizeComposition, "jar", null, null, null, null, null, null,
+                List.of(), List.of(), List.of(), null, null);
+    }
+}
@@ -0,0 +1,107 @@
+package dev.harrel.jarhell.analyze;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.CRC32;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ZipDirectoryTest {
+    private static final byte[] CLASS_HEADER = {(byte) 0xCA, (byte) 0xFE, (byte) 0xBA, (byte) 0xBE, 0, 0, 0, 61};
+
+    @Test
+    void readsCentralDirectoryFromTail() throws IOException {
+        byte[] zip = createZip("comment");
+        int tailSize = 300;
+        ByteBuffer tail = ByteBuffer.wrap(zip, zip.length - tailSize, tailSize).slice();
+
+        ZipDirectory.End end = ZipDirectory.findEnd(tail, zip.length - tailSize).orElseThrow();
+        assertThat(end.entries()).isEqualTo(3);
+        assertThat(end.centralDirectoryOffset() + end.centralDirectorySize()).isLessThanOrEqualTo(zip.length);
+
+        ByteBuffer cd = ByteBuffer.wrap(zip, (int) end.centralDirectoryOffset(), (int) end.centralDirectorySize()).slice();
+        List<ZipDirectory.Entry> entries = ZipDirectory.parseEntries(cd);
+        assertThat(entries).extracting(ZipDirectory.Entry::name)
+                .containsExactly("META-INF/MANIFEST.MF", "a/Stored.class", "a/Deflated.class");
+        assertThat(entries).extracting(ZipDirectory.Entry::isClass).containsExactly(false, true, true);
+    }
+
+    @Test
+    void readsPrefixOfStoredAndDeflatedEntries() throws IOException {
+        byte[] zip = createZip(null);
+        ByteBuffer whole = ByteBuffer.wrap(zip);
+        ZipDirectory.End end = ZipDirectory.findEnd(whole, 0).orElseThrow();
+        List<ZipDirectory.Entry> entries = ZipDirectory.parseEntries(whole.slice((int) end.centralDirectoryOffset(), (int) end.centralDirectorySize()));
+
+        for (ZipDirectory.Entry entry : entries.subList(1, 3)) {
+            int length = (int) Math.min(entry.localRangeLength(8), zip.length - entry.localHeaderOffset());
+            ByteBuffer local = whole.slice((int) entry.localHeaderOffset(), length);
+            assertThat(ZipDirectory.readEntryPrefix(local, entry, 8)).isEqualTo(CLASS_HEADER);
+        }
+    }
+
+    @Test
+    void streamsDataOfStoredAndDeflatedEntries() throws IOException {
+        byte[] zip = createZip(null);
+        ByteBuffer whole = ByteBuffer.wrap(zip);
+        ZipDirectory.End end = ZipDirectory.findEnd(whole, 0).orElseThrow();
+        List<ZipDirectory.Entry> entries = ZipDirectory.parseEntries(whole.slice((int) end.centralDirectoryOffset(), (int) end.centralDirectorySize()));
+
+        for (ZipDirectory.Entry entry : entries.subList(1, 3)) {
+            ByteBuffer local = whole.slice((int) entry.localHeaderOffset(), zip.length - (int) entry.localHeaderOffset());
+            try (InputStream is = ZipDirectory.openEntry(local, entry)) {
+                byte[] data = is.readAllBytes();
+                assertThat(data).hasSize(4096);
+                assertThat(Arrays.copyOf(data, CLASS_HEADER.length)).isEqualTo(CLASS_HEADER);
+            }
+        }
+
+        ZipDirectory.Entry deflated = entries.get(2);
+        ByteBuffer local = whole.slice((int) deflated.localHeaderOffset(), zip.length - (int) deflated.localHeaderOffset());
+        ByteBuffer truncated = local.slice(0, ZipDirectory.dataOffset(local, deflated) + (int) deflated.compressedSize() / 2);
+        try (InputStream is = ZipDirectory.openEntry(truncated, deflated)) {
+            assertThatThrownBy(is::readAllBytes).isInstanceOf(EOFException.class);
+        }
+    }
+
+    @Test
+    void returnsEmptyForNonZipData() {
+        assertThat(ZipDirectory.findEnd(ByteBuffer.wrap(new byte[1024]), 0)).isEmpty();
+    }
+
+    private static byte[] createZip(String comment) throws IOException {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ZipOutputStream zos = new ZipOutputStream(baos)) {
+            zos.putNextEntry(new ZipEntry("META-INF/MANIFEST.MF"));
+            zos.write("Manifest-Version: 1.0\n".getBytes());
+
+            byte[] classBytes = new byte[4096];
+            System.arraycopy(CLASS_HEADER, 0, classBytes, 0, CLASS_HEADER.length);
+            ZipEntry stored = new ZipEntry("a/Stored.class");
+            stored.setMethod(ZipEntry.STORED);
+            stored.setSize(classBytes.length);
+            CRC32 crc = new CRC32();
+            crc.update(classBytes);
+            stored.setCrc(crc.getValue());
+            zos.putNextEntry(stored);
+            zos.write(classBytes);
+
+            zos.putNextEntry(new ZipEntry("a/Deflated.class"));
+            zos.write(classBytes);
+            if (comment != null) {
+                zos.setComment(comment);
+            }
+        }
+        return baos.toByteArray();
+    }
+}
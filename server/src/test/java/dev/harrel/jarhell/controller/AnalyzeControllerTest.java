@@ -15,6 +15,7 @@ import org.neo4j.driver.Driver;
 import org.neo4j.driver.EagerResult;
 
 import java.time.Duration;
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ExecutionException;
@@ -46,7 +47,7 @@ class AnalyzeControllerTest {
                 .send();
 
         assertThat(res.getStatus()).isEqualTo(202);
-        assertThat(res.getContentAsString()).isEmpty();
+        assertJobAccepted(res);
 
         await().atMost(Duration.ofSeconds(5)).until(() -> !fetchByArtifactId("jmail").records().isEmpty());
 
@@ -77,7 +78,7 @@ class AnalyzeControllerTest {
                 .send();
 
         assertThat(res.getStatus()).isEqualTo(202);
-        assertThat(res.getContentAsString()).isEmpty();
+        assertJobAccepted(res);
 
         await().atMost(Duration.ofSeconds(5)).until(() -> !fetchByArtifactId("jmail").records().isEmpty());
 
@@ -103,7 +104,7 @@ class AnalyzeControllerTest {
                 .send();
 
         assertThat(res.getStatus()).isEqualTo(202);
-        assertThat(res.getContentAsString()).isEmpty();
+        assertJobAccepted(res);
 
         await().atMost(Duration.ofSeconds(5)).until(() -> !fetchByArtifactId("jmail").records().isEmpty());
 
@@ -161,6 +162,48 @@ class AnalyzeControllerTest {
         assertJmailArtifactInfo(((Map<String, Object>) dependencies.getFirst().get("artifact")));
     }
 
+    @Test
+    void shouldRefreshStaleAnalysisInBackground() throws InterruptedException, ExecutionException, TimeoutException {
+        ContentResponse res = httpClient.newRequest(host + "/api/v1/analyze-and-wait")
+                .body(new StringRequestContent(TestUtil.writeJson(
+                        new Gav("com.sanctionco.jmail", "jmail", "1.6.2")
+                )))
+                .method(HttpMethod.POST)
+                .send();
+        assertThat(res.getStatus()).isEqualTo(200);
+        driver.executableQuery("MATCH (n) WHERE n.artifactId = 'jmail' SET n.analyzed = localdatetime() - duration('P100D')").execute();
+        LocalDateTime staleAnalyzed = fetchAnalyzed("jmail");
+
+        ContentResponse packageRes = httpClient.GET(host + "/api/v1/packages/com.sanctionco.jmail:jmail:1.6.2?maxAge=86400");
+        assertThat(packageRes.getStatus()).isEqualTo(200);
+        Map<String, Object> properties = TestUtil.readJson(packageRes.getContentAsString(), new TypeReference<>() {});
+        assertJmailArtifactInfo(properties);
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> fetchAnalyzed("jmail").isAfter(staleAnalyzed));
+    }
+
+    @Test
+    void shouldRejectNegativeMaxAge() throws InterruptedException, ExecutionException, TimeoutException {
+        ContentResponse res = httpClient.newRequest(host + "/api/v1/analyze?maxAge=-1")
+                .body(new StringRequestContent(TestUtil.writeJson(
+                        new Gav("com.sanctionco.jmail", "jmail", "1.6.2")
+                )))
+                .method(HttpMethod.POST)
+                .send();
+
+        assertThat(res.getStatus()).isEqualTo(400);
+    }
+
+    private void assertJobAccepted(ContentResponse res) {
+        Map<String, Object> job = TestUtil.readJson(res.getContentAsString(), new TypeReference<>() {});
+        assertThat(job).containsKey("id");
+        assertThat(res.getHeaders().get("Location")).isEqualTo("/api/v1/jobs/" + job.get("id"));
+    }
+
+    private LocalDateTime fetchAnalyzed(String artifactId) {
+        return fetchByArtifactId(artifactId).records().getFirst().get("n").asNode().get("analyzed").asLocalDateTime();
+    }
+
     private EagerResult fetchByArtifactId(String id) {
         return driver.executableQuery("MATCH (n) WHERE n.artifactId = '%s' AND n.unresolved IS NULL RETURN n".formatted(id)).execute();
     }
@@ -176,6 +219,12 @@ class AnalyzeControllerTest {
                 Map.entry("version", "1.6.2"),
                 Map.entry("url", "https://github.com/RohanNagar/jmail"),
                 Map.entry("bytecodeVersion", "52.0"),
+                Map.entry("minBytecodeVersion", "52.0"),
+                Map.entry("bytecodeVersions", Map.of("52.0", 15L)),
+                Map.entry("moduleName", "com.sanctionco.jmail"),
+                Map.entry("multiRelease", false),
+                Map.entry("classCount", 15L),
+                Map.entry("nativeLibraries", false),
                 Map.entry("licenseTypes", List.of(LicenseType.MIT.name())),
                 Map.entry("classifiers", List.of("javadoc", "sources")),
                 Map.entry("effectiveValues", Map.of(
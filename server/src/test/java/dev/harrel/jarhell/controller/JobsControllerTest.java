@@ -0,0 +1,93 @@
+package dev.harrel.jarhell.controller;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import dev.harrel.jarhell.extension.EnvironmentTest;
+import dev.harrel.jarhell.extension.Host;
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.util.TestUtil;
+import org.eclipse.jetty.client.HttpClient;
+import org.eclipse.jetty.client.api.ContentResponse;
+import org.eclipse.jetty.client.util.StringRequestContent;
+import org.eclipse.jetty.http.HttpMethod;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.awaitility.Awaitility.await;
+
+@EnvironmentTest
+class JobsControllerTest {
+    private final HttpClient httpClient;
+
+    @Host
+    private String host;
+
+    JobsControllerTest(HttpClient httpClient) {
+        this.httpClient = httpClient;
+    }
+
+    @Test
+    void shouldReportCompletedJob() throws InterruptedException, ExecutionException, TimeoutException {
+        ContentResponse res = httpClient.newRequest(host + "/api/v1/analyze")
+                .body(new StringRequestContent(TestUtil.writeJson(
+                        new Gav("org.test", "artifact", "3.0.1")
+                )))
+                .method(HttpMethod.POST)
+                .send();
+        assertThat(res.getStatus()).isEqualTo(202);
+        String location = res.getHeaders().get("Location");
+
+        await().atMost(Duration.ofSeconds(5)).until(() -> "COMPLETED".equals(fetchJob(location).get("state")));
+
+        Map<String, Object> job = fetchJob(location);
+        assertThat(job).containsEntry("coordinate", "org.test:artifact:3.0.1");
+        assertThat(job).containsEntry("progress", Map.of(
+                "visited", 2L,
+                "analyzed", 2L,
+                "reused", 0L,
+                "failed", 0L
+        ));
+        assertThat(job).containsKeys("submitted", "started", "finished", "durationMs");
+    }
+
+    @Test
+    void shouldReuseAlreadyAnalyzedArtifact() throws InterruptedException, ExecutionException, TimeoutException {
+        StringRequestContent body = new StringRequestContent(TestUtil.writeJson(
+                new Gav("com.sanctionco.jmail", "jmail", "1.6.2")
+        ));
+        httpClient.newRequest(host + "/api/v1/analyze-and-wait")
+                .body(body)
+                .method(HttpMethod.POST)
+                .send();
+        ContentResponse res = httpClient.newRequest(host + "/api/v1/analyze")
+                .body(body)
+                .method(HttpMethod.POST)
+                .send();
+
+        Map<String, Object> job = TestUtil.readJson(res.getContentAsString(), new TypeReference<>() {});
+        assertThat(job).containsEntry("state", "COMPLETED");
+        assertThat(job).containsEntry("progress", Map.of(
+                "visited", 1L,
+                "analyzed", 0L,
+                "reused", 1L,
+                "failed", 0L
+        ));
+    }
+
+    @Test
+    void shouldReturn404ForUnknownJob() throws InterruptedException, ExecutionException, TimeoutException {
+        ContentResponse res = httpClient.GET(host + "/api/v1/jobs/unknown");
+
+        assertThat(res.getStatus()).isEqualTo(404);
+    }
+
+    private Map<String, Object> fetchJob(String location) throws InterruptedException, ExecutionException, TimeoutException {
+        ContentResponse res = httpClient.GET(host + location);
+        assertThat(res.getStatus()).isEqualTo(200);
+        return TestUtil.readJson(res.getContentAsString(), new TypeReference<>() {});
+    }
+}
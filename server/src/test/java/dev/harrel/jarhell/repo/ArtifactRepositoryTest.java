@@ -5,12 +5,15 @@ import dev.harrel.jarhell.model.ArtifactInfo;
 import dev.harrel.jarhell.model.ArtifactTree;
 import dev.harrel.jarhell.model.Gav;
 import dev.harrel.jarhell.model.LicenseType;
+import dev.harrel.jarhell.model.SizeComponent;
 import dev.harrel.jarhell.model.descriptor.License;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.TreeMap;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -216,13 +219,75 @@ class ArtifactRepositoryTest {
         assertThat(artifactTree.get().artifactInfo().unresolvedReason()).isNull();
     }
 
+    @Test
+    void shouldFindManyResolvedArtifacts() {
+        Gav gav1 = new Gav("x", "y", "1");
+        Gav gav2 = new Gav("x", "y", "2", "sources");
+        Gav unresolved = new Gav("x", "y", "3");
+        repo.saveArtifact(artifactInfo(gav1));
+        repo.saveArtifact(artifactInfo(gav2));
+        repo.saveArtifact(ArtifactInfo.unresolved(unresolved, "test"));
+
+        Map<Gav, ArtifactInfo> found = repo.findMany(List.of(gav1, gav2, unresolved, new Gav("x", "y", "4")));
+
+        assertThat(found).containsOnlyKeys(gav1, gav2);
+        assertArtifact(found.get(gav1), gav1);
+        assertArtifact(found.get(gav2), gav2);
+    }
+
+    @Test
+    void shouldSaveAndClearFailedDependencies() {
+        Gav gav = new Gav("x", "y", "1");
+        Gav failed = new Gav("x", "z", "1", "sources");
+        repo.saveArtifact(artifactInfo(gav));
+
+        repo.saveFailedDependencies(gav, List.of(failed));
+        assertThat(repo.findAllWithFailedDependencies(10, 3)).isEqualTo(Map.of(gav, List.of(failed)));
+
+        repo.saveFailedDependencies(gav, List.of(failed));
+        repo.saveFailedDependencies(gav, List.of(failed));
+        assertThat(repo.findAllWithFailedDependencies(10, 3)).isEmpty();
+
+        repo.saveFailedDependencies(gav, List.of());
+        assertThat(repo.findAllWithFailedDependencies(10, 3)).isEmpty();
+        repo.saveFailedDependencies(gav, List.of(failed));
+        assertThat(repo.findAllWithFailedDependencies(10, 3)).containsOnlyKeys(gav);
+    }
+
+    @Test
+    void shouldFindArtifactVersionsWithMetadataValidators() {
+        repo.saveArtifact(artifactInfo(new Gav("x", "y", "1")));
+        repo.saveArtifact(artifactInfo(new Gav("x", "y", "2")));
+        repo.saveArtifact(artifactInfo(new Gav("x", "z", "1")));
+        assertThat(repo.findArtifactVersions(0, 10))
+                .extracting(ArtifactRepository.ArtifactVersions::etag)
+                .containsExactly(null, null);
+
+        repo.saveMetadataValidators("x", "y", "\"abc\"", "Wed, 01 Jan 2025 00:00:00 GMT");
+        repo.saveMetadataValidators("x", "y", "\"def\"", null);
+        List<ArtifactRepository.ArtifactVersions> versions = repo.findArtifactVersions(0, 10);
+
+        assertThat(repo.countArtifactGroups()).isEqualTo(2);
+        assertThat(versions).hasSize(2);
+        assertThat(versions.getFirst().artifactId()).isEqualTo("y");
+        assertThat(versions.getFirst().versions()).containsExactlyInAnyOrder("1", "2");
+        assertThat(versions.getFirst().etag()).isEqualTo("\"def\"");
+        assertThat(versions.getFirst().lastModified()).isNull();
+        assertThat(versions.getLast().artifactId()).isEqualTo("z");
+        assertThat(versions.getLast().etag()).isNull();
+    }
+
     private static ArtifactInfo artifactInfo(Gav gav) {
         return artifactInfo(gav, 10L);
     }
 
     private static ArtifactInfo artifactInfo(Gav gav, Long packageSize) {
         return new ArtifactInfo(gav.groupId(), gav.artifactId(), gav.version(), gav.classifier(), null, null, null,
-                LocalDateTime.MIN, packageSize, "52.0", "jar", "name", "desc", "url", "scmUrl",
+                LocalDateTime.MIN, packageSize, "52.0", "50.0",
+                new TreeMap<>(Map.of("50.0", 2L, "52.0", 8L, "100.0", 1L)), "org.test", true, List.of(9, 11), 10, false,
+                List.of(new SizeComponent(SizeComponent.CLASSES, null, 10, 2000, 1000),
+                        new SizeComponent(SizeComponent.SHADED_CLASSES, "org.shaded.lib", 2, 300, 100)),
+                "jar", "name", "desc", "url", "scmUrl",
                 "issuesUrl", "1995", List.of(new License("MIT", "https://mit.com")), List.of(LicenseType.MIT), List.of("source"),
                 new ArtifactInfo.EffectiveValues(0, 0, 0, 10L, "52.0", LicenseType.MIT, List.of()),
                 null);
@@ -230,7 +295,7 @@ class ArtifactRepositoryTest {
 
     private static ArtifactInfo effectivelyUnresolved(Gav gav) {
         return new ArtifactInfo(gav.groupId(), gav.artifactId(), gav.version(), gav.classifier(), null, null, null,
-                LocalDateTime.MIN, 10L, "52.0", "jar", "name", "desc", "url", "scmUrl",
+                LocalDateTime.MIN, 10L, "52.0", null, null, null, null, null, null, null, null, "jar", "name", "desc", "url", "scmUrl",
                 "issuesUrl", "1995", List.of(new License("MIT", "https://mit.com")), List.of(LicenseType.MIT), List.of("source"),
                 new ArtifactInfo.EffectiveValues(0, 1, 0, 10L, "52.0", LicenseType.MIT, List.of()),
                 null);
@@ -244,6 +309,12 @@ class ArtifactRepositoryTest {
         assertThat(info.unresolvedCount()).isNull();
         assertThat(info.unresolvedReason()).isNull();
         assertThat(info.packageSize()).isEqualTo(10L);
+        assertThat(info.moduleName()).isEqualTo("org.test");
+        assertThat(info.releaseVersions()).isEqualTo(List.of(9, 11));
+        assertThat(info.classCount()).isEqualTo(10);
+        assertThat(info.bytecodeVersions()).containsExactly(Map.entry("50.0", 2L), Map.entry("52.0", 8L), Map.entry("100.0", 1L));
+        assertThat(info.sizeComposition()).containsExactly(new SizeComponent(SizeComponent.CLASSES, null, 10, 2000, 1000),
+                new SizeComponent(SizeComponent.SHADED_CLASSES, "org.shaded.lib", 2, 300, 100));
         assertThat(info.classifiers()).isEqualTo(List.of("source"));
     }
 }
\ No newline at end of file
@@ -0,0 +1,92 @@
+package dev.harrel.jarhell.repo;
+
+import dev.harrel.jarhell.model.Gav;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassIndexTest {
+    private static final Gav SLF4J = new Gav("org.slf4j", "slf4j-api", "2.0.16");
+    private static final Gav SLF4J_OLD = new Gav("org.slf4j", "slf4j-api", "1.7.36");
+    private static final Gav LOGBACK = new Gav("ch.qos.logback", "logback-classic", "1.5.12");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void findsPendingAndMergedListings() throws IOException {
+        ClassIndex index = createIndex();
+        index.add(SLF4J, List.of("org.slf4j.LoggerFactory", "org.slf4j.Logger", "org.slf4j.spi.MDCAdapter"));
+        index.add(SLF4J_OLD, List.of("org.slf4j.Logger", "org.slf4j.LoggerFactory", "org.slf4j.impl.StaticLoggerBinder"));
+        assertLookups(index);
+
+        index.merge();
+        assertLookups(index);
+
+        index.add(LOGBACK, List.of("ch.qos.logback.classic.Logger", "org.slf4j.impl.StaticLoggerBinder"));
+        assertThat(index.find("org.slf4j.impl.StaticLoggerBinder")).containsExactly(SLF4J_OLD, LOGBACK);
+        index.merge();
+        assertThat(index.find("org.slf4j.impl.StaticLoggerBinder")).containsExactly(SLF4J_OLD, LOGBACK);
+        assertThat(index.find("ch.qos.logback.classic.Logger")).containsExactly(LOGBACK);
+    }
+
+    @Test
+    void replacesListingOfReanalyzedArtifact() throws IOException {
+        ClassIndex index = createIndex();
+        index.add(SLF4J, List.of("org.slf4j.Logger", "org.slf4j.Removed"));
+        index.merge();
+
+        index.add(SLF4J, List.of("org.slf4j.Logger", "org.slf4j.Added"));
+        assertThat(index.find("org.slf4j.Removed")).isEmpty();
+        assertThat(index.find("org.slf4j.Added")).containsExactly(SLF4J);
+        index.merge();
+        assertThat(index.find("org.slf4j.Removed")).isEmpty();
+        assertThat(index.find("org.slf4j.Added")).containsExactly(SLF4J);
+        assertThat(index.find("org.slf4j.Logger")).containsExactly(SLF4J);
+    }
+
+    @Test
+    void limitsPrefixMatches() throws IOException {
+        ClassIndex index = createIndex();
+        index.add(SLF4J, IntStream.range(0, 100).mapToObj("org.test.C%02d"::formatted).toList());
+        index.merge();
+        index.add(LOGBACK, List.of("org.test.A", "org.testing.B"));
+
+        assertThat(index.findByPrefix("org.test.", 3)).extracting(ClassIndex.Match::className)
+                .containsExactly("org.test.A", "org.test.C00", "org.test.C01");
+        assertThat(index.findByPrefix("org.test.C5", 100)).hasSize(10);
+        assertThat(index.findByPrefix("org.testing", 100)).extracting(ClassIndex.Match::className).containsExactly("org.testing.B");
+        assertThat(index.findByPrefix("org.x", 100)).isEmpty();
+    }
+
+    @Test
+    void keepsIndexAcrossRestarts() throws IOException {
+        ClassIndex index = createIndex();
+        index.add(SLF4J, List.of("org.slf4j.Logger"));
+        index.merge();
+        index.add(LOGBACK, List.of("ch.qos.logback.classic.Logger", "org.slf4j.Logger"));
+
+        ClassIndex restarted = createIndex();
+        assertThat(restarted.find("org.slf4j.Logger")).containsExactly(LOGBACK, SLF4J);
+        assertThat(restarted.find("ch.qos.logback.classic.Logger")).containsExactly(LOGBACK);
+    }
+
+    private ClassIndex createIndex() throws IOException {
+        return new ClassIndex(new ClassListingRepository(tempDir.resolve("listings.bin")), tempDir, 1000);
+    }
+
+    private static void assertLookups(ClassIndex index) {
+        assertThat(index.find("org.slf4j.Logger")).containsExactly(SLF4J_OLD, SLF4J);
+        assertThat(index.find("org.slf4j.spi.MDCAdapter")).containsExactly(SLF4J);
+        assertThat(index.find("org.slf4j.Missing")).isEmpty();
+        assertThat(index.findByPrefix("org.slf4j.Logger", 10))
+                .containsExactly(new ClassIndex.Match("org.slf4j.Logger", List.of(SLF4J_OLD, SLF4J)),
+                        new ClassIndex.Match("org.slf4j.LoggerFactory", List.of(SLF4J_OLD, SLF4J)));
+    }
+}
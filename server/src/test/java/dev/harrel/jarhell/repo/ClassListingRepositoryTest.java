@@ -0,0 +1,63 @@
+package dev.harrel.jarhell.repo;
+
+import dev.harrel.jarhell.model.Gav;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ClassListingRepositoryTest {
+    private static final Gav SLF4J = new Gav("org.slf4j", "slf4j-api", "2.0.16");
+    private static final Gav LOGBACK = new Gav("ch.qos.logback", "logback-classic", "1.5.12");
+
+    @TempDir
+    private Path tempDir;
+
+    @Test
+    void dropsRecordsFromFirstUndecodableOne() throws IOException {
+        Path path = tempDir.resolve("listings.bin");
+        ClassListingRepository repo = new ClassListingRepository(path);
+        repo.save(SLF4J, List.of("org.slf4j.Logger"));
+        long validSize = repo.size();
+        repo.close();
+        // complete record, but not deflated, followed by a valid-looking one
+        byte[] garbage = "not a listing".getBytes();
+        Files.write(path, ByteBuffer.allocate(Integer.BYTES + garbage.length).putInt(garbage.length).put(garbage).array(),
+                StandardOpenOption.APPEND);
+        ClassListingRepository other = new ClassListingRepository(tempDir.resolve("other.bin"));
+        other.save(LOGBACK, List.of("ch.qos.logback.classic.Logger"));
+        other.close();
+        Files.write(path, Files.readAllBytes(tempDir.resolve("other.bin")), StandardOpenOption.APPEND);
+
+        ClassListingRepository restarted = new ClassListingRepository(path);
+        assertThat(restarted.size()).isEqualTo(validSize);
+        assertThat(restarted.find(SLF4J)).contains(List.of("org.slf4j.Logger"));
+        assertThat(restarted.find(LOGBACK)).isEmpty();
+
+        restarted.save(LOGBACK, List.of("ch.qos.logback.classic.Logger"));
+        assertThat(restarted.find(LOGBACK)).contains(List.of("ch.qos.logback.classic.Logger"));
+        restarted.close();
+    }
+
+    @Test
+    void dropsRecordWithInvalidLength() throws IOException {
+        Path path = tempDir.resolve("listings.bin");
+        ClassListingRepository repo = new ClassListingRepository(path);
+        repo.save(SLF4J, List.of("org.slf4j.Logger"));
+        long validSize = repo.size();
+        repo.close();
+        Files.write(path, ByteBuffer.allocate(Integer.BYTES).putInt(-1).array(), StandardOpenOption.APPEND);
+
+        ClassListingRepository restarted = new ClassListingRepository(path);
+        assertThat(restarted.size()).isEqualTo(validSize);
+        assertThat(restarted.find(SLF4J)).contains(List.of("org.slf4j.Logger"));
+        restarted.close();
+    }
+}
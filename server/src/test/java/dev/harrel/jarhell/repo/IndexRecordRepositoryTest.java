@@ -0,0 +1,43 @@
+package dev.harrel.jarhell.repo;
+
+import dev.harrel.jarhell.extension.EnvironmentTest;
+import dev.harrel.jarhell.model.Gav;
+import dev.harrel.jarhell.model.IndexRecord;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@EnvironmentTest
+class IndexRecordRepositoryTest {
+    private final IndexRecordRepository repo;
+
+    IndexRecordRepositoryTest(IndexRecordRepository repo) {
+        this.repo = repo;
+    }
+
+    @Test
+    void mergesPartialRecords() {
+        Gav gav = new Gav("x", "y", "1");
+        repo.saveAll(List.of(new IndexRecord(gav, null, null, null, null, Set.of("sources"))));
+        assertThat(repo.find(gav)).hasValueSatisfying(rec -> assertThat(rec.isComplete()).isFalse());
+
+        repo.saveAll(List.of(
+                new IndexRecord(gav, "aar", 1700000000000L, 12345L, "aar", Set.of()),
+                new IndexRecord(new Gav("x", "z", "1"), null, null, null, null, Set.of("javadoc"))
+        ));
+        repo.saveAll(List.of(new IndexRecord(gav, null, null, null, null, Set.of("sources", "javadoc"))));
+
+        assertThat(repo.find(gav)).hasValueSatisfying(rec -> {
+            assertThat(rec.isComplete()).isTrue();
+            assertThat(rec.packaging()).isEqualTo("aar");
+            assertThat(rec.lastModified()).isEqualTo(1700000000000L);
+            assertThat(rec.size()).isEqualTo(12345L);
+            assertThat(rec.extension()).isEqualTo("aar");
+            assertThat(rec.classifiers()).containsExactlyInAnyOrder("sources", "javadoc");
+        });
+        assertThat(repo.find(new Gav("x", "y", "2"))).isEmpty();
+    }
+}
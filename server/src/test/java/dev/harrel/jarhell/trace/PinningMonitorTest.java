@@ -0,0 +1,31 @@
+package dev.harrel.jarhell.trace;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PinningMonitorTest {
+    private final PinningMonitor pinningMonitor = new PinningMonitor();
+
+    @Test
+    void aggregatesPerCallSite() {
+        pinningMonitor.record("a.B.c:10", "Native frame or <clinit> on stack", Duration.ofMillis(30));
+        pinningMonitor.record("a.B.c:10", null, Duration.ofMillis(50));
+        pinningMonitor.record("x.Y.z:20", "Native frame or <clinit> on stack", Duration.ofMillis(40));
+
+        assertThat(pinningMonitor.sites()).containsExactly(
+                new PinningMonitor.Site("a.B.c:10", "Native frame or <clinit> on stack", 2, 80, 50),
+                new PinningMonitor.Site("x.Y.z:20", "Native frame or <clinit> on stack", 1, 40, 40)
+        );
+    }
+
+    @Test
+    void resetClearsSites() {
+        pinningMonitor.record("a.B.c:10", null, Duration.ofMillis(30));
+        pinningMonitor.reset();
+
+        assertThat(pinningMonitor.sites()).isEmpty();
+    }
+}
@@ -0,0 +1,87 @@
+package dev.harrel.jarhell.trace;
+
+import dev.harrel.jarhell.util.ConcurrentUtil;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.StructuredTaskScope;
+
+import static java.util.concurrent.StructuredTaskScope.open;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class TraceStoreTest {
+    private final TraceStore traceStore = new TraceStore();
+
+    @Test
+    void recordsSpansAcrossForks() {
+        traceStore.trace("root", () -> {
+            try (var scope = open(StructuredTaskScope.Joiner.awaitAllSuccessfulOrThrow())) {
+                scope.fork(() -> Trace.span("fast", () -> "fast"));
+                scope.fork(() -> Trace.span("slow", () -> {
+                    Thread.sleep(50);
+                    return Trace.span("nested", () -> "slow");
+                }));
+                ConcurrentUtil.joinScope(scope);
+            }
+            return null;
+        });
+
+        Trace.View view = traceStore.findLatest("root").orElseThrow();
+        assertThat(view.spans()).extracting(Trace.Span::name).containsExactlyInAnyOrder("root", "fast", "slow", "nested");
+        Trace.Span root = span(view, "root");
+        assertThat(root.parentId()).isNull();
+        assertThat(span(view, "fast").parentId()).isEqualTo(root.id());
+        assertThat(span(view, "slow").parentId()).isEqualTo(root.id());
+        assertThat(span(view, "nested").parentId()).isEqualTo(span(view, "slow").id());
+        assertThat(view.criticalPath()).containsExactly(root.id(), span(view, "slow").id(), span(view, "nested").id());
+        assertThat(view.durationMicros()).isGreaterThanOrEqualTo(50_000L);
+    }
+
+    @Test
+    void nestedTraceBecomesSpan() {
+        traceStore.trace("outer", () -> traceStore.trace("inner", () -> "value"));
+
+        assertThat(traceStore.findLatest("inner")).isEmpty();
+        assertThat(traceStore.findLatest("outer").orElseThrow().spans())
+                .extracting(Trace.Span::name)
+                .containsExactlyInAnyOrder("outer", "inner");
+    }
+
+    @Test
+    void recordsSpanError() {
+        assertThatThrownBy(() -> traceStore.trace("failing", () -> {
+            throw new IllegalStateException("boom");
+        })).isInstanceOf(IllegalStateException.class);
+
+        Trace.Span span = traceStore.findLatest("failing").orElseThrow().spans().getFirst();
+        assertThat(span.error()).contains("boom");
+    }
+
+    @Test
+    void dropsSpansOverLimitButKeepsRoot() {
+        traceStore.trace("large", () -> {
+            for (int i = 0; i < Trace.MAX_SPANS + 10; i++) {
+                Trace.span("child", () -> null);
+            }
+            return null;
+        });
+
+        Trace.View view = traceStore.findLatest("large").orElseThrow();
+        assertThat(view.spans()).hasSize(Trace.MAX_SPANS);
+        assertThat(view.droppedSpans()).isEqualTo(11);
+        assertThat(span(view, "large").parentId()).isNull();
+    }
+
+    @Test
+    void spanOutsideOfTraceIsNoop() {
+        assertThat(Trace.span("noop", () -> "value")).isEqualTo("value");
+        assertThat(Trace.current()).isEmpty();
+    }
+
+    private static Trace.Span span(Trace.View view, String name) {
+        List<Trace.Span> spans = view.spans().stream().filter(s -> s.name().equals(name)).toList();
+        assertThat(spans).hasSize(1);
+        return spans.getFirst();
+    }
+}
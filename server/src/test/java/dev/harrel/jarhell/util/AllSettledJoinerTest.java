@@ -0,0 +1,47 @@
+package dev.harrel.jarhell.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.StructuredTaskScope;
+import java.util.concurrent.StructuredTaskScope.Subtask;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.StructuredTaskScope.open;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AllSettledJoinerTest {
+
+    @Test
+    void doesNotCancelSiblingsOnFailure() {
+        CountDownLatch failed = new CountDownLatch(1);
+        try (var scope = open(new AllSettledJoiner<String>())) {
+            Subtask<String> failing = scope.fork(() -> {
+                failed.countDown();
+                throw new IllegalStateException("boom");
+            });
+            Subtask<String> slow = scope.fork(() -> {
+                failed.await(5, TimeUnit.SECONDS);
+                Thread.sleep(50);
+                return "done";
+            });
+            List<Subtask<? extends String>> result = ConcurrentUtil.joinScope(scope);
+
+            assertThat(result).containsExactly(failing);
+            assertThat(failing.exception()).isInstanceOf(IllegalStateException.class);
+            assertThat(slow.state()).isEqualTo(Subtask.State.SUCCESS);
+            assertThat(slow.get()).isEqualTo("done");
+        }
+    }
+
+    @Test
+    void returnsEmptyListWhenAllSucceed() {
+        try (var scope = open(new AllSettledJoiner<Integer>())) {
+            scope.fork(() -> 1);
+            scope.fork(() -> 2);
+
+            assertThat(ConcurrentUtil.joinScope(scope)).isEmpty();
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package dev.harrel.jarhell.util;
+
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResizableSemaphoreTest {
+
+    @Test
+    void growsLimit() {
+        ResizableSemaphore semaphore = new ResizableSemaphore(1);
+        assertThat(semaphore.tryAcquire()).isTrue();
+        assertThat(semaphore.tryAcquire()).isFalse();
+
+        semaphore.resize(2);
+        assertThat(semaphore.tryAcquire()).isTrue();
+        assertThat(semaphore.limit()).isEqualTo(2);
+        assertThat(semaphore.inUse()).isEqualTo(2);
+    }
+
+    @Test
+    void shrinksLimitWithoutRevokingPermits() {
+        ResizableSemaphore semaphore = new ResizableSemaphore(3);
+        semaphore.acquireUninterruptibly(3);
+
+        semaphore.resize(1);
+        assertThat(semaphore.inUse()).isEqualTo(3);
+        semaphore.release(2);
+        assertThat(semaphore.tryAcquire()).isFalse();
+        semaphore.release();
+        assertThat(semaphore.inUse()).isZero();
+        assertThat(semaphore.tryAcquire()).isTrue();
+        assertThat(semaphore.tryAcquire()).isFalse();
+    }
+
+    @Test
+    void releasesPermitAfterFailure() {
+        ResizableSemaphore semaphore = new ResizableSemaphore(1);
+        assertThatThrownBy(() -> semaphore.withPermit(() -> {
+            throw new IllegalStateException();
+        })).isInstanceOf(IllegalStateException.class);
+
+        assertThat(semaphore.inUse()).isZero();
+    }
+
+    @Test
+    void rejectsNonPositiveLimit() {
+        ResizableSemaphore semaphore = new ResizableSemaphore(1);
+        assertThatThrownBy(() -> semaphore.resize(0)).isInstanceOf(IllegalArgumentException.class);
+    }
+}
@@ -121,10 +121,26 @@ export interface Dependency {
   optional: boolean
 }
 
+export interface SizeComponent {
+  kind: 'classes' | 'shaded-classes' | 'resources' | 'native-libraries' | 'archives'
+  packagePrefix?: string
+  entries: number
+  size: number
+  compressedSize: number
+}
+
 export interface ResolvedPackage extends Gav {
   unresolved: false
   packageSize: number
   bytecodeVersion?: string
+  minBytecodeVersion?: string
+  bytecodeVersions?: Record<string, number>
+  moduleName?: string
+  multiRelease?: boolean
+  releaseVersions?: number[]
+  classCount?: number
+  nativeLibraries?: boolean
+  sizeComposition?: SizeComponent[]
   packaging: string
   name?: string
   description?: string